@@ -0,0 +1,365 @@
+package com.estoque.estoque;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.estoque.estoque.Produto.ProdutoService.EAN_SERVICO_FIXO;
+
+/**
+ * Driver de carga (laço fechado) para a aplicação no perfil "carga".
+ *
+ * Cada usuário é uma thread virtual que sorteia um cenário pelo peso do mix,
+ * executa e já parte para o próximo (com pausa opcional). Latências do período
+ * após o aquecimento vão para um histograma por cenário; no fim imprime vazão,
+ * p50/p90/p99/p99.9/máx e status HTTP, e grava o mesmo em JSON.
+ *
+ * Uso: CargaDriver [url=http://localhost:8080] [usuarios=64] [duracao=PT60S]
+ *                  [aquecimento=PT10S] [pausa=PT0S] [mix=cenario:peso,...]
+ *                  [saida=target/carga-result.json]
+ *
+ * Cenários: produtos, detalhes, detalhes-pagina, produto, unidades, criar,
+ * atualizar (GET + PUT do mesmo item), servicos.
+ */
+public class CargaDriver {
+
+    private static final String MIX_PADRAO =
+            "produtos:1,detalhes:1,detalhes-pagina:20,produto:30,unidades:15,criar:5,atualizar:10,servicos:2";
+    private static final int PAGINA = 100;
+
+    private final HttpClient http;
+    private final ObjectMapper json = new ObjectMapper();
+    private final String url;
+    private final Duration timeout = Duration.ofSeconds(30);
+
+    // ids e unidades existentes, lidos antes de começar
+    private long[] ids;
+    private long[] produtosComEan;
+    private long[] unidades;
+
+    // nomes/EANs únicos entre execuções: prefixo da execução + sequência
+    private final String execucao = Long.toString(System.currentTimeMillis() % 1_000_000_000L, 36);
+    private final long eanBase = 200_000_000_000L + (System.currentTimeMillis() / 1000 % 10_000) * 10_000_000L;
+    private final AtomicLong sequencia = new AtomicLong();
+
+    private volatile boolean medindo;
+
+    private CargaDriver(String url, HttpClient http) {
+        this.url = url;
+        this.http = http;
+    }
+
+    private static final class Cenario {
+        final String nome;
+        final int peso;
+        final Histogram latencias = new ConcurrentHistogram(TimeUnit.MINUTES.toMicros(5), 3);
+        final Map<Integer, LongAdder> status = new ConcurrentHashMap<>();
+        final LongAdder falhas = new LongAdder();
+
+        Cenario(String nome, int peso) {
+            this.nome = nome;
+            this.peso = peso;
+        }
+
+        long erros() {
+            long e = falhas.sum();
+            for (var s : status.entrySet()) {
+                if (!ok(s.getKey())) {
+                    e += s.getValue().sum();
+                }
+            }
+            return e;
+        }
+    }
+
+    private static boolean ok(int status) {
+        return (status >= 200 && status < 300) || status == 304;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> op = new HashMap<>();
+        for (String a : args) {
+            int i = a.indexOf('=');
+            if (i <= 0) {
+                System.err.println("argumento inválido (use chave=valor): " + a);
+                System.exit(2);
+            }
+            op.put(a.substring(0, i), a.substring(i + 1));
+        }
+        String url = op.getOrDefault("url", "http://localhost:8080");
+        int usuarios = Integer.parseInt(op.getOrDefault("usuarios", "64"));
+        Duration duracao = Duration.parse(op.getOrDefault("duracao", "PT60S"));
+        Duration aquecimento = Duration.parse(op.getOrDefault("aquecimento", "PT10S"));
+        Duration pausa = Duration.parse(op.getOrDefault("pausa", "PT0S"));
+        List<Cenario> cenarios = mix(op.getOrDefault("mix", MIX_PADRAO));
+        File saida = new File(op.getOrDefault("saida", "target/carga-result.json"));
+
+        try (ExecutorService virtuais = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient http = HttpClient.newBuilder()
+                     .executor(virtuais)
+                     .connectTimeout(Duration.ofSeconds(5))
+                     .build()) {
+            var driver = new CargaDriver(url, http);
+            driver.preparar();
+            System.out.printf("%s: %d usuários, aquecimento %s, medição %s, mix %s%n",
+                    url, usuarios, aquecimento, duracao, op.getOrDefault("mix", MIX_PADRAO));
+            double segundos = driver.rodar(cenarios, usuarios, aquecimento, duracao, pausa);
+            driver.relatorio(cenarios, usuarios, segundos, saida);
+        }
+    }
+
+    private static List<Cenario> mix(String texto) {
+        List<Cenario> r = new ArrayList<>();
+        for (String parte : texto.split(",")) {
+            String[] kv = parte.strip().split(":");
+            int peso = kv.length > 1 ? Integer.parseInt(kv[1]) : 1;
+            if (peso > 0) {
+                r.add(new Cenario(kv[0], peso));
+            }
+        }
+        if (r.isEmpty()) {
+            throw new IllegalArgumentException("mix vazio");
+        }
+        return r;
+    }
+
+    // ===== PREPARAÇÃO =====
+
+    private void preparar() throws IOException, InterruptedException {
+        List<Long> todos = new ArrayList<>();
+        List<Long> comEan = new ArrayList<>();
+        Long after = 0L;
+        while (after != null) {
+            HttpResponse<String> r = enviar(get("/api/produtos/detalhes?after=" + after + "&limit=5000"));
+            for (JsonNode p : json.readTree(r.body())) {
+                long id = p.get("id_produto").asLong();
+                todos.add(id);
+                if (!EAN_SERVICO_FIXO.equals(p.path("codg_barras_prod").asText())) {
+                    comEan.add(id);
+                }
+            }
+            after = r.headers().firstValue("X-Next-After").map(Long::valueOf).orElse(null);
+        }
+
+        List<Long> un = new ArrayList<>();
+        for (JsonNode u : json.readTree(enviar(get("/api/unidades-medida")).body())) {
+            long id = u.get("id").asLong();
+            if (id != 1) { // 1 = serviço
+                un.add(id);
+            }
+        }
+        if (todos.isEmpty() || comEan.isEmpty() || un.isEmpty()) {
+            throw new IllegalStateException("Catálogo vazio: suba a aplicação com o perfil carga");
+        }
+        ids = todos.stream().mapToLong(Long::longValue).toArray();
+        produtosComEan = comEan.stream().mapToLong(Long::longValue).toArray();
+        unidades = un.stream().mapToLong(Long::longValue).toArray();
+        System.out.printf("Catálogo: %d itens (%d com EAN), %d unidades%n", ids.length, produtosComEan.length, unidades.length);
+    }
+
+    // ===== EXECUÇÃO =====
+
+    private double rodar(List<Cenario> cenarios, int usuarios, Duration aquecimento, Duration duracao, Duration pausa)
+            throws InterruptedException {
+        int pesoTotal = cenarios.stream().mapToInt(c -> c.peso).sum();
+        long fim = System.nanoTime() + aquecimento.toNanos() + duracao.toNanos();
+
+        var threads = new ArrayList<Thread>(usuarios);
+        for (int u = 0; u < usuarios; u++) {
+            threads.add(Thread.ofVirtual().name("carga-", u).start(() -> {
+                while (System.nanoTime() < fim) {
+                    executar(sortear(cenarios, pesoTotal));
+                    if (!pausa.isZero()) {
+                        try {
+                            Thread.sleep(pausa);
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                    }
+                }
+            }));
+        }
+
+        Thread.sleep(aquecimento);
+        medindo = true;
+        long inicio = System.nanoTime();
+        for (Thread t : threads) {
+            t.join();
+        }
+        return (System.nanoTime() - inicio) / 1e9;
+    }
+
+    private static Cenario sortear(List<Cenario> cenarios, int pesoTotal) {
+        int x = ThreadLocalRandom.current().nextInt(pesoTotal);
+        for (Cenario c : cenarios) {
+            x -= c.peso;
+            if (x < 0) {
+                return c;
+            }
+        }
+        return cenarios.get(cenarios.size() - 1);
+    }
+
+    private void executar(Cenario c) {
+        long inicio = System.nanoTime();
+        int status;
+        try {
+            status = switch (c.nome) {
+                case "produtos" -> enviar(get("/api/produtos")).statusCode();
+                case "detalhes" -> enviar(get("/api/produtos/detalhes")).statusCode();
+                case "detalhes-pagina" -> enviar(get("/api/produtos/detalhes?after="
+                        + (qualquer(ids) - 1) + "&limit=" + PAGINA)).statusCode();
+                case "produto" -> enviar(get("/api/produtos/" + qualquer(ids))).statusCode();
+                case "unidades" -> enviar(get("/api/unidades-medida")).statusCode();
+                case "criar" -> enviar(post("/api/produtos", novoProduto())).statusCode();
+                case "atualizar" -> atualizar();
+                case "servicos" -> enviar(post("/api/servicos", novoServico())).statusCode();
+                default -> throw new IllegalArgumentException("cenário desconhecido: " + c.nome);
+            };
+        } catch (IOException e) {
+            if (medindo) {
+                c.falhas.increment();
+            }
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        if (medindo) {
+            c.latencias.recordValue(Math.max(1, (System.nanoTime() - inicio) / 1_000));
+            c.status.computeIfAbsent(status, k -> new LongAdder()).increment();
+        }
+    }
+
+    private int atualizar() throws IOException, InterruptedException {
+        HttpResponse<String> atual = enviar(get("/api/produtos/" + qualquer(produtosComEan)));
+        if (!ok(atual.statusCode())) {
+            return atual.statusCode();
+        }
+        ObjectNode p = (ObjectNode) json.readTree(atual.body());
+        p.put("descricao_produto", "Atualizado pela carga " + execucao + "-" + sequencia.incrementAndGet());
+        return enviar(HttpRequest.newBuilder(URI.create(url + "/api/produtos/" + p.get("id_produto").asLong()))
+                .timeout(timeout)
+                .header("Content-Type", "application/json")
+                .PUT(HttpRequest.BodyPublishers.ofString(p.toString()))
+                .build()).statusCode();
+    }
+
+    private String novoProduto() {
+        long n = sequencia.incrementAndGet();
+        var rnd = ThreadLocalRandom.current();
+        int min = rnd.nextInt(20);
+        int max = min + 10 + rnd.nextInt(200);
+        ObjectNode p = json.createObjectNode()
+                .put("nomeProduto", "Carga " + execucao + " " + n)
+                .put("descricao_produto", "Item criado pelo driver de carga")
+                .put("codg_barras_prod", ean13(eanBase + n))
+                .put("estoque_minimo", min)
+                .put("estoque_maximo", max)
+                .put("ponto_abastecimento", min + 1)
+                .put("id_unmedida", qualquer(unidades));
+        return p.toString();
+    }
+
+    private String novoServico() {
+        return json.createObjectNode()
+                .put("nomeProduto", "Serviço carga " + execucao + " " + sequencia.incrementAndGet())
+                .put("descricao_produto", "Serviço criado pelo driver de carga")
+                .toString();
+    }
+
+    private static long qualquer(long[] v) {
+        return v[ThreadLocalRandom.current().nextInt(v.length)];
+    }
+
+    private static String ean13(long base) {
+        String s = String.format("%012d", base % 1_000_000_000_000L);
+        int soma = 0;
+        for (int k = 0; k < 12; k++) {
+            int d = s.charAt(k) - '0';
+            soma += (k % 2 == 0) ? d : d * 3;
+        }
+        return s + (10 - soma % 10) % 10;
+    }
+
+    // ===== HTTP =====
+
+    private HttpRequest get(String caminho) {
+        return HttpRequest.newBuilder(URI.create(url + caminho)).timeout(timeout).GET().build();
+    }
+
+    private HttpRequest post(String caminho, String corpo) {
+        return HttpRequest.newBuilder(URI.create(url + caminho))
+                .timeout(timeout)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(corpo))
+                .build();
+    }
+
+    private HttpResponse<String> enviar(HttpRequest req) throws IOException, InterruptedException {
+        return http.send(req, HttpResponse.BodyHandlers.ofString());
+    }
+
+    // ===== RELATÓRIO =====
+
+    private void relatorio(List<Cenario> cenarios, int usuarios, double segundos, File saida) throws IOException {
+        Histogram total = new Histogram(TimeUnit.MINUTES.toMicros(5), 3);
+        ObjectNode raiz = json.createObjectNode()
+                .put("url", url)
+                .put("usuarios", usuarios)
+                .put("segundos", segundos);
+        ObjectNode porCenario = raiz.putObject("cenarios");
+
+        System.out.printf("%n%-16s %9s %7s %9s %9s %9s %9s %9s %9s  %s%n",
+                "cenário", "reqs", "erros", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "máx ms", "status");
+        for (Cenario c : cenarios) {
+            total.add(c.latencias);
+            ObjectNode n = porCenario.putObject(c.nome);
+            linha(c.nome, c.latencias, c.erros(), segundos, new TreeMap<>(c.status).toString(), n);
+            ObjectNode st = n.putObject("status");
+            c.status.forEach((k, v) -> st.put(k.toString(), v.sum()));
+        }
+        long erros = cenarios.stream().mapToLong(Cenario::erros).sum();
+        linha("TOTAL", total, erros, segundos, "", raiz.putObject("total"));
+
+        File dir = saida.getAbsoluteFile().getParentFile();
+        if (dir != null) {
+            dir.mkdirs();
+        }
+        json.writerWithDefaultPrettyPrinter().writeValue(saida, raiz);
+        System.out.println("\nResultado gravado em " + saida);
+    }
+
+    private static void linha(String nome, Histogram h, long erros, double segundos, String status, ObjectNode n) {
+        long reqs = h.getTotalCount();
+        double vazao = reqs / segundos;
+        double p50 = ms(h, 50), p90 = ms(h, 90), p99 = ms(h, 99), p999 = ms(h, 99.9);
+        double max = h.getMaxValue() / 1000.0;
+        System.out.printf("%-16s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f  %s%n",
+                nome, reqs, erros, vazao, p50, p90, p99, p999, max, status);
+        n.put("reqs", reqs).put("erros", erros).put("vazao", vazao)
+                .put("p50", p50).put("p90", p90).put("p99", p99).put("p999", p999).put("max", max);
+    }
+
+    private static double ms(Histogram h, double percentil) {
+        return h.getTotalCount() == 0 ? 0 : h.getValueAtPercentile(percentil) / 1000.0;
+    }
+}
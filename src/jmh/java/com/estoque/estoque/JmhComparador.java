@@ -0,0 +1,120 @@
+package com.estoque.estoque;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compara dois resultados JMH em JSON (-rf json) e aponta regressões no
+ * tempo/vazão e na alocação por operação (gc.alloc.rate.norm, presente quando
+ * roda com -prof gc). Sai com código 1 se houver regressão.
+ *
+ * Regressão é a piora que passa da tolerância e também da soma dos erros
+ * (scoreError, intervalo de 99,9% do JMH) dos dois lados: com os intervalos
+ * sobrepostos a diferença pode ser só ruído. Sem erro calculado (uma iteração
+ * só) vale apenas a tolerância.
+ *
+ * Uso: JmhComparador baseline.json atual.json [tolerancia, ex. 0.10]
+ */
+public class JmhComparador {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("uso: JmhComparador <baseline.json> <atual.json> [tolerancia]");
+            System.exit(2);
+        }
+        double tolerancia = args.length > 2 ? Double.parseDouble(args[2]) : 0.10;
+
+        Map<String, JsonNode> base = ler(new File(args[0]));
+        Map<String, JsonNode> atual = ler(new File(args[1]));
+
+        // JVMs diferentes (o exec:exec usa o java do PATH) não são comparáveis
+        String jdkBase = jdk(base);
+        String jdkAtual = jdk(atual);
+        if (!jdkBase.equals(jdkAtual)) {
+            System.out.printf("aviso: baseline no JDK %s, medição atual no JDK %s%n%n", jdkBase, jdkAtual);
+        }
+
+        int regressoes = 0;
+        System.out.printf("%-70s %24s %24s %8s %14s %14s %8s%n",
+                "benchmark", "base", "atual", "Δ%", "alloc base", "alloc atual", "Δ%");
+        for (var e : atual.entrySet()) {
+            JsonNode b = base.get(e.getKey());
+            JsonNode a = e.getValue();
+            if (b == null) {
+                System.out.printf("%-70s (novo, sem baseline)%n", e.getKey());
+                continue;
+            }
+
+            JsonNode mb = b.at("/primaryMetric");
+            JsonNode ma = a.at("/primaryMetric");
+            double sb = mb.get("score").asDouble();
+            double sa = ma.get("score").asDouble();
+            // em modos de tempo, menor é melhor; em vazão (ops/tempo), maior é melhor
+            boolean tempo = !a.at("/mode").asText().equals("thrpt");
+            double delta = (sa - sb) / sb;
+            boolean pior = piora(tempo ? sa - sb : sb - sa, sb, erro(mb) + erro(ma), tolerancia);
+
+            JsonNode gb = alocacao(b);
+            JsonNode ga = alocacao(a);
+            double ab = gb == null ? -1 : gb.get("score").asDouble();
+            double aa = ga == null ? -1 : ga.get("score").asDouble();
+            double deltaAlloc = ab > 0 ? (aa - ab) / ab : 0;
+            boolean piorAlloc = ab > 0 && ga != null && piora(aa - ab, ab, erro(gb) + erro(ga), tolerancia);
+
+            System.out.printf("%-70s %24s %24s %7.1f%% %14.1f %14.1f %7.1f%%%s%n",
+                    e.getKey(), comErro(mb), comErro(ma), delta * 100, ab, aa, deltaAlloc * 100,
+                    pior || piorAlloc ? "  <-- REGRESSÃO" : "");
+            if (pior || piorAlloc) {
+                regressoes++;
+            }
+        }
+
+        System.out.printf("%n%d regressão(ões) acima de %.0f%% e do erro das medições%n", regressoes, tolerancia * 100);
+        System.exit(regressoes > 0 ? 1 : 0);
+    }
+
+    // chave: benchmark + parâmetros
+    private static Map<String, JsonNode> ler(File arquivo) throws IOException {
+        Map<String, JsonNode> r = new LinkedHashMap<>();
+        for (JsonNode n : new ObjectMapper().readTree(arquivo)) {
+            StringBuilder chave = new StringBuilder(n.get("benchmark").asText()
+                    .replace("com.estoque.estoque.", ""));
+            JsonNode params = n.get("params");
+            if (params != null) {
+                params.fields().forEachRemaining(p -> chave.append(" ").append(p.getKey()).append("=").append(p.getValue().asText()));
+            }
+            r.put(chave.toString(), n);
+        }
+        return r;
+    }
+
+    // piora: quanto ficou pior (positivo = pior), na unidade da métrica
+    private static boolean piora(double piora, double base, double erroSomado, double tolerancia) {
+        return piora > tolerancia * base && piora > erroSomado;
+    }
+
+    // JMH grava "NaN" quando não dá para calcular o intervalo (uma iteração só)
+    private static double erro(JsonNode metrica) {
+        double e = metrica.path("scoreError").asDouble(Double.NaN);
+        return Double.isNaN(e) ? 0 : e;
+    }
+
+    private static String comErro(JsonNode metrica) {
+        return String.format("%.3f ± %.3f", metrica.get("score").asDouble(), erro(metrica));
+    }
+
+    private static String jdk(Map<String, JsonNode> resultados) {
+        return resultados.values().stream().findFirst()
+                .map(n -> n.path("jdkVersion").asText("?")).orElse("?");
+    }
+
+    private static JsonNode alocacao(JsonNode n) {
+        JsonNode m = n.at("/secondaryMetrics/gc.alloc.rate.norm");
+        return m.isMissingNode() ? null : m;
+    }
+}
@@ -0,0 +1,82 @@
+package com.estoque.estoque.Produto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Montagem de ProdutoDetalhesDTO (como o construtor chamado pela consulta
+ * listarComUnidade) e serialização Jackson da lista, como em GET /api/produtos/detalhes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(3)
+@State(Scope.Benchmark)
+public class ProdutoDetalhesBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int linhas;
+
+    private ObjectMapper mapper;
+    private List<ProdutoDetalhesDTO> lista;
+
+    @Setup
+    public void setup() {
+        // mesma configuração padrão do ObjectMapper do Spring Boot
+        mapper = Jackson2ObjectMapperBuilder.json().build();
+        lista = montar();
+    }
+
+    @Benchmark
+    public List<ProdutoDetalhesDTO> construirDTOs() {
+        return montar();
+    }
+
+    @Benchmark
+    public long serializarLista() throws IOException {
+        var out = new ContadorBytes();
+        mapper.writeValue(out, lista);
+        return out.total;
+    }
+
+    private List<ProdutoDetalhesDTO> montar() {
+        List<ProdutoDetalhesDTO> r = new ArrayList<>(linhas);
+        for (int i = 1; i <= linhas; i++) {
+            r.add(new ProdutoDetalhesDTO(
+                    (long) i,
+                    "Produto " + i,
+                    "Descrição do produto número " + i,
+                    String.valueOf(7890000000000L + i),
+                    i % 3 == 0 ? null : 4.5,
+                    10,
+                    100,
+                    20,
+                    "UN"
+            ));
+        }
+        return r;
+    }
+
+    // descarta os bytes, só conta (evita medir cópia de buffer)
+    private static final class ContadorBytes extends OutputStream {
+        long total;
+
+        @Override
+        public void write(int b) {
+            total++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            total += len;
+        }
+    }
+}
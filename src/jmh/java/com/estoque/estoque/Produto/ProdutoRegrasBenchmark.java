@@ -0,0 +1,45 @@
+package com.estoque.estoque.Produto;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Regras e normalizações chamadas em todo criar/atualizar.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(3)
+@State(Scope.Benchmark)
+public class ProdutoRegrasBenchmark {
+
+    private ProdutoModel valido;
+    private String nome;
+
+    @Setup
+    public void setup() {
+        valido = new ProdutoModel(null, "Café Torrado Extra Forte", null, 4.0, "Pacote 500g",
+                "7891000100103", 100, 10, 20, null, 1L);
+        nome = "   Açúcar   Cristal  ORGÂNICO  ";
+    }
+
+    @Benchmark
+    public ProdutoModel validarRegras() {
+        ProdutoService.validarRegras(valido);
+        return valido;
+    }
+
+    // trim feito em criar/atualizar antes das conferências
+    @Benchmark
+    public String trimNome() {
+        return nome.trim();
+    }
+
+    // chave usada nas conferências de unicidade e na busca
+    @Benchmark
+    public String normalizarNome() {
+        return TextoNormalizador.normalizar(nome);
+    }
+}
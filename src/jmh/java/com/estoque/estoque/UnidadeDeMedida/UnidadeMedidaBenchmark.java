@@ -0,0 +1,54 @@
+package com.estoque.estoque.UnidadeDeMedida;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * listarTodas (leitura do catálogo em memória) e recarregar (mapeamento
+ * UnidadeMedidaModel -> DTO e comparação com o catálogo anterior).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(3)
+@State(Scope.Benchmark)
+public class UnidadeMedidaBenchmark {
+
+    @Param({"50"})
+    public int unidades;
+
+    private UnidadeMedidaService service;
+
+    @Setup
+    public void setup() {
+        List<UnidadeMedidaModel> linhas = new ArrayList<>();
+        for (long i = 1; i <= unidades; i++) {
+            linhas.add(new UnidadeMedidaModel(i, "Unidade " + i, "U" + i));
+        }
+        // repository sem banco: só findAllByOrderByAbreviacaoAsc é chamado
+        var repo = (UnidadeMedidaRepository) Proxy.newProxyInstance(
+                UnidadeMedidaRepository.class.getClassLoader(),
+                new Class<?>[]{UnidadeMedidaRepository.class},
+                (proxy, metodo, args) -> linhas);
+        service = new UnidadeMedidaService(repo, Jackson2ObjectMapperBuilder.json().build(), Duration.ofHours(1),
+                Duration.ofSeconds(30));
+        service.catalogo();
+    }
+
+    @Benchmark
+    public List<UnidadeMedidaDTO> listarTodas() {
+        return service.listarTodas();
+    }
+
+    @Benchmark
+    public UnidadeMedidaCatalogo recarregar() {
+        return service.recarregar();
+    }
+}
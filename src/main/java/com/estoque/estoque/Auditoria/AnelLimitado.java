@@ -0,0 +1,90 @@
+package com.estoque.estoque.Auditoria;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Fila circular de tamanho fixo sem lock, para vários produtores e vários
+ * consumidores (algoritmo de D. Vyukov): cada posição tem um número de
+ * sequência que diz se ela está livre para a volta atual de quem grava ou já
+ * preenchida para quem lê. Produtor e consumidor só disputam um CAS no próprio
+ * contador; cheia, {@link #oferecer} devolve false na hora em vez de bloquear.
+ *
+ * Capacidade arredondada para potência de 2.
+ */
+final class AnelLimitado<T> {
+
+    private final int mascara;
+    private final AtomicReferenceArray<T> itens;
+    private final AtomicLongArray sequencias;
+    // próxima posição a gravar / a ler
+    private final AtomicLong cauda = new AtomicLong();
+    private final AtomicLong cabeca = new AtomicLong();
+
+    AnelLimitado(int capacidade) {
+        int n = Integer.highestOneBit(Math.max(2, capacidade - 1)) << 1;
+        this.mascara = n - 1;
+        this.itens = new AtomicReferenceArray<>(n);
+        this.sequencias = new AtomicLongArray(n);
+        for (int i = 0; i < n; i++) {
+            sequencias.set(i, i);
+        }
+    }
+
+    int capacidade() {
+        return mascara + 1;
+    }
+
+    /** Enfileira {@code item}; false se a fila está cheia. */
+    boolean oferecer(T item) {
+        long pos = cauda.get();
+        while (true) {
+            int i = (int) pos & mascara;
+            long dif = sequencias.get(i) - pos;
+            if (dif == 0) {
+                if (cauda.compareAndSet(pos, pos + 1)) {
+                    itens.set(i, item);
+                    // libera a posição para o consumidor só depois do item no lugar
+                    sequencias.set(i, pos + 1);
+                    return true;
+                }
+                pos = cauda.get();
+            } else if (dif < 0) {
+                // a posição ainda guarda o item da volta anterior
+                return false;
+            } else {
+                pos = cauda.get();
+            }
+        }
+    }
+
+    /** Retira o item mais antigo; null se a fila está vazia. */
+    T retirar() {
+        long pos = cabeca.get();
+        while (true) {
+            int i = (int) pos & mascara;
+            long dif = sequencias.get(i) - (pos + 1);
+            if (dif == 0) {
+                if (cabeca.compareAndSet(pos, pos + 1)) {
+                    T item = itens.get(i);
+                    itens.set(i, null);
+                    // devolve a posição ao produtor da próxima volta
+                    sequencias.set(i, pos + mascara + 1);
+                    return item;
+                }
+                pos = cabeca.get();
+            } else if (dif < 0) {
+                return null;
+            } else {
+                pos = cabeca.get();
+            }
+        }
+    }
+
+    /** Aproximado com produtores e consumidores em andamento. */
+    int tamanho() {
+        long n = cauda.get() - cabeca.get();
+        return (int) Math.max(0, Math.min(n, capacidade()));
+    }
+}
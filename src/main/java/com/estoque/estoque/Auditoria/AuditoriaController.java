@@ -0,0 +1,28 @@
+package com.estoque.estoque.Auditoria;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/produtos")
+@RequiredArgsConstructor
+public class AuditoriaController {
+
+    private final AuditoriaProdutos auditoria;
+
+    /**
+     * Alterações do produto campo a campo, mais recentes primeiro. Para a página
+     * seguinte, {@code antes} = menor id_auditoria recebido. As gravações chegam
+     * aqui em até estoque.auditoria.intervalo.
+     *
+     * GET /api/produtos/{id}/auditoria?limite=100&antes=ID
+     */
+    @GetMapping("/{id}/auditoria")
+    public List<AuditoriaProdutoModel> historico(@PathVariable Long id,
+                                                 @RequestParam(required = false) Long antes,
+                                                 @RequestParam(defaultValue = "100") int limite) {
+        return auditoria.historico(id, antes, limite);
+    }
+}
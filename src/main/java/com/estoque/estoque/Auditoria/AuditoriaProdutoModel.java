@@ -0,0 +1,52 @@
+package com.estoque.estoque.Auditoria;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Linha da trilha de auditoria de produtos (só inserção): um campo alterado
+ * por linha, com o valor antes e depois em texto. Na criação {@code anterior}
+ * é nulo; na exclusão, {@code novo}. Gravada em lotes pela
+ * {@link AuditoriaProdutos}.
+ */
+@Entity
+@Table(name = AuditoriaProdutoModel.NOME_TABELA,
+        indexes = @Index(name = "IX_AUDITPRODUTO_PRODUTO", columnList = "ID_PRODUTO, IDAUDIT"))
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter @Setter
+public class AuditoriaProdutoModel {
+
+    public static final String NOME_TABELA = "AUDITPRODUTO";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "IDAUDIT", nullable = false)
+    private Long id_auditoria;
+
+    @Column(name = "ID_PRODUTO", nullable = false)
+    private Long id_produto;
+
+    // CRIADO, ATUALIZADO ou EXCLUIDO (ProdutoEvento.Tipo)
+    @Column(name = "OPERACAO", nullable = false, length = 10)
+    private String operacao;
+
+    // nome do campo como no JSON da lista detalhada
+    @Column(name = "CAMPO", nullable = false, length = 40)
+    private String campo;
+
+    @Column(name = "ANTERIOR", length = 250)
+    private String anterior;
+
+    @Column(name = "NOVO", length = 250)
+    private String novo;
+
+    // cabeçalho estoque.auditoria.cabecalho-usuario da requisição; nulo sem requisição
+    @Column(name = "USUARIO", length = 60)
+    private String usuario;
+
+    @Column(name = "DATAHORA", nullable = false)
+    private LocalDateTime data_hora;
+}
@@ -0,0 +1,21 @@
+package com.estoque.estoque.Auditoria;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface AuditoriaProdutoRepository extends JpaRepository<AuditoriaProdutoModel, Long> {
+
+    // Trilha de um produto, mais recentes primeiro; ?antes=<id_auditoria> pagina para trás
+    @Query("""
+        select a from AuditoriaProdutoModel a
+        where a.id_produto = :produto and a.id_auditoria < :antes
+        order by a.id_auditoria desc
+        """)
+    List<AuditoriaProdutoModel> historico(@Param("produto") Long produto, @Param("antes") Long antes, Limit limite);
+}
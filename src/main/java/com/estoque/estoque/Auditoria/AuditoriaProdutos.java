@@ -0,0 +1,312 @@
+package com.estoque.estoque.Auditoria;
+
+import com.estoque.estoque.Produto.ProdutoDetalhesDTO;
+import com.estoque.estoque.Produto.ProdutoEvento;
+import com.estoque.estoque.Infra.PoolDedicado;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * Trilha de auditoria de produtos: quem mudou qual campo, de quê para quê e quando.
+ *
+ * Depois do commit de cada gravação (ProdutoEvento) as diferenças campo a campo
+ * entram num {@link AnelLimitado} de {@code estoque.auditoria.capacidade}
+ * registros, sem lock e sem tocar no banco; a requisição não espera o INSERT da
+ * auditoria. A cada {@code estoque.auditoria.intervalo} uma thread esvazia o
+ * anel e grava no AUDITPRODUTO em batch JDBC, uma transação a cada
+ * {@link #REGISTROS_POR_TRANSACAO} registros. Se a gravação falha, o lote fica
+ * para a próxima rodada. A gravação usa um {@link PoolDedicado}
+ * (HikariAuditoria), sem tirar conexão das requisições.
+ *
+ * Anel cheio (banco fora do ar, rajada maior que a vazão da gravação), conforme
+ * {@code estoque.auditoria.politica}:
+ * - ESPERAR: adianta a próxima rodada e espera vaga até {@code estoque.auditoria.espera-maxima};
+ *   não achou, descarta o registro novo;
+ * - DESCARTAR_NOVOS: descarta o registro novo na hora;
+ * - DESCARTAR_ANTIGOS: abre vaga descartando o mais antigo ainda não gravado.
+ * Descartes em estoque.auditoria.descartados e no log.
+ *
+ * O desligamento normal grava o que restou no anel; numa queda do processo
+ * perde-se no máximo um intervalo. Campos comparados: os da lista detalhada,
+ * com almoxarifado e unidade pelos ids do PRODUTO.
+ *
+ * O usuário é o que o cliente declara no cabeçalho {@code estoque.auditoria.cabecalho-usuario}:
+ * a API não tem autenticação, então é uma identificação de boa-fé, não comprovada.
+ */
+@Component
+public class AuditoriaProdutos {
+
+    private static final Logger log = LoggerFactory.getLogger(AuditoriaProdutos.class);
+
+    public enum Politica { ESPERAR, DESCARTAR_NOVOS, DESCARTAR_ANTIGOS }
+
+    static final int REGISTROS_POR_TRANSACAO = 1000;
+    private static final int LOTE = 500;
+    private static final int VALOR_MAXIMO = 250;
+    private static final int USUARIO_MAXIMO = 60;
+    private static final long PASSO_ESPERA_NS = 100_000;
+
+    private static final String INSERIR = """
+            insert into AUDITPRODUTO (ID_PRODUTO, OPERACAO, CAMPO, ANTERIOR, NOVO, USUARIO, DATAHORA)
+            values (?, ?, ?, ?, ?, ?, ?)""";
+
+    private record Campo(String nome, Function<ProdutoDetalhesDTO, Object> valor) {
+    }
+
+    // nomes como no JSON da lista detalhada; os ids, como as colunas do PRODUTO
+    private static final List<Campo> CAMPOS = List.of(
+            new Campo("nomeProduto", ProdutoDetalhesDTO::getNomeProduto),
+            new Campo("descricao_produto", ProdutoDetalhesDTO::getDescricao_produto),
+            new Campo("codg_barras_prod", ProdutoDetalhesDTO::getCodg_barras_prod),
+            new Campo("temperatura_produto", ProdutoDetalhesDTO::getTemperatura_produto),
+            new Campo("estoque_minimo", ProdutoDetalhesDTO::getEstoque_minimo),
+            new Campo("estoque_maximo", ProdutoDetalhesDTO::getEstoque_maximo),
+            new Campo("ponto_abastecimento", ProdutoDetalhesDTO::getPonto_abastecimento),
+            new Campo("id_almoxarifado", ProdutoDetalhesDTO::getId_almoxarifado),
+            new Campo("id_unmedida", ProdutoDetalhesDTO::getId_unmedida)
+    );
+
+    record Alteracao(String campo, String anterior, String novo) {
+    }
+
+    // Uma gravação de produto: vai inteira para o anel e para a mesma transação
+    record Registro(long produto, String operacao, String usuario, LocalDateTime quando, List<Alteracao> alteracoes) {
+    }
+
+    private final HikariDataSource pool;
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate transacao;
+    private final AuditoriaProdutoRepository repo;
+    private final AnelLimitado<Registro> anel;
+    private final Politica politica;
+    private final long esperaNs;
+    private final String cabecalhoUsuario;
+    private final Duration intervalo;
+
+    private final ScheduledExecutorService relogio = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("auditoria-gravacao").daemon().factory());
+    private final AtomicBoolean rodadaAdiantada = new AtomicBoolean();
+
+    // lote em gravação; só a thread que segura o monitor de gravar() mexe
+    private final List<Registro> aGravar = new ArrayList<>();
+
+    private final Counter gravados;
+    private final Counter descartados;
+    private final Counter falhas;
+    private final AtomicLong descartadosSemAviso = new AtomicLong();
+
+    public AuditoriaProdutos(DataSourceProperties propriedades,
+                             AuditoriaProdutoRepository repo,
+                             MeterRegistry metricas,
+                             @Value("${estoque.auditoria.capacidade:65536}") int capacidade,
+                             @Value("${estoque.auditoria.intervalo:PT1S}") Duration intervalo,
+                             @Value("${estoque.auditoria.politica:ESPERAR}") Politica politica,
+                             @Value("${estoque.auditoria.espera-maxima:PT0.1S}") Duration esperaMaxima,
+                             @Value("${estoque.auditoria.cabecalho-usuario:X-Usuario}") String cabecalhoUsuario) {
+        this.pool = PoolDedicado.umaConexao(propriedades, "HikariAuditoria", metricas);
+        this.jdbc = new JdbcTemplate(pool);
+        this.transacao = new TransactionTemplate(new DataSourceTransactionManager(pool));
+        this.repo = repo;
+        this.anel = new AnelLimitado<>(capacidade);
+        this.politica = politica;
+        this.esperaNs = esperaMaxima.toNanos();
+        this.cabecalhoUsuario = cabecalhoUsuario;
+        this.intervalo = intervalo;
+
+        Gauge.builder("estoque.auditoria.pendentes", anel, AnelLimitado::tamanho)
+                .description("Registros de auditoria no anel esperando gravação")
+                .register(metricas);
+        this.gravados = Counter.builder("estoque.auditoria.gravados")
+                .description("Linhas gravadas no AUDITPRODUTO")
+                .register(metricas);
+        this.descartados = Counter.builder("estoque.auditoria.descartados")
+                .description("Registros de auditoria descartados com o anel cheio")
+                .tag("politica", politica.name())
+                .register(metricas);
+        this.falhas = Counter.builder("estoque.auditoria.falhas")
+                .description("Rodadas de gravação que falharam e ficaram para a próxima")
+                .register(metricas);
+
+        long ms = intervalo.toMillis();
+        relogio.scheduleWithFixedDelay(this::gravar, ms, ms, TimeUnit.MILLISECONDS);
+    }
+
+    // ===== CAPTURA =====
+
+    @TransactionalEventListener
+    public void aoAlterarProduto(ProdutoEvento evento) {
+        List<Alteracao> alteracoes = diferencas(evento.anterior(), evento.atual());
+        if (!alteracoes.isEmpty()) {
+            enfileirar(new Registro(evento.id(), evento.tipo().name(), usuario(), LocalDateTime.now(), alteracoes));
+        }
+    }
+
+    // Na criação anterior é null, na exclusão atual é null: entram os campos preenchidos
+    static List<Alteracao> diferencas(ProdutoDetalhesDTO anterior, ProdutoDetalhesDTO atual) {
+        List<Alteracao> lista = new ArrayList<>(CAMPOS.size());
+        for (Campo c : CAMPOS) {
+            String antes = anterior == null ? null : texto(c.valor().apply(anterior));
+            String depois = atual == null ? null : texto(c.valor().apply(atual));
+            if (!Objects.equals(antes, depois)) {
+                lista.add(new Alteracao(c.nome(), antes, depois));
+            }
+        }
+        return lista;
+    }
+
+    private static String texto(Object valor) {
+        return valor == null ? null : truncar(valor.toString(), VALOR_MAXIMO);
+    }
+
+    private static String truncar(String s, int maximo) {
+        return s.length() <= maximo ? s : s.substring(0, maximo);
+    }
+
+    // Declarado pelo cliente, sem autenticação; sem requisição (criação agrupada,
+    // tarefas internas) fica nulo
+    private String usuario() {
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes a) {
+            String u = a.getRequest().getHeader(cabecalhoUsuario);
+            if (u != null && !u.isBlank()) {
+                return truncar(u.strip(), USUARIO_MAXIMO);
+            }
+        }
+        return null;
+    }
+
+    private void enfileirar(Registro r) {
+        if (anel.oferecer(r)) {
+            return;
+        }
+        switch (politica) {
+            case DESCARTAR_NOVOS -> descartar();
+            case DESCARTAR_ANTIGOS -> {
+                while (!anel.oferecer(r)) {
+                    if (anel.retirar() != null) {
+                        descartar();
+                    }
+                }
+            }
+            case ESPERAR -> {
+                adiantarRodada();
+                long limite = System.nanoTime() + esperaNs;
+                while (!anel.oferecer(r)) {
+                    if (System.nanoTime() - limite >= 0) {
+                        descartar();
+                        return;
+                    }
+                    LockSupport.parkNanos(PASSO_ESPERA_NS);
+                }
+            }
+        }
+    }
+
+    private void descartar() {
+        descartados.increment();
+        descartadosSemAviso.incrementAndGet();
+    }
+
+    // Uma rodada extra por vez, fora do intervalo, para abrir vaga no anel
+    private void adiantarRodada() {
+        if (rodadaAdiantada.compareAndSet(false, true)) {
+            try {
+                relogio.execute(() -> {
+                    rodadaAdiantada.set(false);
+                    gravar();
+                });
+            } catch (RejectedExecutionException e) {
+                rodadaAdiantada.set(false); // encerrando: a gravação final do encerrar() leva o que couber
+            }
+        }
+    }
+
+    // ===== GRAVAÇÃO =====
+
+    /** Esvazia o anel em transações de até {@link #REGISTROS_POR_TRANSACAO} registros. */
+    public synchronized void gravar() {
+        long perdidos = descartadosSemAviso.getAndSet(0);
+        if (perdidos > 0) {
+            log.warn("Auditoria: {} registros descartados com o anel cheio (política {})", perdidos, politica);
+        }
+        while (true) {
+            Registro r;
+            while (aGravar.size() < REGISTROS_POR_TRANSACAO && (r = anel.retirar()) != null) {
+                aGravar.add(r);
+            }
+            if (aGravar.isEmpty()) {
+                return;
+            }
+            List<Object[]> linhas = new ArrayList<>();
+            for (Registro g : aGravar) {
+                Timestamp quando = Timestamp.valueOf(g.quando());
+                for (Alteracao a : g.alteracoes()) {
+                    linhas.add(new Object[]{g.produto(), g.operacao(), a.campo(), a.anterior(), a.novo(), g.usuario(), quando});
+                }
+            }
+            try {
+                transacao.executeWithoutResult(status -> jdbc.batchUpdate(INSERIR, linhas, LOTE, (ps, l) -> {
+                    for (int i = 0; i < l.length; i++) {
+                        ps.setObject(i + 1, l[i]);
+                    }
+                }));
+            } catch (RuntimeException e) {
+                falhas.increment();
+                log.warn("Falha ao gravar {} registros de auditoria; nova tentativa em {}: {}",
+                        aGravar.size(), intervalo, e.getMessage());
+                return;
+            }
+            gravados.increment(linhas.size());
+            aGravar.clear();
+        }
+    }
+
+    @PreDestroy
+    void encerrar() throws InterruptedException {
+        relogio.shutdown();
+        relogio.awaitTermination(10, TimeUnit.SECONDS);
+        gravar();
+        pool.close();
+        int restantes = aGravar.size() + anel.tamanho();
+        if (restantes > 0) {
+            log.error("{} registros de auditoria não foram gravados no desligamento", restantes);
+        }
+    }
+
+    // ===== CONSULTA =====
+
+    /** Trilha do produto, mais recentes primeiro; até um intervalo de atraso em relação às gravações. */
+    public List<AuditoriaProdutoModel> historico(long produto, Long antes, int limite) {
+        return repo.historico(produto, antes == null ? Long.MAX_VALUE : antes,
+                Limit.of(Math.max(1, Math.min(limite, 1000))));
+    }
+}
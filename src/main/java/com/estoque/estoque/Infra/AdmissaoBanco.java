@@ -0,0 +1,142 @@
+package com.estoque.estoque.Infra;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Controle de admissão na frente do pool de conexões.
+ *
+ * No máximo {@code concorrencia} conexões em uso (igual ao tamanho do pool), fila
+ * justa (FIFO) de até {@code fila} esperando, e espera limitada pelo menor entre
+ * {@code espera-maxima} e o que resta do prazo da requisição. Fila cheia ou prazo
+ * vencido: recusa na hora com 503, em vez de empilhar threads no Hikari.
+ *
+ * Métricas: estoque.db.admissao.fila / .em-uso (gauges), .espera (timer) e
+ * .recusadas (contador por motivo), todas com a tag pool (primario / replica).
+ */
+@Component
+public class AdmissaoBanco {
+
+    // Prazo (System.nanoTime) da requisição corrente; definido pelo PrazoRequisicaoFilter
+    private static final ThreadLocal<Long> PRAZO = new ThreadLocal<>();
+
+    private final Semaphore permissoes;
+    private final int concorrencia;
+    private final int maxFila;
+    private final long esperaMaximaNs;
+
+    private final AtomicInteger fila = new AtomicInteger();
+
+    private final Timer espera;
+    private final Counter recusadasFila;
+    private final Counter recusadasPrazo;
+
+    @Autowired
+    public AdmissaoBanco(@Value("${estoque.admissao.concorrencia:${spring.datasource.hikari.maximum-pool-size:10}}") int concorrencia,
+                         @Value("${estoque.admissao.fila:64}") int maxFila,
+                         @Value("${estoque.admissao.espera-maxima:PT2S}") Duration esperaMaxima,
+                         MeterRegistry metricas) {
+        this("primario", concorrencia, maxFila, esperaMaxima, metricas);
+    }
+
+    /** Fila de outro pool (ex.: a réplica de leitura do {@link RoteamentoBanco}). */
+    public AdmissaoBanco(String pool, int concorrencia, int maxFila, Duration esperaMaxima, MeterRegistry metricas) {
+        this.concorrencia = concorrencia;
+        this.permissoes = new Semaphore(concorrencia, true);
+        this.maxFila = maxFila;
+        this.esperaMaximaNs = esperaMaxima.toNanos();
+
+        Gauge.builder("estoque.db.admissao.fila", fila, AtomicInteger::get)
+                .description("Pedidos de conexão aguardando admissão")
+                .tag("pool", pool)
+                .register(metricas);
+        Gauge.builder("estoque.db.admissao.em-uso", this, a -> a.concorrencia - a.permissoes.availablePermits())
+                .description("Conexões admitidas em uso")
+                .tag("pool", pool)
+                .register(metricas);
+        this.espera = Timer.builder("estoque.db.admissao.espera")
+                .description("Tempo na fila até a admissão")
+                .publishPercentiles(0.5, 0.99, 0.999)
+                .tag("pool", pool)
+                .register(metricas);
+        this.recusadasFila = Counter.builder("estoque.db.admissao.recusadas")
+                .tag("motivo", "fila-cheia").tag("pool", pool).register(metricas);
+        this.recusadasPrazo = Counter.builder("estoque.db.admissao.recusadas")
+                .tag("motivo", "prazo").tag("pool", pool).register(metricas);
+    }
+
+    public static void definirPrazo(long prazoNanoTime) {
+        PRAZO.set(prazoNanoTime);
+    }
+
+    public static void limparPrazo() {
+        PRAZO.remove();
+    }
+
+    /** Quanto resta do prazo da requisição corrente; fora de requisição, {@code semPrazoNs}. */
+    public static long restanteNs(long semPrazoNs) {
+        Long prazo = PRAZO.get();
+        return prazo == null ? semPrazoNs : prazo - System.nanoTime();
+    }
+
+    /**
+     * Espera a vez de usar uma conexão. Quem recebe a permissão tem de chamar
+     * {@link #sair()} exatamente uma vez.
+     */
+    public void entrar() {
+        // tryAcquire() sem prazo fura a fila mesmo em semáforo justo; com prazo zero
+        // respeita quem já está esperando
+        try {
+            if (permissoes.tryAcquire(0, TimeUnit.NANOSECONDS)) {
+                espera.record(0, TimeUnit.NANOSECONDS);
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AdmissaoRecusadaException("Espera por conexão interrompida", 1);
+        }
+
+        long limite = esperaMaximaNs;
+        Long prazo = PRAZO.get();
+        if (prazo != null) {
+            limite = Math.min(limite, prazo - System.nanoTime());
+        }
+        if (limite <= 0) {
+            recusadasPrazo.increment();
+            throw new AdmissaoRecusadaException("Prazo da requisição esgotado antes de obter conexão", 1);
+        }
+
+        if (fila.incrementAndGet() > maxFila) {
+            fila.decrementAndGet();
+            recusadasFila.increment();
+            throw new AdmissaoRecusadaException("Banco de dados sobrecarregado, tente novamente", 1);
+        }
+        long inicio = System.nanoTime();
+        try {
+            if (!permissoes.tryAcquire(limite, TimeUnit.NANOSECONDS)) {
+                recusadasPrazo.increment();
+                throw new AdmissaoRecusadaException("Tempo de espera por conexão esgotado", 1);
+            }
+            espera.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AdmissaoRecusadaException("Espera por conexão interrompida", 1);
+        } finally {
+            fila.decrementAndGet();
+        }
+    }
+
+    public void sair() {
+        permissoes.release();
+    }
+}
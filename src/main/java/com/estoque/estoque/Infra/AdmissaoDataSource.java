@@ -0,0 +1,68 @@
+package com.estoque.estoque.Infra;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * DataSource que passa pelo {@link AdmissaoBanco} antes de pedir conexão ao pool
+ * e devolve a permissão quando a conexão é fechada (devolvida ao pool).
+ */
+public class AdmissaoDataSource extends DelegatingDataSource {
+
+    private final AdmissaoBanco admissao;
+
+    public AdmissaoDataSource(DataSource alvo, AdmissaoBanco admissao) {
+        super(alvo);
+        this.admissao = admissao;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        admissao.entrar();
+        try {
+            return envolver(obtainTargetDataSource().getConnection());
+        } catch (SQLException | RuntimeException e) {
+            admissao.sair();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        admissao.entrar();
+        try {
+            return envolver(obtainTargetDataSource().getConnection(username, password));
+        } catch (SQLException | RuntimeException e) {
+            admissao.sair();
+            throw e;
+        }
+    }
+
+    private Connection envolver(Connection con) {
+        AtomicBoolean devolvida = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, metodo, args) -> {
+                    if (metodo.getName().equals("close") && devolvida.compareAndSet(false, true)) {
+                        try {
+                            con.close();
+                        } finally {
+                            admissao.sair();
+                        }
+                        return null;
+                    }
+                    try {
+                        return metodo.invoke(con, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+}
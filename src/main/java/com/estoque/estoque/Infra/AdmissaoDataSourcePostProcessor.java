@@ -0,0 +1,32 @@
+package com.estoque.estoque.Infra;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * Coloca o {@link AdmissaoDataSource} na frente do DataSource da aplicação
+ * (estoque.admissao.enabled=true, padrão). O {@link RoteamentoDataSource} já
+ * traz uma fila por pool e fica de fora.
+ */
+@Component
+@ConditionalOnProperty(name = "estoque.admissao.enabled", havingValue = "true", matchIfMissing = true)
+public class AdmissaoDataSourcePostProcessor implements BeanPostProcessor {
+
+    private final ObjectProvider<AdmissaoBanco> admissao;
+
+    public AdmissaoDataSourcePostProcessor(ObjectProvider<AdmissaoBanco> admissao) {
+        this.admissao = admissao;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource ds && !(bean instanceof AdmissaoDataSource) && !(bean instanceof RoteamentoDataSource)) {
+            return new AdmissaoDataSource(ds, admissao.getObject());
+        }
+        return bean;
+    }
+}
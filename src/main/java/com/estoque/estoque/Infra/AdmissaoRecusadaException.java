@@ -0,0 +1,28 @@
+package com.estoque.estoque.Infra;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.server.ResponseStatusException;
+
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
+
+/**
+ * Pedido de conexão recusado pelo {@link AdmissaoBanco}. Mesmo embrulhada pela
+ * camada de transação, o ResponseStatusExceptionResolver acha a causa e responde
+ * 503 com Retry-After.
+ */
+public class AdmissaoRecusadaException extends ResponseStatusException {
+
+    private final long retryAfterSegundos;
+
+    public AdmissaoRecusadaException(String motivo, long retryAfterSegundos) {
+        super(SERVICE_UNAVAILABLE, motivo);
+        this.retryAfterSegundos = retryAfterSegundos;
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        HttpHeaders h = new HttpHeaders();
+        h.set(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSegundos));
+        return h;
+    }
+}
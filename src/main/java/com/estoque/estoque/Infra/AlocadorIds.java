@@ -0,0 +1,179 @@
+package com.estoque.estoque.Infra;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionSystemException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ids reservados em blocos (tabela ID_BLOCO, uma linha por contador): cada
+ * instância pega {@code estoque.ids.bloco} ids de uma vez e entrega da memória.
+ * Com o id conhecido antes do INSERT, o Hibernate agrupa os inserts em lote
+ * (IDENTITY obrigava um INSERT imediato por save).
+ *
+ * A reserva trava a linha do contador (select ... for update), então duas
+ * instâncias nunca recebem a mesma faixa; ids reservados e não usados (restart,
+ * rollback) ficam como buracos. O bloco nunca começa abaixo de max(coluna) + 1,
+ * então linhas que já existiam na hora da reserva não colidem.
+ *
+ * Depois da reserva, toda gravação na tabela tem de passar pela ID_BLOCO: um
+ * INSERT que deixasse o AUTO_INCREMENT do MySQL escolher o id cairia dentro de
+ * um bloco já entregue. Por isso o db/ids-mysql.sql tira o AUTO_INCREMENT da
+ * coluna (INSERT sem id falha em vez de colidir) e traz o roteiro para
+ * gravações à mão; na primeira reserva de cada contador o alocador confere a
+ * coluna e registra erro se ela ainda gerar ids.
+ *
+ * A reserva usa um {@link PoolDedicado} (HikariIds): quem pede o id já segura
+ * a conexão principal. Chega ao Hibernate
+ * pelas propriedades ({@link #PROPRIEDADE}), como o CacheManager do
+ * {@link CacheSegundoNivel}. Reservas em estoque.ids.reservas (tag contador).
+ */
+@Component
+public class AlocadorIds implements HibernatePropertiesCustomizer {
+
+    private static final Logger log = LoggerFactory.getLogger(AlocadorIds.class);
+
+    public static final String PROPRIEDADE = "estoque.ids.alocador";
+
+    // Reservas que esbarram em outra instância (linha criada junto, espera de trava
+    // esgotada, deadlock) são refeitas até este limite
+    static final int TENTATIVAS = 5;
+
+    private final HikariDataSource pool;
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate transacao;
+    private final MeterRegistry metricas;
+    private final int bloco;
+
+    private final Map<String, Faixa> faixas = new ConcurrentHashMap<>();
+
+    public AlocadorIds(DataSourceProperties propriedades,
+                       MeterRegistry metricas,
+                       @Value("${estoque.ids.bloco:100}") int bloco) {
+        this.pool = PoolDedicado.umaConexao(propriedades, "HikariIds", metricas);
+        this.jdbc = new JdbcTemplate(pool);
+        this.transacao = new TransactionTemplate(new DataSourceTransactionManager(pool));
+        this.metricas = metricas;
+        this.bloco = Math.max(1, bloco);
+    }
+
+    @Override
+    public void customize(Map<String, Object> props) {
+        props.put(PROPRIEDADE, this);
+    }
+
+    /** Próximo id do contador {@code tabela}, nunca abaixo de max({@code coluna}) + 1. */
+    public long proximo(String tabela, String coluna) {
+        return faixas.computeIfAbsent(tabela, t -> new Faixa(t, coluna)).proximo();
+    }
+
+    // Faixa [proximo, limite) já reservada por esta instância
+    private final class Faixa {
+
+        private final String tabela;
+        private final String coluna;
+        private final Counter reservas;
+        private long proximo;
+        private long limite;
+
+        Faixa(String tabela, String coluna) {
+            this.tabela = tabela;
+            this.coluna = coluna;
+            this.reservas = Counter.builder("estoque.ids.reservas")
+                    .description("Blocos de ids reservados na ID_BLOCO")
+                    .tag("contador", tabela)
+                    .register(metricas);
+            conferirAutoIncremento();
+        }
+
+        // Coluna ainda AUTO_INCREMENT: INSERTs sem id de outro escritor (versão antiga
+        // no rollout, outro sistema, gravação à mão) podem pegar ids de blocos reservados
+        private void conferirAutoIncremento() {
+            try {
+                Boolean auto = jdbc.execute((ConnectionCallback<Boolean>) con -> {
+                    try (ResultSet rs = con.getMetaData().getColumns(con.getCatalog(), null, tabela, coluna)) {
+                        return rs.next() && "YES".equalsIgnoreCase(rs.getString("IS_AUTOINCREMENT"));
+                    }
+                });
+                if (Boolean.TRUE.equals(auto)) {
+                    log.error("{}.{} ainda é AUTO_INCREMENT: INSERT sem id por fora do alocador pode repetir ids"
+                            + " já reservados; aplicar db/ids-mysql.sql", tabela, coluna);
+                }
+            } catch (DataAccessException e) {
+                log.warn("Não foi possível conferir o AUTO_INCREMENT de {}.{}: {}", tabela, coluna, e.getMessage());
+            }
+        }
+
+        synchronized long proximo() {
+            if (proximo >= limite) {
+                proximo = reservar();
+                limite = proximo + bloco;
+                reservas.increment();
+                log.debug("Ids {} a {} reservados para {}", proximo, limite - 1, tabela);
+            }
+            return proximo++;
+        }
+
+        // Devolve o início do bloco; a linha do contador fica apontando para o fim
+        private long reservar() {
+            for (int tentativa = 1; ; tentativa++) {
+                try {
+                    return transacao.execute(s -> {
+                        Long atual = jdbc.query("select PROXIMO from ID_BLOCO where NOME = ? for update",
+                                rs -> rs.next() ? rs.getLong(1) : null, tabela);
+                        long maximo = jdbc.queryForObject(
+                                "select coalesce(max(" + coluna + "), 0) from " + tabela, Long.class);
+                        long inicio = Math.max(atual == null ? 1 : atual, maximo + 1);
+                        if (atual == null) {
+                            jdbc.update("insert into ID_BLOCO (NOME, PROXIMO) values (?, ?)", tabela, inicio + bloco);
+                        } else {
+                            jdbc.update("update ID_BLOCO set PROXIMO = ? where NOME = ?", inicio + bloco, tabela);
+                        }
+                        return inicio;
+                    });
+                } catch (DataAccessException | TransactionSystemException e) {
+                    if (!refazivel(e) || tentativa >= TENTATIVAS) {
+                        throw e;
+                    }
+                    log.debug("Reserva de ids para {} refeita ({}): {}", tabela, tentativa, e.getMessage());
+                }
+            }
+        }
+    }
+
+    // Outra instância criou a linha do contador ao mesmo tempo (agora o for update acha)
+    // ou segurou a trava: lock wait timeout e deadlock desfazem só esta reserva. Driver
+    // que sinaliza a espera com SQLTimeoutException (H2) vira QueryTimeoutException, e o
+    // Hikari descarta a conexão: o rollback falha e a causa vem como applicationException
+    private static boolean refazivel(RuntimeException e) {
+        Throwable causa = e instanceof TransactionSystemException t && t.getApplicationException() != null
+                ? t.getApplicationException() : e;
+        return causa instanceof DuplicateKeyException
+                || causa instanceof PessimisticLockingFailureException
+                || causa instanceof QueryTimeoutException;
+    }
+
+    @PreDestroy
+    void fechar() {
+        pool.close();
+    }
+}
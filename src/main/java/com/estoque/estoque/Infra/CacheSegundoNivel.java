@@ -0,0 +1,79 @@
+package com.estoque.estoque.Infra;
+
+import com.estoque.estoque.Produto.ProdutoModel;
+import com.estoque.estoque.UnidadeDeMedida.UnidadeMedidaModel;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Regiões do cache de segundo nível do Hibernate (JCache sobre Caffeine),
+ * com tamanho máximo e TTL vindos de {@code estoque.cache.*}:
+ *
+ * - ProdutoModel e UnidadeMedidaModel: findById sem ir ao banco; gravações
+ *   pelo Hibernate atualizam a entrada (READ_WRITE);
+ * - {@link #REGIAO_PRODUTO_DETALHES}: resultado do listarComUnidade, descartado
+ *   sempre que PRODUTO ou UNIMEDIDA mudam pelo Hibernate (região de timestamps).
+ *
+ * Escritas de fora (outra instância, SQL direto) só aparecem depois do TTL.
+ * Acertos, faltas, inserções e despejos saem em cache.* (tag cache = região).
+ */
+@Configuration
+public class CacheSegundoNivel {
+
+    public static final String REGIAO_PRODUTO_DETALHES = "produto-detalhes";
+
+    // nomes padrão do Hibernate
+    private static final String REGIAO_CONSULTAS = "default-query-results-region";
+    private static final String REGIAO_TIMESTAMPS = "default-update-timestamps-region";
+
+    @Bean(destroyMethod = "close")
+    public CacheManager regioesSegundoNivel(MeterRegistry metricas,
+                                            @Value("${estoque.cache.produtos.maximo:20000}") long maxProdutos,
+                                            @Value("${estoque.cache.produtos.ttl:PT10M}") Duration ttlProdutos,
+                                            @Value("${estoque.cache.unidades.maximo:1000}") long maxUnidades,
+                                            @Value("${estoque.cache.unidades.ttl:PT1H}") Duration ttlUnidades,
+                                            @Value("${estoque.cache.consultas.maximo:32}") long maxConsultas,
+                                            @Value("${estoque.cache.consultas.ttl:PT5M}") Duration ttlConsultas) {
+        // URI própria: cada contexto (testes, restart do devtools) tem regiões e MBeans separados
+        CacheManager m = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("estoque-l2-" + UUID.randomUUID()), getClass().getClassLoader());
+
+        criar(m, metricas, ProdutoModel.class.getName(), maxProdutos, ttlProdutos);
+        criar(m, metricas, UnidadeMedidaModel.class.getName(), maxUnidades, ttlUnidades);
+        criar(m, metricas, REGIAO_PRODUTO_DETALHES, maxConsultas, ttlConsultas);
+        criar(m, metricas, REGIAO_CONSULTAS, maxConsultas, ttlConsultas);
+        // sem limite nem TTL: um timestamp perdido faria consulta velha parecer válida
+        criar(m, metricas, REGIAO_TIMESTAMPS, null, null);
+        return m;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer cacheSegundoNivelHibernate(CacheManager regioesSegundoNivel) {
+        return props -> props.put("hibernate.javax.cache.cache_manager", regioesSegundoNivel);
+    }
+
+    private static void criar(CacheManager m, MeterRegistry metricas, String nome, Long maximo, Duration ttl) {
+        var c = new CaffeineConfiguration<Object, Object>();
+        if (maximo != null) {
+            c.setMaximumSize(OptionalLong.of(maximo));
+        }
+        if (ttl != null) {
+            c.setExpireAfterWrite(OptionalLong.of(ttl.toNanos()));
+        }
+        c.setStatisticsEnabled(true);
+        JCacheMetrics.monitor(metricas, m.createCache(nome, c));
+    }
+}
@@ -0,0 +1,70 @@
+package com.estoque.estoque.Infra;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Carga na subida do que fica em memória: os índices de produto (busca, EAN,
+ * texto) e os saldos do {@code EstoqueSaldos}.
+ *
+ * Se o banco falha nesse momento, quem carrega fica "não pronto" (as consultas
+ * dele respondem 503) só até a próxima tentativa, feita em segundo plano com a
+ * espera dobrando a cada falha até o máximo.
+ */
+@Component
+public class CargaNaSubida {
+
+    private static final Logger log = LoggerFactory.getLogger(CargaNaSubida.class);
+
+    private final long primeiraEsperaMs;
+    private final long esperaMaximaMs;
+
+    private final ScheduledExecutorService relogio = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("carga-subida").daemon().factory());
+
+    public CargaNaSubida(@Value("${estoque.indices.espera-retentativa:PT1S}") Duration primeiraEspera,
+                         @Value("${estoque.indices.espera-retentativa-maxima:PT1M}") Duration esperaMaxima) {
+        this.primeiraEsperaMs = Math.max(1, primeiraEspera.toMillis());
+        this.esperaMaximaMs = Math.max(primeiraEsperaMs, esperaMaxima.toMillis());
+    }
+
+    /**
+     * Roda a carga agora; se falhar, repete em segundo plano até conseguir.
+     * {@code oque} entra no log ("o índice de busca", "os saldos de estoque").
+     */
+    public void executar(String oque, Runnable carga) {
+        tentar(oque, carga, 1, primeiraEsperaMs);
+    }
+
+    private void tentar(String oque, Runnable carga, int tentativa, long esperaMs) {
+        try {
+            carga.run();
+            if (tentativa > 1) {
+                log.info("Carregados {} na tentativa {}", oque, tentativa);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Não foi possível carregar {} (tentativa {}): {}; nova tentativa em {} ms",
+                    oque, tentativa, e.getMessage(), esperaMs);
+            try {
+                relogio.schedule(() -> tentar(oque, carga, tentativa + 1, Math.min(esperaMs * 2, esperaMaximaMs)),
+                        esperaMs, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException desligando) {
+                // contexto sendo fechado: não há mais quem consulte
+            }
+        }
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        relogio.shutdownNow();
+    }
+}
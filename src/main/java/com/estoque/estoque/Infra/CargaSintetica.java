@@ -0,0 +1,149 @@
+package com.estoque.estoque.Infra;
+
+import com.estoque.estoque.Produto.TextoNormalizador;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static com.estoque.estoque.Produto.ProdutoService.EAN_SERVICO_FIXO;
+
+/**
+ * Catálogo sintético para o perfil "carga" (H2 em memória, modo MySQL).
+ *
+ * Grava {@code estoque.carga.unidades} unidades (a 1 é a de serviço) e
+ * {@code estoque.carga.produtos} itens, uma fração deles serviços com o EAN fixo.
+ * Roda antes do ApplicationReadyEvent, então registro de unicidade, índice de
+ * busca e catálogo de unidades já sobem com esses dados.
+ */
+@Component
+@Profile("carga")
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class CargaSintetica implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(CargaSintetica.class);
+
+    private static final int LOTE = 1000;
+
+    private static final String[] TIPOS = {
+            "Parafuso", "Porca", "Arruela", "Cabo", "Luva", "Seringa", "Gaze", "Álcool",
+            "Máscara", "Fita", "Sensor", "Filtro", "Válvula", "Tubo", "Conector", "Bateria"
+    };
+    private static final String[] VARIANTES = {
+            "Inox", "Galvanizado", "Estéril", "Descartável", "Reforçado", "Flexível",
+            "Industrial", "Hospitalar", "Premium", "Compacto"
+    };
+
+    private final JdbcTemplate jdbc;
+    private final int produtos;
+    private final int unidades;
+    private final double fracaoServicos;
+    private final long semente;
+
+    public CargaSintetica(JdbcTemplate jdbc,
+                          @Value("${estoque.carga.produtos:10000}") int produtos,
+                          @Value("${estoque.carga.unidades:20}") int unidades,
+                          @Value("${estoque.carga.fracao-servicos:0.05}") double fracaoServicos,
+                          @Value("${estoque.carga.semente:42}") long semente) {
+        this.jdbc = jdbc;
+        this.produtos = produtos;
+        this.unidades = Math.max(1, unidades);
+        this.fracaoServicos = fracaoServicos;
+        this.semente = semente;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Long existentes = jdbc.queryForObject("select count(*) from PRODUTO", Long.class);
+        if (existentes != null && existentes > 0) {
+            log.info("Carga sintética ignorada: PRODUTO já tem {} linhas", existentes);
+            return;
+        }
+        long inicio = System.nanoTime();
+        gravarUnidades();
+        gravarProdutos();
+        log.info("Carga sintética: {} unidades e {} itens em {} ms",
+                unidades, produtos, (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    private void gravarUnidades() {
+        List<Object[]> linhas = new ArrayList<>(unidades);
+        linhas.add(new Object[]{1L, "Serviço", "SV"});
+        for (long id = 2; id <= unidades; id++) {
+            linhas.add(new Object[]{id, "Unidade " + id, "U" + id});
+        }
+        jdbc.batchUpdate("insert into UNIMEDIDA (IDUNMEDI, DESCRICAO, UNIABREV) values (?, ?, ?)", linhas);
+    }
+
+    private void gravarProdutos() {
+        var rnd = new Random(semente);
+        List<Object[]> lote = new ArrayList<>(LOTE);
+        for (int i = 1; i <= produtos; i++) {
+            lote.add(rnd.nextDouble() < fracaoServicos ? servico(i) : produto(i, rnd));
+            if (lote.size() == LOTE) {
+                inserir(lote);
+                lote.clear();
+            }
+        }
+        if (!lote.isEmpty()) {
+            inserir(lote);
+        }
+    }
+
+    private void inserir(List<Object[]> lote) {
+        jdbc.batchUpdate("""
+                insert into PRODUTO (IDPRODUTO, NOME, NOMENORM, DESCRICAO, TEMPIDEAL, CODBARRAS, STQMAX, STQMIN, PNTPEDIDO, ID_ALMOX, ID_UNMEDI)
+                values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)""", lote);
+    }
+
+    // Nome único pelo número sequencial; máximo 50 caracteres
+    private Object[] produto(int i, Random rnd) {
+        String tipo = TIPOS[rnd.nextInt(TIPOS.length)];
+        String variante = VARIANTES[rnd.nextInt(VARIANTES.length)];
+        int min = rnd.nextInt(50);
+        int max = min + 1 + rnd.nextInt(500);
+        int ponto = min + 1 + rnd.nextInt(max - min);
+        Double temperatura = rnd.nextInt(4) == 0 ? 2 + rnd.nextInt(7) * 1.0 : null;
+        long unidade = unidades > 1 ? 2 + rnd.nextInt(unidades - 1) : 1;
+        String nome = "%s %s %06d".formatted(tipo, variante, i);
+        return new Object[]{
+                (long) i,
+                nome, TextoNormalizador.normalizar(nome),
+                "%s %s para uso geral (item sintético %d)".formatted(tipo, variante.toLowerCase(), i),
+                temperatura,
+                ean13(789_000_000_000L + i),
+                max, min, ponto,
+                rnd.nextInt(3) == 0 ? null : 1L + rnd.nextInt(5),
+                unidade
+        };
+    }
+
+    private static Object[] servico(int i) {
+        String nome = "Serviço %06d".formatted(i);
+        return new Object[]{
+                (long) i, nome, TextoNormalizador.normalizar(nome), "Serviço sintético " + i, null, EAN_SERVICO_FIXO,
+                1, 0, 1, null, 1L
+        };
+    }
+
+    // 12 dígitos + dígito verificador do EAN-13
+    private static String ean13(long base) {
+        String s = String.format("%012d", base);
+        int soma = 0;
+        for (int k = 0; k < 12; k++) {
+            int d = s.charAt(k) - '0';
+            soma += (k % 2 == 0) ? d : d * 3;
+        }
+        return s + (10 - soma % 10) % 10;
+    }
+}
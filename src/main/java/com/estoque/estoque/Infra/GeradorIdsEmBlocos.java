@@ -0,0 +1,45 @@
+package com.estoque.estoque.Infra;
+
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.AnnotationBasedGenerator;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.generator.EventTypeSets;
+import org.hibernate.generator.GeneratorCreationContext;
+
+import java.lang.reflect.Member;
+import java.util.EnumSet;
+
+/**
+ * Gerador por trás do {@link IdEmBlocos}. O Hibernate instancia a classe; o
+ * {@link AlocadorIds} vem das propriedades da SessionFactory.
+ */
+public class GeradorIdsEmBlocos implements AnnotationBasedGenerator<IdEmBlocos>, BeforeExecutionGenerator {
+
+    private AlocadorIds alocador;
+    private String tabela;
+    private String coluna;
+
+    @Override
+    public void initialize(IdEmBlocos anotacao, Member membro, GeneratorCreationContext contexto) {
+        Object a = contexto.getServiceRegistry().requireService(ConfigurationService.class)
+                .getSettings().get(AlocadorIds.PROPRIEDADE);
+        if (!(a instanceof AlocadorIds alocador)) {
+            throw new IllegalStateException("AlocadorIds ausente das propriedades do Hibernate (" + AlocadorIds.PROPRIEDADE + ")");
+        }
+        this.alocador = alocador;
+        this.tabela = anotacao.tabela();
+        this.coluna = anotacao.coluna();
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor sessao, Object entidade, Object valorAtual, EventType evento) {
+        return alocador.proximo(tabela, coluna);
+    }
+
+    @Override
+    public EnumSet<EventType> getEventTypes() {
+        return EventTypeSets.INSERT_ONLY;
+    }
+}
@@ -0,0 +1,26 @@
+package com.estoque.estoque.Infra;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Linha de contador do {@link AlocadorIds}: próximo id ainda não reservado.
+ * Lida e gravada só por JDBC; a entidade existe para o ddl-auto do perfil
+ * "carga" criar a tabela (no MySQL: src/main/resources/db/ids-mysql.sql).
+ */
+@Entity
+@Table(name = IdBlocoModel.NOME_TABELA)
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter @Setter
+public class IdBlocoModel {
+
+    public static final String NOME_TABELA = "ID_BLOCO";
+
+    @Id
+    @Column(name = "NOME", nullable = false, length = 64)
+    private String nome;
+
+    @Column(name = "PROXIMO", nullable = false)
+    private Long proximo;
+}
@@ -0,0 +1,22 @@
+package com.estoque.estoque.Infra;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Id gerado pelo {@link AlocadorIds}: contador com o nome da tabela, começando
+ * depois do maior valor já gravado na coluna.
+ */
+@IdGeneratorType(GeradorIdsEmBlocos.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface IdEmBlocos {
+
+    String tabela();
+
+    String coluna();
+}
@@ -0,0 +1,144 @@
+package com.estoque.estoque.Infra;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Leitura da própria escrita com réplica ({@link RoteamentoBanco}): quem
+ * acabou de gravar lê do primário por {@code estoque.replica.janela-leitura-propria},
+ * sem depender do atraso da réplica.
+ *
+ * O commit de uma transação de escrita devolve o cookie estoque-gravacao (e o
+ * header X-Estoque-Gravacao, para clientes sem cookie) com o instante da
+ * gravação; requisições que o trazem dentro da janela leem do primário. O
+ * resto da própria requisição também passa a ler do primário.
+ */
+@Component
+@ConditionalOnProperty(name = "estoque.replica.enabled", havingValue = "true")
+public class LeituraPropriaFilter extends OncePerRequestFilter {
+
+    static final String COOKIE = "estoque-gravacao";
+    static final String HEADER = "X-Estoque-Gravacao";
+
+    private static final ThreadLocal<Requisicao> ATUAL = new ThreadLocal<>();
+
+    private final Duration janela;
+
+    public LeituraPropriaFilter(@Value("${estoque.replica.janela-leitura-propria:PT5S}") Duration janela) {
+        this.janela = janela;
+    }
+
+    private static final class Requisicao {
+        final HttpServletResponse response;
+        final Duration janela;
+        volatile boolean primario;
+        boolean marcada;
+
+        Requisicao(HttpServletResponse response, Duration janela, boolean primario) {
+            this.response = response;
+            this.janela = janela;
+            this.primario = primario;
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Long gravou = instante(request);
+        boolean recente = gravou != null && System.currentTimeMillis() - gravou < janela.toMillis();
+        ATUAL.set(new Requisicao(response, janela, recente));
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ATUAL.remove();
+        }
+    }
+
+    private static Long instante(HttpServletRequest request) {
+        String valor = request.getHeader(HEADER);
+        if (valor == null && request.getCookies() != null) {
+            for (Cookie c : request.getCookies()) {
+                if (COOKIE.equals(c.getName())) {
+                    valor = c.getValue();
+                }
+            }
+        }
+        try {
+            return valor == null ? null : Long.parseLong(valor.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /** Se as leituras da requisição corrente devem ir ao primário. */
+    static boolean lerDoPrimario() {
+        Requisicao r = ATUAL.get();
+        return r != null && r.primario;
+    }
+
+    /**
+     * Chamado quando uma transação de escrita pega conexão do primário: no
+     * commit, marca a requisição e devolve o cookie (uma vez por requisição).
+     */
+    static void aoGravar() {
+        Requisicao r = ATUAL.get();
+        if (r == null || r.marcada || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        r.marcada = true;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                marcar(r);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    r.marcada = false;
+                }
+            }
+        });
+    }
+
+    /**
+     * Para gravações confirmadas fora da thread da requisição (ex.: criação
+     * agrupada): marca a requisição corrente como se ela tivesse gravado.
+     */
+    public static void gravou() {
+        Requisicao r = ATUAL.get();
+        if (r != null && !r.marcada) {
+            r.marcada = true;
+            marcar(r);
+        }
+    }
+
+    private static void marcar(Requisicao r) {
+        r.primario = true;
+        if (!r.response.isCommitted()) {
+            String agora = String.valueOf(System.currentTimeMillis());
+            r.response.addHeader(HttpHeaders.SET_COOKIE, ResponseCookie.from(COOKIE, agora)
+                    .path("/").maxAge(r.janela).httpOnly(true).sameSite("Lax").build().toString());
+            r.response.setHeader(HEADER, agora);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.estoque.estoque.Infra;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latência de cada método de service e de cada consulta de repository, no timer
+ * {@code estoque.metodo} (tags camada, classe, metodo, resultado) com p50/p99/p999.
+ * Os endpoints já saem em {@code http.server.requests}.
+ */
+@Aspect
+@Component
+public class MetricasAspect {
+
+    private final MeterRegistry metricas;
+
+    // nome do repository (interface) por classe de proxy
+    private final Map<Class<?>, String> nomesRepositorio = new ConcurrentHashMap<>();
+
+    public MetricasAspect(MeterRegistry metricas) {
+        this.metricas = metricas;
+    }
+
+    @Around("execution(public * com.estoque.estoque..*Service.*(..))")
+    public Object service(ProceedingJoinPoint pjp) throws Throwable {
+        return medir(pjp, "service", pjp.getSignature().getDeclaringType().getSimpleName());
+    }
+
+    @Around("execution(* org.springframework.data.repository.Repository+.*(..))")
+    public Object repository(ProceedingJoinPoint pjp) throws Throwable {
+        return medir(pjp, "repository", nomeRepositorio(pjp.getTarget()));
+    }
+
+    private Object medir(ProceedingJoinPoint pjp, String camada, String classe) throws Throwable {
+        long inicio = System.nanoTime();
+        String resultado = "sucesso";
+        try {
+            return pjp.proceed();
+        } catch (Throwable t) {
+            resultado = t.getClass().getSimpleName();
+            throw t;
+        } finally {
+            Timer.builder("estoque.metodo")
+                    .tag("camada", camada)
+                    .tag("classe", classe)
+                    .tag("metodo", pjp.getSignature().getName())
+                    .tag("resultado", resultado)
+                    .publishPercentiles(0.5, 0.99, 0.999)
+                    .register(metricas)
+                    .record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private String nomeRepositorio(Object alvo) {
+        return nomesRepositorio.computeIfAbsent(alvo.getClass(), c -> {
+            for (Class<?> i : AopProxyUtils.proxiedUserInterfaces(alvo)) {
+                if (i.getName().startsWith("com.estoque.")) {
+                    return i.getSimpleName();
+                }
+            }
+            return c.getSimpleName();
+        });
+    }
+}
@@ -0,0 +1,83 @@
+package com.estoque.estoque.Infra;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Idas ao banco por requisição ({@code estoque.db.idas}, por rota) e log das
+ * requisições acima de {@code estoque.metricas.requisicao-lenta} com a
+ * sequência de SQL executada.
+ */
+@Component
+public class MetricasRequisicaoFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger("estoque.requisicao-lenta");
+
+    private final MeterRegistry metricas;
+    private final long lentaNs;
+
+    public MetricasRequisicaoFilter(MeterRegistry metricas,
+                                    @Value("${estoque.metricas.requisicao-lenta:PT0.5S}") Duration lenta) {
+        this.metricas = metricas;
+        this.lentaNs = lenta.toNanos();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long inicio = System.nanoTime();
+        SqlRequisicao.Registro sql = SqlRequisicao.iniciar();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            SqlRequisicao.encerrar();
+            long duracao = System.nanoTime() - inicio;
+
+            Object padrao = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String rota = padrao != null ? padrao.toString() : "UNKNOWN";
+            DistributionSummary.builder("estoque.db.idas")
+                    .description("Comandos SQL por requisição")
+                    .tag("method", request.getMethod())
+                    .tag("uri", rota)
+                    .publishPercentiles(0.5, 0.99)
+                    .register(metricas)
+                    .record(sql.idas);
+
+            if (duracao > lentaNs) {
+                log.warn("{} {} -> {} em {} ms, {} comandos SQL:{}",
+                        request.getMethod(), request.getRequestURI(), response.getStatus(),
+                        duracao / 1_000_000, sql.idas, formatar(sql));
+            }
+        }
+    }
+
+    private static String formatar(SqlRequisicao.Registro sql) {
+        StringBuilder sb = new StringBuilder();
+        int i = 1;
+        for (String c : sql.comandos) {
+            sb.append("\n  ").append(i++).append(") ").append(c);
+        }
+        if (sql.idas > sql.comandos.size()) {
+            sb.append("\n  ... mais ").append(sql.idas - sql.comandos.size());
+        }
+        return sb.toString();
+    }
+}
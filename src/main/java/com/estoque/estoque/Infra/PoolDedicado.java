@@ -0,0 +1,32 @@
+package com.estoque.estoque.Infra;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+
+/**
+ * Pool Hikari de uma conexão, no mesmo banco do spring.datasource mas fora do
+ * pool principal e da fila do {@link AdmissaoBanco}.
+ *
+ * Para gravações de apoio feitas por quem pode estar segurando a conexão
+ * principal (a reserva de ids no meio do flush) ou que não devem disputá-la
+ * com as requisições (a gravação da auditoria): com maximum-pool-size=1 no
+ * principal, esperar por outra conexão dele travaria. Sem conexão ociosa
+ * depois de 30 s; métricas do Hikari com o nome do pool. Quem cria fecha.
+ */
+public final class PoolDedicado {
+
+    private PoolDedicado() {
+    }
+
+    public static HikariDataSource umaConexao(DataSourceProperties propriedades, String nome, MeterRegistry metricas) {
+        HikariDataSource pool = propriedades.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        pool.setPoolName(nome);
+        pool.setMaximumPoolSize(1);
+        pool.setMinimumIdle(0);
+        pool.setIdleTimeout(30_000);
+        pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(metricas));
+        return pool;
+    }
+}
@@ -0,0 +1,42 @@
+package com.estoque.estoque.Infra;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Dá a cada requisição da API um prazo; o {@link AdmissaoBanco} não deixa a
+ * espera por conexão passar dele.
+ */
+@Component
+public class PrazoRequisicaoFilter extends OncePerRequestFilter {
+
+    private final long prazoNs;
+
+    public PrazoRequisicaoFilter(@Value("${estoque.admissao.prazo-requisicao:PT5S}") Duration prazo) {
+        this.prazoNs = prazo.toNanos();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        AdmissaoBanco.definirPrazo(System.nanoTime() + prazoNs);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            AdmissaoBanco.limparPrazo();
+        }
+    }
+}
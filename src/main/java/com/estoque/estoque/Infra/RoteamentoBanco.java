@@ -0,0 +1,76 @@
+package com.estoque.estoque.Infra;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Primário + réplica de leitura (estoque.replica.enabled=true).
+ *
+ * O primário é o spring.datasource de sempre (spring.datasource.hikari.*); a
+ * réplica vem de estoque.replica.url/username/password, com pool próprio em
+ * estoque.replica.hikari.* e conexões readOnly. Cada pool tem sua fila do
+ * {@link AdmissaoBanco}, então leituras longas na réplica não seguram
+ * gravações no primário. Métricas do Hikari em hikaricp.* (tag pool).
+ *
+ * Transações precisam soltar a conexão no fim (spring.jpa.open-in-view=false):
+ * com a sessão aberta a requisição inteira, a conexão da primeira transação
+ * seria reaproveitada pelas seguintes, fosse qual fosse o destino delas.
+ */
+@Configuration
+@ConditionalOnProperty(name = "estoque.replica.enabled", havingValue = "true")
+public class RoteamentoBanco {
+
+    @Bean
+    public RoteamentoDataSource dataSource(DataSourceProperties propriedades,
+                                           Environment env,
+                                           MeterRegistry metricas,
+                                           ObjectProvider<AdmissaoBanco> admissao,
+                                           @Value("${estoque.admissao.enabled:true}") boolean admissaoAtiva,
+                                           @Value("${estoque.admissao.fila:64}") int fila,
+                                           @Value("${estoque.admissao.espera-maxima:PT2S}") Duration espera,
+                                           @Value("${estoque.replica.url}") String url,
+                                           @Value("${estoque.replica.username:${spring.datasource.username:}}") String usuario,
+                                           @Value("${estoque.replica.password:${spring.datasource.password:}}") String senha) {
+        Binder binder = Binder.get(env);
+
+        HikariDataSource primario = propriedades.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(primario));
+
+        HikariDataSource replica = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .driverClassName(propriedades.determineDriverClassName())
+                .url(url)
+                .username(usuario)
+                .password(senha)
+                .build();
+        replica.setPoolName("HikariReplica");
+        binder.bind("estoque.replica.hikari", Bindable.ofInstance(replica));
+        replica.setReadOnly(true);
+
+        primario.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(metricas));
+        replica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(metricas));
+
+        DataSource escrita = primario;
+        DataSource leitura = replica;
+        if (admissaoAtiva) {
+            escrita = new AdmissaoDataSource(primario, admissao.getObject());
+            leitura = new AdmissaoDataSource(replica,
+                    new AdmissaoBanco("replica", replica.getMaximumPoolSize(), fila, espera, metricas));
+        }
+        return new RoteamentoDataSource(escrita, leitura, primario, replica);
+    }
+}
@@ -0,0 +1,92 @@
+package com.estoque.estoque.Infra;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.function.Supplier;
+
+/**
+ * DataSource com réplica de leitura: transações readOnly usam a réplica, o
+ * resto (escritas e acesso fora de transação) usa o primário.
+ *
+ * A conexão física só é pedida no primeiro comando (LazyConnectionDataSourceProxy),
+ * quando o gerenciador de transação já marcou a conexão como readOnly. Durante
+ * a janela do {@link LeituraPropriaFilter}, ou dentro de {@link #noPrimario}, as
+ * leituras também vão ao primário.
+ */
+public class RoteamentoDataSource extends LazyConnectionDataSourceProxy implements AutoCloseable {
+
+    private static final ThreadLocal<Boolean> PRIMARIO = new ThreadLocal<>();
+
+    private final AutoCloseable[] pools;
+
+    public RoteamentoDataSource(DataSource primario, DataSource replica, AutoCloseable... pools) {
+        super(new Escrita(primario));
+        setReadOnlyDataSource(new Leitura(replica, primario));
+        this.pools = pools;
+    }
+
+    /**
+     * Roda {@code leitura} com as transações readOnly no primário. Para o que
+     * alimenta cache (JSON das listagens, cache de consultas do Hibernate): lido
+     * de uma réplica atrasada logo depois de uma gravação, o dado velho ficaria
+     * guardado como se fosse o novo até a gravação seguinte. A conexão é pedida
+     * no primeiro comando, então vale também dentro de uma transação já aberta
+     * que ainda não foi ao banco. Sem réplica configurada não muda nada.
+     */
+    public static <T> T noPrimario(Supplier<T> leitura) {
+        if (PRIMARIO.get() != null) {
+            return leitura.get();
+        }
+        PRIMARIO.set(Boolean.TRUE);
+        try {
+            return leitura.get();
+        } finally {
+            PRIMARIO.remove();
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (AutoCloseable p : pools) {
+            p.close();
+        }
+    }
+
+    private static final class Escrita extends DelegatingDataSource {
+
+        Escrita(DataSource primario) {
+            super(primario);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (TransactionSynchronizationManager.isActualTransactionActive()
+                    && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+                LeituraPropriaFilter.aoGravar();
+            }
+            return super.getConnection();
+        }
+    }
+
+    private static final class Leitura extends DelegatingDataSource {
+
+        private final DataSource primario;
+
+        Leitura(DataSource replica, DataSource primario) {
+            super(replica);
+            this.primario = primario;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return PRIMARIO.get() != null || LeituraPropriaFilter.lerDoPrimario()
+                    ? primario.getConnection()
+                    : super.getConnection();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.estoque.estoque.Infra;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Anota cada SQL preparado pelo Hibernate na requisição corrente (idas ao banco
+ * e, para o log de requisições lentas, a sequência de comandos).
+ *
+ * Registrado em spring.jpa.properties.hibernate.session_factory.statement_inspector;
+ * o Hibernate instancia a classe, por isso o estado fica num ThreadLocal estático.
+ */
+public class SqlRequisicao implements StatementInspector {
+
+    // Comandos guardados por requisição (as idas continuam sendo contadas além disso)
+    static final int MAX_COMANDOS = 100;
+
+    private static final ThreadLocal<Registro> ATUAL = new ThreadLocal<>();
+
+    static final class Registro {
+        int idas;
+        final List<String> comandos = new ArrayList<>();
+    }
+
+    static Registro iniciar() {
+        Registro r = new Registro();
+        ATUAL.set(r);
+        return r;
+    }
+
+    static void encerrar() {
+        ATUAL.remove();
+    }
+
+    @Override
+    public String inspect(String sql) {
+        Registro r = ATUAL.get();
+        if (r != null) {
+            r.idas++;
+            if (r.comandos.size() < MAX_COMANDOS) {
+                r.comandos.add(sql);
+            }
+        }
+        return sql;
+    }
+}
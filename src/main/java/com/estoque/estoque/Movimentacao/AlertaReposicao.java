@@ -0,0 +1,20 @@
+package com.estoque.estoque.Movimentacao;
+
+import java.time.LocalDateTime;
+
+/**
+ * Saldo que acabou de cair até o ponto de pedido ou até o estoque mínimo.
+ * Publicado como evento de aplicação pelo {@link MovimentacaoService}, fora
+ * de qualquer lock, e guardado na lista de alertas recentes.
+ */
+public record AlertaReposicao(
+        Tipo tipo,
+        Long id_produto,
+        Long id_almoxarifado,
+        int saldo,
+        int limite,
+        LocalDateTime data_hora
+) {
+
+    public enum Tipo { PONTO_ABASTECIMENTO, ESTOQUE_MINIMO }
+}
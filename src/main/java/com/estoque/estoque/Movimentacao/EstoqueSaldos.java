@@ -0,0 +1,309 @@
+package com.estoque.estoque.Movimentacao;
+
+import com.estoque.estoque.Infra.CargaNaSubida;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.springframework.http.HttpStatus.CONFLICT;
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
+
+/**
+ * Saldos de estoque em memória, divididos em {@code estoque.movimentos.faixas}
+ * faixas com lock próprio (a faixa sai do id do produto, então todos os
+ * almoxarifados de um produto ficam juntos). Uma rajada de leituras de coletor
+ * disputa só a faixa do produto lido, e não lock de linha no banco.
+ *
+ * Cada movimentação atualiza o contador e deixa a linha do diário na faixa; a
+ * cada {@code estoque.movimentos.intervalo} uma thread junta tudo e grava, numa
+ * transação, as linhas no MOVESTOQUE (batch JDBC) e a foto dos saldos mexidos
+ * no SALDOESTOQUE. Se a gravação falha, o lote fica para a próxima rodada; com
+ * mais de {@code estoque.movimentos.maximo-pendentes} linhas esperando, novas
+ * movimentações recebem 503.
+ *
+ * O que foi aceito e ainda não gravado se perde numa queda do processo (no
+ * máximo um intervalo); o desligamento normal grava antes de sair. Os saldos
+ * são carregados do SALDOESTOQUE na subida (de novo pela {@link CargaNaSubida},
+ * se o banco falhar), então a escrita precisa ser de uma instância só.
+ */
+@Component
+public class EstoqueSaldos {
+
+    private static final Logger log = LoggerFactory.getLogger(EstoqueSaldos.class);
+
+    private static final int LOTE = 500;
+
+    private static final String INSERIR_MOVIMENTO = """
+            insert into MOVESTOQUE (ID_PRODUTO, ID_ALMOX, TIPO, QUANTIDADE, SALDO, DATAHORA, DOCUMENTO)
+            values (?, ?, ?, ?, ?, ?, ?)""";
+    private static final String GRAVAR_SALDO = """
+            insert into SALDOESTOQUE (ID_PRODUTO, ID_ALMOX, QUANTIDADE, ATUALIZADO) values (?, ?, ?, ?)
+            on duplicate key update QUANTIDADE = values(QUANTIDADE), ATUALIZADO = values(ATUALIZADO)""";
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate transacao;
+    private final CargaNaSubida carga;
+    private final Faixa[] faixas;
+    private final Duration intervalo;
+    private final int maximoPendentes;
+
+    private final ScheduledExecutorService relogio = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("estoque-gravacao").daemon().factory());
+
+    // aceitas e ainda não gravadas (inclui as do lote que falhou)
+    private final AtomicInteger pendentes = new AtomicInteger();
+    private final Counter gravadas;
+    private final Counter falhas;
+
+    // lote em gravação; só a thread que segura o monitor de gravar() mexe
+    private final List<Linha> linhasAGravar = new ArrayList<>();
+    private final Map<Saldo, Integer> saldosAGravar = new LinkedHashMap<>();
+
+    private volatile boolean pronto;
+
+    public EstoqueSaldos(JdbcTemplate jdbc,
+                         TransactionTemplate transacao,
+                         MeterRegistry metricas,
+                         CargaNaSubida carga,
+                         @Value("${estoque.movimentos.faixas:64}") int faixas,
+                         @Value("${estoque.movimentos.intervalo:PT1S}") Duration intervalo,
+                         @Value("${estoque.movimentos.maximo-pendentes:100000}") int maximoPendentes) {
+        this.jdbc = jdbc;
+        this.transacao = transacao;
+        this.carga = carga;
+        this.faixas = new Faixa[Integer.highestOneBit(Math.max(1, faixas - 1)) << 1];
+        for (int i = 0; i < this.faixas.length; i++) {
+            this.faixas[i] = new Faixa();
+        }
+        this.intervalo = intervalo;
+        this.maximoPendentes = maximoPendentes;
+
+        Gauge.builder("estoque.movimentos.pendentes", pendentes, AtomicInteger::get)
+                .description("Movimentações aceitas ainda não gravadas no MOVESTOQUE")
+                .register(metricas);
+        this.gravadas = Counter.builder("estoque.movimentos.gravados")
+                .description("Linhas gravadas no MOVESTOQUE")
+                .register(metricas);
+        this.falhas = Counter.builder("estoque.movimentos.falhas")
+                .description("Rodadas de gravação que falharam e ficaram para a próxima")
+                .register(metricas);
+    }
+
+    /** Saldo antes e depois de uma movimentação. */
+    public record Resultado(int anterior, int atual) {
+    }
+
+    private record Linha(Saldo saldo, TipoMovimento tipo, int quantidade, int resultado,
+                         LocalDateTime quando, String documento) {
+    }
+
+    // Identidade por referência: cada par produto/almoxarifado tem um só Saldo
+    private static final class Saldo {
+        final long produto;
+        final long almoxarifado;
+        int quantidade;
+        boolean sujo;
+
+        Saldo(long produto, long almoxarifado) {
+            this.produto = produto;
+            this.almoxarifado = almoxarifado;
+        }
+    }
+
+    private static final class Faixa {
+        final ReentrantLock lock = new ReentrantLock();
+        // produto -> almoxarifado -> saldo
+        final Map<Long, Map<Long, Saldo>> saldos = new HashMap<>();
+        final List<Saldo> sujos = new ArrayList<>();
+        List<Linha> linhas = new ArrayList<>();
+
+        Saldo saldo(long produto, long almoxarifado) {
+            return saldos.computeIfAbsent(produto, p -> new HashMap<>(4))
+                    .computeIfAbsent(almoxarifado, a -> new Saldo(produto, almoxarifado));
+        }
+    }
+
+    private Faixa faixa(long produto) {
+        long h = produto * 0x9E3779B97F4A7C15L;
+        return faixas[(int) (h >>> 32) & (faixas.length - 1)];
+    }
+
+    // ===== CARGA / GRAVAÇÃO =====
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void aoSubir() {
+        carga.executar("os saldos de estoque", this::carregar);
+    }
+
+    // Só com a carga completa os saldos atendem e a gravação periódica começa; uma
+    // tentativa que falhou no meio é sobrescrita pela seguinte
+    void carregar() {
+        long inicio = System.nanoTime();
+        AtomicInteger total = new AtomicInteger();
+        jdbc.query("select ID_PRODUTO, ID_ALMOX, QUANTIDADE from SALDOESTOQUE", rs -> {
+            long produto = rs.getLong(1);
+            faixa(produto).saldo(produto, rs.getLong(2)).quantidade = rs.getInt(3);
+            total.incrementAndGet();
+        });
+        pronto = true;
+        long ms = intervalo.toMillis();
+        relogio.scheduleWithFixedDelay(this::gravar, ms, ms, TimeUnit.MILLISECONDS);
+        log.info("Saldos de estoque carregados: {} pares produto/almoxarifado em {} ms",
+                total.get(), (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    @PreDestroy
+    void encerrar() {
+        relogio.shutdown();
+        if (pronto) {
+            gravar();
+            if (pendentes.get() > 0) {
+                log.error("{} movimentações aceitas não foram gravadas no desligamento", pendentes.get());
+            }
+        }
+    }
+
+    /**
+     * Grava o que se acumulou nas faixas desde a última rodada. Cada faixa é
+     * esvaziada com o lock dela, levando junto a foto dos saldos mexidos: a foto
+     * sempre corresponde às linhas que vão no mesmo lote.
+     */
+    public synchronized void gravar() {
+        for (Faixa f : faixas) {
+            f.lock.lock();
+            try {
+                if (f.linhas.isEmpty()) {
+                    continue;
+                }
+                linhasAGravar.addAll(f.linhas);
+                f.linhas = new ArrayList<>();
+                for (Saldo s : f.sujos) {
+                    saldosAGravar.put(s, s.quantidade);
+                    s.sujo = false;
+                }
+                f.sujos.clear();
+            } finally {
+                f.lock.unlock();
+            }
+        }
+        if (linhasAGravar.isEmpty()) {
+            return;
+        }
+        try {
+            Timestamp agora = Timestamp.valueOf(LocalDateTime.now());
+            transacao.executeWithoutResult(status -> {
+                jdbc.batchUpdate(INSERIR_MOVIMENTO, linhasAGravar, LOTE, (ps, l) -> {
+                    ps.setLong(1, l.saldo().produto);
+                    ps.setLong(2, l.saldo().almoxarifado);
+                    ps.setString(3, l.tipo().name());
+                    ps.setInt(4, l.quantidade());
+                    ps.setInt(5, l.resultado());
+                    ps.setTimestamp(6, Timestamp.valueOf(l.quando()));
+                    ps.setString(7, l.documento());
+                });
+                jdbc.batchUpdate(GRAVAR_SALDO, saldosAGravar.entrySet(), LOTE, (ps, e) -> {
+                    ps.setLong(1, e.getKey().produto);
+                    ps.setLong(2, e.getKey().almoxarifado);
+                    ps.setInt(3, e.getValue());
+                    ps.setTimestamp(4, agora);
+                });
+            });
+            int n = linhasAGravar.size();
+            pendentes.addAndGet(-n);
+            gravadas.increment(n);
+            linhasAGravar.clear();
+            saldosAGravar.clear();
+        } catch (RuntimeException e) {
+            falhas.increment();
+            log.warn("Falha ao gravar {} movimentações; nova tentativa em {}: {}",
+                    linhasAGravar.size(), intervalo, e.getMessage());
+        }
+    }
+
+    // ===== MOVIMENTAÇÃO / CONSULTA =====
+
+    /**
+     * Aplica {@code quantidade} (com sinal) ao saldo do par. O saldo não fica
+     * negativo: a movimentação que levaria abaixo de zero é recusada com 409.
+     */
+    public Resultado aplicar(long produto, long almoxarifado, TipoMovimento tipo, int quantidade, String documento) {
+        exigirPronto();
+        if (pendentes.get() >= maximoPendentes) {
+            throw new ResponseStatusException(SERVICE_UNAVAILABLE, "Gravação de movimentações atrasada; tente de novo");
+        }
+        Faixa f = faixa(produto);
+        int anterior;
+        int atual;
+        f.lock.lock();
+        try {
+            Saldo s = f.saldo(produto, almoxarifado);
+            anterior = s.quantidade;
+            long novo = (long) anterior + quantidade;
+            if (novo < 0) {
+                throw new ResponseStatusException(CONFLICT, "Saldo insuficiente: há " + anterior + " em estoque");
+            }
+            if (novo > Integer.MAX_VALUE) {
+                throw new ResponseStatusException(CONFLICT, "Saldo excederia o máximo suportado");
+            }
+            atual = (int) novo;
+            s.quantidade = atual;
+            if (!s.sujo) {
+                s.sujo = true;
+                f.sujos.add(s);
+            }
+            f.linhas.add(new Linha(s, tipo, quantidade, atual, LocalDateTime.now(), documento));
+        } finally {
+            f.lock.unlock();
+        }
+        pendentes.incrementAndGet();
+        return new Resultado(anterior, atual);
+    }
+
+    /** Saldos do produto por almoxarifado, ordenados pelo id do almoxarifado. */
+    public List<SaldoDTO> saldos(long produto) {
+        exigirPronto();
+        Faixa f = faixa(produto);
+        List<SaldoDTO> lista = new ArrayList<>();
+        f.lock.lock();
+        try {
+            Map<Long, Saldo> porAlmox = f.saldos.get(produto);
+            if (porAlmox != null) {
+                porAlmox.values().forEach(s -> lista.add(new SaldoDTO(s.produto, s.almoxarifado, s.quantidade)));
+            }
+        } finally {
+            f.lock.unlock();
+        }
+        lista.sort(Comparator.comparing(SaldoDTO::id_almoxarifado));
+        return lista;
+    }
+
+    public boolean isPronto() {
+        return pronto;
+    }
+
+    private void exigirPronto() {
+        if (!pronto) {
+            throw new ResponseStatusException(SERVICE_UNAVAILABLE, "Saldos de estoque ainda não carregados");
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.estoque.estoque.Movimentacao;
+
+import static com.estoque.estoque.Produto.ProdutoService.EAN_SERVICO_FIXO;
+
+/**
+ * Estoque mínimo e ponto de pedido de um produto, como estão no PRODUTO.
+ * Serviços (EAN fixo) não têm estoque.
+ */
+public record LimitesProduto(Long id_produto, int estoque_minimo, int ponto_abastecimento, boolean servico) {
+
+    public LimitesProduto(Long id_produto, int estoque_minimo, int ponto_abastecimento, String codigo) {
+        this(id_produto, estoque_minimo, ponto_abastecimento, EAN_SERVICO_FIXO.equals(codigo));
+    }
+}
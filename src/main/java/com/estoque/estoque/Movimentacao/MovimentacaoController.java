@@ -0,0 +1,60 @@
+package com.estoque.estoque.Movimentacao;
+
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/estoque")
+@RequiredArgsConstructor
+public class MovimentacaoController {
+
+    private final MovimentacaoService service;
+
+    /**
+     * Registra uma entrada, saída ou ajuste e devolve o novo saldo. 202: o
+     * saldo já vale, a linha do diário é gravada na próxima rodada do lote.
+     * 409 se a saída deixaria o saldo negativo.
+     *
+     * POST /api/estoque/movimentos
+     */
+    @PostMapping("/movimentos")
+    public ResponseEntity<SaldoDTO> registrar(@Valid @RequestBody MovimentoRequest req) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(service.registrar(req));
+    }
+
+    /**
+     * Diário do produto, mais recentes primeiro.
+     *
+     * GET /api/estoque/movimentos?produto=ID&limite=100
+     */
+    @GetMapping("/movimentos")
+    public List<MovimentacaoModel> historico(@RequestParam Long produto,
+                                             @RequestParam(defaultValue = "100") int limite) {
+        return service.historico(produto, limite);
+    }
+
+    /**
+     * Saldo atual do produto em cada almoxarifado onde já teve movimento.
+     *
+     * GET /api/estoque/saldos/{idProduto}
+     */
+    @GetMapping("/saldos/{idProduto}")
+    public List<SaldoDTO> saldos(@PathVariable Long idProduto) {
+        return service.saldos(idProduto);
+    }
+
+    /**
+     * Alertas de reposição recentes (ponto de pedido / estoque mínimo atingido).
+     *
+     * GET /api/estoque/alertas
+     */
+    @GetMapping("/alertas")
+    public List<AlertaReposicao> alertas() {
+        return service.alertas();
+    }
+}
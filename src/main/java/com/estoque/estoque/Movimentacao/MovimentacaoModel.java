@@ -0,0 +1,50 @@
+package com.estoque.estoque.Movimentacao;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Linha do diário de movimentações (só inserção). Gravada em lotes pelo
+ * {@link EstoqueSaldos}; {@code quantidade} já vem com sinal (saída negativa)
+ * e {@code saldo} é o saldo do par produto/almoxarifado logo depois dela.
+ */
+@Entity
+@Table(name = MovimentacaoModel.NOME_TABELA,
+        indexes = @Index(name = "IX_MOVESTOQUE_PRODUTO", columnList = "ID_PRODUTO, ID_ALMOX, IDMOV"))
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter @Setter
+public class MovimentacaoModel {
+
+    public static final String NOME_TABELA = "MOVESTOQUE";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "IDMOV", nullable = false)
+    private Long id_movimento;
+
+    @Column(name = "ID_PRODUTO", nullable = false)
+    private Long id_produto;
+
+    // 0 = sem almoxarifado
+    @Column(name = "ID_ALMOX", nullable = false)
+    private Long id_almoxarifado;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "TIPO", nullable = false, length = 10)
+    private TipoMovimento tipo;
+
+    @Column(name = "QUANTIDADE", nullable = false)
+    private int quantidade;
+
+    @Column(name = "SALDO", nullable = false)
+    private int saldo;
+
+    @Column(name = "DATAHORA", nullable = false)
+    private LocalDateTime data_hora;
+
+    @Column(name = "DOCUMENTO", length = 60)
+    private String documento;
+}
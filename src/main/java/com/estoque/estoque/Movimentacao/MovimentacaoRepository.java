@@ -0,0 +1,34 @@
+package com.estoque.estoque.Movimentacao;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface MovimentacaoRepository extends JpaRepository<MovimentacaoModel, Long> {
+
+    // Últimas linhas do diário de um produto (todos os almoxarifados), mais recentes primeiro
+    @Query("select m from MovimentacaoModel m where m.id_produto = :produto order by m.id_movimento desc")
+    List<MovimentacaoModel> historico(@Param("produto") Long produto, Limit limite);
+
+    // ===== Limites de reposição (lidos do PRODUTO) =====
+
+    @Query("""
+        select new com.estoque.estoque.Movimentacao.LimitesProduto(
+            p.id_produto, p.estoque_minimo, p.ponto_abastecimento, p.codg_barras_prod)
+        from ProdutoModel p
+        """)
+    List<LimitesProduto> listarLimites();
+
+    @Query("""
+        select new com.estoque.estoque.Movimentacao.LimitesProduto(
+            p.id_produto, p.estoque_minimo, p.ponto_abastecimento, p.codg_barras_prod)
+        from ProdutoModel p where p.id_produto = :id
+        """)
+    Optional<LimitesProduto> limitesDe(@Param("id") Long id);
+}
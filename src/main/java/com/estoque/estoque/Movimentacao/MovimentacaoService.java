@@ -0,0 +1,171 @@
+package com.estoque.estoque.Movimentacao;
+
+import com.estoque.estoque.Produto.ProdutoEvento;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.springframework.http.HttpStatus.*;
+
+/**
+ * Entradas, saídas e ajustes de estoque por produto e almoxarifado.
+ *
+ * O saldo fica no {@link EstoqueSaldos}; aqui ficam as regras e os limites de
+ * reposição de cada produto (estoque mínimo e ponto de pedido), carregados na
+ * subida e atualizados pelos {@link ProdutoEvento}. Quando uma movimentação
+ * leva o saldo de acima para no máximo um desses limites, sai um
+ * {@link AlertaReposicao}: no log, na métrica estoque.reposicao.alertas, como
+ * evento de aplicação e em GET /api/estoque/alertas.
+ */
+@Service
+public class MovimentacaoService {
+
+    private static final Logger log = LoggerFactory.getLogger(MovimentacaoService.class);
+
+    private final EstoqueSaldos saldos;
+    private final MovimentacaoRepository repo;
+    private final ApplicationEventPublisher eventos;
+    private final MeterRegistry metricas;
+    private final int maximoAlertas;
+
+    private final Map<Long, LimitesProduto> limites = new ConcurrentHashMap<>();
+    private final Deque<AlertaReposicao> alertas = new ArrayDeque<>();
+
+    public MovimentacaoService(EstoqueSaldos saldos,
+                               MovimentacaoRepository repo,
+                               ApplicationEventPublisher eventos,
+                               MeterRegistry metricas,
+                               @Value("${estoque.movimentos.alertas-recentes:200}") int maximoAlertas) {
+        this.saldos = saldos;
+        this.repo = repo;
+        this.eventos = eventos;
+        this.metricas = metricas;
+        this.maximoAlertas = maximoAlertas;
+    }
+
+    // ===== LIMITES (synchronized: eventos esperam a carga terminar) =====
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void carregarLimites() {
+        try {
+            List<LimitesProduto> todos = repo.listarLimites();
+            limites.clear();
+            todos.forEach(l -> limites.put(l.id_produto(), l));
+            log.info("Limites de reposição carregados: {} itens", todos.size());
+        } catch (RuntimeException e) {
+            log.warn("Não foi possível carregar os limites de reposição: {}", e.getMessage());
+        }
+    }
+
+    @TransactionalEventListener
+    public synchronized void aoAlterarProduto(ProdutoEvento evento) {
+        var a = evento.atual();
+        if (a == null) {
+            limites.remove(evento.id());
+        } else {
+            limites.put(a.getId_produto(), new LimitesProduto(a.getId_produto(),
+                    a.getEstoque_minimo(), a.getPonto_abastecimento(), a.getCodg_barras_prod()));
+        }
+    }
+
+    // Produto criado por outra instância ainda não está no mapa: confere no banco
+    private LimitesProduto limitesDe(Long id) {
+        LimitesProduto l = limites.get(id);
+        if (l == null) {
+            l = repo.limitesDe(id)
+                    .orElseThrow(() -> new ResponseStatusException(NOT_FOUND, "Produto não encontrado"));
+            limites.putIfAbsent(id, l);
+        }
+        return l;
+    }
+
+    // ===== MOVIMENTAÇÃO =====
+
+    public SaldoDTO registrar(MovimentoRequest m) {
+        LimitesProduto l = limitesDe(m.id_produto());
+        if (l.servico()) {
+            throw new ResponseStatusException(BAD_REQUEST, "Serviço não tem estoque");
+        }
+        int q = m.quantidade();
+        int delta = switch (m.tipo()) {
+            case ENTRADA, SAIDA -> {
+                if (q <= 0) {
+                    throw new ResponseStatusException(BAD_REQUEST, "Quantidade deve ser positiva em " + m.tipo());
+                }
+                yield m.tipo() == TipoMovimento.SAIDA ? -q : q;
+            }
+            case AJUSTE -> {
+                if (q == 0) {
+                    throw new ResponseStatusException(BAD_REQUEST, "Ajuste com quantidade zero");
+                }
+                yield q;
+            }
+        };
+        long almox = m.id_almoxarifado() == null ? 0L : m.id_almoxarifado();
+
+        var r = saldos.aplicar(m.id_produto(), almox, m.tipo(), delta, m.documento());
+
+        if (cruzou(r, l.ponto_abastecimento())) {
+            alertar(AlertaReposicao.Tipo.PONTO_ABASTECIMENTO, m.id_produto(), almox, r.atual(), l.ponto_abastecimento());
+        }
+        if (cruzou(r, l.estoque_minimo())) {
+            alertar(AlertaReposicao.Tipo.ESTOQUE_MINIMO, m.id_produto(), almox, r.atual(), l.estoque_minimo());
+        }
+        return new SaldoDTO(m.id_produto(), almox, r.atual());
+    }
+
+    // Só a passagem de cima para baixo do limite; ficar abaixo não repete o alerta
+    private static boolean cruzou(EstoqueSaldos.Resultado r, int limite) {
+        return r.anterior() > limite && r.atual() <= limite;
+    }
+
+    private void alertar(AlertaReposicao.Tipo tipo, Long produto, Long almox, int saldo, int limite) {
+        var a = new AlertaReposicao(tipo, produto, almox, saldo, limite, LocalDateTime.now());
+        log.warn("Reposição: produto {} no almoxarifado {} com saldo {} (limite {}: {})",
+                produto, almox, saldo, tipo, limite);
+        metricas.counter("estoque.reposicao.alertas", "tipo", tipo.name()).increment();
+        synchronized (alertas) {
+            if (alertas.size() >= maximoAlertas) {
+                alertas.removeLast();
+            }
+            alertas.addFirst(a);
+        }
+        eventos.publishEvent(a);
+    }
+
+    // ===== CONSULTAS =====
+
+    public List<SaldoDTO> saldos(Long produto) {
+        limitesDe(produto);
+        return saldos.saldos(produto);
+    }
+
+    /** Linhas já gravadas do diário; as da última fração de segundo podem faltar. */
+    public List<MovimentacaoModel> historico(Long produto, int limite) {
+        limitesDe(produto);
+        return repo.historico(produto, Limit.of(Math.max(1, Math.min(limite, 1000))));
+    }
+
+    /** Alertas mais recentes primeiro. */
+    public List<AlertaReposicao> alertas() {
+        synchronized (alertas) {
+            return new ArrayList<>(alertas);
+        }
+    }
+}
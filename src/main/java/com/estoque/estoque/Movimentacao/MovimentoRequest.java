@@ -0,0 +1,18 @@
+package com.estoque.estoque.Movimentacao;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
+
+/**
+ * Uma movimentação. Sem {@code id_almoxarifado}, vale o saldo "sem
+ * almoxarifado" (0). Em ENTRADA/SAIDA a quantidade é positiva; em AJUSTE é a
+ * diferença com sinal.
+ */
+public record MovimentoRequest(
+        @NotNull Long id_produto,
+        @PositiveOrZero Long id_almoxarifado,
+        @NotNull TipoMovimento tipo,
+        @NotNull Integer quantidade,
+        @Size(max = 60) String documento
+) {}
@@ -0,0 +1,3 @@
+package com.estoque.estoque.Movimentacao;
+
+public record SaldoDTO(Long id_produto, Long id_almoxarifado, int quantidade) {}
@@ -0,0 +1,46 @@
+package com.estoque.estoque.Movimentacao;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Saldo atual de um produto num almoxarifado. Quem manda é o contador em
+ * memória do {@link EstoqueSaldos}; a tabela recebe a foto dele na mesma
+ * transação das linhas do diário que levaram até ali.
+ */
+@Entity
+@Table(name = SaldoEstoqueModel.NOME_TABELA)
+@IdClass(SaldoEstoqueModel.Chave.class)
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter @Setter
+public class SaldoEstoqueModel {
+
+    public static final String NOME_TABELA = "SALDOESTOQUE";
+
+    @Id
+    @Column(name = "ID_PRODUTO", nullable = false)
+    private Long id_produto;
+
+    // 0 = sem almoxarifado
+    @Id
+    @Column(name = "ID_ALMOX", nullable = false)
+    private Long id_almoxarifado;
+
+    @Column(name = "QUANTIDADE", nullable = false)
+    private int quantidade;
+
+    @Column(name = "ATUALIZADO", nullable = false)
+    private LocalDateTime atualizado;
+
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Chave implements Serializable {
+        private Long id_produto;
+        private Long id_almoxarifado;
+    }
+}
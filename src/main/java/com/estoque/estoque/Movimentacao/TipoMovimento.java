@@ -0,0 +1,7 @@
+package com.estoque.estoque.Movimentacao;
+
+/**
+ * ENTRADA e SAIDA recebem quantidade positiva; AJUSTE (inventário, perda,
+ * correção) recebe a diferença com sinal.
+ */
+public enum TipoMovimento { ENTRADA, SAIDA, AJUSTE }
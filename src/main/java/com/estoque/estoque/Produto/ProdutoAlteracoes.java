@@ -0,0 +1,154 @@
+package com.estoque.estoque.Produto;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Diário de alterações do catálogo para sincronização incremental
+ * (GET /api/produtos/changes?since=versao).
+ *
+ * Cada {@link ProdutoEvento} confirmado avança a {@link ProdutoCatalogoVersao}
+ * e vira uma entrada: o DTO atual (criação/alteração) ou uma lápide (exclusão).
+ * Só a última entrada de cada id é mantida, e no máximo
+ * {@code estoque.produtos.alteracoes.maximo} delas; as mais antigas saem e
+ * quem pedir a partir de antes disso recebe o catálogo completo.
+ *
+ * {@link Ouvinte}s recebem cada entrada nova em ordem de versão (é assim que o
+ * SSE de /api/produtos/eventos é alimentado).
+ */
+@Component
+public class ProdutoAlteracoes {
+
+    private final ProdutoCatalogoVersao versao;
+    private final int maximo;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // id -> última entrada, em ordem de versão (reinserir move para o fim)
+    private final LinkedHashMap<Long, Registro> entradas = new LinkedHashMap<>();
+    // menor "since" ainda atendido com delta (sobe quando entradas antigas são descartadas)
+    private long piso;
+
+    private final List<Ouvinte> ouvintes = new CopyOnWriteArrayList<>();
+
+    public ProdutoAlteracoes(ProdutoCatalogoVersao versao,
+                             @Value("${estoque.produtos.alteracoes.maximo:10000}") int maximo) {
+        this.versao = versao;
+        this.maximo = maximo;
+        // o que mudou antes da subida não está no diário
+        this.piso = versao.atual();
+    }
+
+    /** Entrada do diário; em EXCLUIDO, {@code atual} é null. */
+    public record Registro(long versao, ProdutoEvento.Tipo tipo, Long id, ProdutoDetalhesDTO atual) {
+    }
+
+    /**
+     * Chamado com o lock do diário, na ordem das versões: deve só enfileirar,
+     * sem bloquear nem voltar ao diário.
+     */
+    @FunctionalInterface
+    public interface Ouvinte {
+        void aoRegistrar(Registro registro);
+    }
+
+    public void ouvir(Ouvinte ouvinte) {
+        ouvintes.add(ouvinte);
+    }
+
+    @TransactionalEventListener
+    public void aoAlterar(ProdutoEvento evento) {
+        lock.writeLock().lock();
+        try {
+            // versão avançada sob o lock: a ordem das entradas é a ordem das versões
+            long v = versao.avancar();
+            var r = new Registro(v, evento.tipo(), evento.id(), evento.atual());
+            entradas.remove(evento.id());
+            entradas.put(evento.id(), r);
+            while (entradas.size() > maximo) {
+                var maisAntiga = entradas.pollFirstEntry();
+                piso = maisAntiga.getValue().versao();
+            }
+            for (Ouvinte o : ouvintes) {
+                o.aoRegistrar(r);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * O que mudou depois de {@code since}. Sem {@code since}, com um valor
+     * anterior ao que o diário ainda guarda ou com uma versão que este servidor
+     * não emitiu, devolve o catálogo completo.
+     */
+    public ProdutoAlteracoesResposta desde(Long since, Supplier<List<ProdutoDetalhesDTO>> completo) {
+        lock.readLock().lock();
+        try {
+            if (atende(since)) {
+                return delta(since);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        // versão lida antes da consulta: o retrato é no mínimo tão novo quanto ela
+        long v = versao.atual();
+        return new ProdutoAlteracoesResposta(v, true, completo.get(), List.of());
+    }
+
+    /**
+     * Entregam a {@code assinar}, sob o mesmo lock, as entradas posteriores a
+     * {@code since} em ordem de versão: o que for registrado depois chega pelo
+     * {@link Ouvinte}, sem buraco nem repetição. Vazio quando o diário não
+     * cobre {@code since} (quem pediu deve recarregar tudo).
+     */
+    public void acompanhar(Long since, Consumer<Optional<List<Registro>>> assinar) {
+        lock.readLock().lock();
+        try {
+            assinar.accept(atende(since) ? Optional.of(posteriores(since)) : Optional.empty());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // chamar com o lock
+    private boolean atende(Long since) {
+        return since != null && since >= piso && since <= versao.atual();
+    }
+
+    // chamar com o lock
+    private List<Registro> posteriores(long since) {
+        List<Registro> r = new ArrayList<>();
+        for (Registro e : entradas.reversed().values()) {
+            if (e.versao() <= since) {
+                break;
+            }
+            r.add(e);
+        }
+        return r.reversed();
+    }
+
+    // chamar com o lock
+    private ProdutoAlteracoesResposta delta(long since) {
+        List<ProdutoDetalhesDTO> alterados = new ArrayList<>();
+        List<Long> excluidos = new ArrayList<>();
+        for (Registro e : posteriores(since)) {
+            if (e.atual() != null) {
+                alterados.add(e.atual());
+            } else {
+                excluidos.add(e.id());
+            }
+        }
+        return new ProdutoAlteracoesResposta(versao.atual(), false, alterados, excluidos);
+    }
+}
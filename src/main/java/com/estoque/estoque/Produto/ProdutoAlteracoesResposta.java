@@ -0,0 +1,17 @@
+package com.estoque.estoque.Produto;
+
+import java.util.List;
+
+/**
+ * Resposta de GET /api/produtos/changes.
+ *
+ * {@code versao} é o valor a mandar como {@code since} na próxima chamada.
+ * Com {@code completo = true}, {@code alterados} é o catálogo inteiro e o
+ * cliente deve descartar a cópia local.
+ */
+public record ProdutoAlteracoesResposta(
+        long versao,
+        boolean completo,
+        List<ProdutoDetalhesDTO> alterados,
+        List<Long> excluidos
+) {}
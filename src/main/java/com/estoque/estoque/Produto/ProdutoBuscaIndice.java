@@ -0,0 +1,272 @@
+package com.estoque.estoque.Produto;
+
+import com.estoque.estoque.Infra.CargaNaSubida;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice em memória para busca por nome e código de barras.
+ *
+ * - prefixo: mapas ordenados pela chave normalizada (nome e EAN);
+ * - trecho do nome: trigramas -> ids ordenados, conferidos contra o nome normalizado.
+ *
+ * Reconstruído a partir do banco na subida (de novo em segundo plano, pelo
+ * {@link CargaNaSubida}, se o banco falhar) e mantido pelos
+ * {@link ProdutoEvento} após o commit. As buscas não acessam o banco.
+ */
+@Component
+public class ProdutoBuscaIndice {
+
+    private static final Logger log = LoggerFactory.getLogger(ProdutoBuscaIndice.class);
+
+    // Separa a chave do id nos mapas ordenados (ordena antes de qualquer caractere visível)
+    private static final char SEP = '\u0000';
+
+    private final ProdutoRepository repo;
+    private final CargaNaSubida carga;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Long, Entrada> porId = new HashMap<>();
+    private final NavigableMap<String, Long> porNome = new TreeMap<>();
+    private final NavigableMap<String, Long> porCodigo = new TreeMap<>();
+    private final Map<String, LongLista> trigramas = new HashMap<>();
+
+    private volatile boolean pronto;
+
+    public ProdutoBuscaIndice(ProdutoRepository repo, CargaNaSubida carga) {
+        this.repo = repo;
+        this.carga = carga;
+    }
+
+    private record Entrada(ProdutoDetalhesDTO dto, String nome, String codigo) {
+    }
+
+    // ===== CARGA / MANUTENÇÃO =====
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void aoSubir() {
+        carga.executar("o índice de busca", this::reconstruir);
+    }
+
+    // Segura o writeLock durante a consulta: eventos de commits concorrentes
+    // esperam e são aplicados depois, sem se perder na troca do conteúdo.
+    public void reconstruir() {
+        lock.writeLock().lock();
+        try {
+            long inicio = System.nanoTime();
+            List<ProdutoDetalhesDTO> todos = repo.listarComUnidade();
+
+            porId.clear();
+            porNome.clear();
+            porCodigo.clear();
+            trigramas.clear();
+
+            for (ProdutoDetalhesDTO dto : todos) {
+                Entrada e = indexar(dto);
+                for (String t : trigramasDe(e.nome())) {
+                    trigramas.computeIfAbsent(t, k -> new LongLista()).acrescentar(dto.getId_produto());
+                }
+            }
+            trigramas.values().forEach(LongLista::ordenar);
+            pronto = true;
+
+            log.info("Índice de busca carregado: {} itens em {} ms",
+                    todos.size(), (System.nanoTime() - inicio) / 1_000_000);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener
+    public void aoAlterar(ProdutoEvento evento) {
+        lock.writeLock().lock();
+        try {
+            remover(evento.id());
+            // sem unidade conhecida o item também não sai no join de listarComUnidade
+            if (evento.atual() != null && evento.atual().getUnidade_medida() != null) {
+                inserir(evento.atual());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isPronto() {
+        return pronto;
+    }
+
+    // ===== BUSCA =====
+
+    /**
+     * Itens cujo nome ou código começa com o termo, seguidos dos que contêm
+     * o termo no meio do nome (termos com 3+ caracteres). Sem distinção de
+     * maiúsculas e acentos.
+     */
+    public List<ProdutoDetalhesDTO> buscar(String termo, int limite) {
+        String q = TextoNormalizador.normalizar(termo);
+        if (q.isEmpty() || limite <= 0) {
+            return List.of();
+        }
+
+        Set<Long> ids = new LinkedHashSet<>();
+        List<ProdutoDetalhesDTO> resultado = new ArrayList<>();
+
+        lock.readLock().lock();
+        try {
+            coletarPrefixo(porNome, q, ids, limite);
+            coletarPrefixo(porCodigo, q, ids, limite);
+            if (ids.size() < limite && q.length() >= 3) {
+                coletarTrecho(q, ids, limite);
+            }
+            for (Long id : ids) {
+                resultado.add(porId.get(id).dto());
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return resultado;
+    }
+
+    private static void coletarPrefixo(NavigableMap<String, Long> mapa, String q, Set<Long> ids, int limite) {
+        for (Long id : mapa.subMap(q, true, q + Character.MAX_VALUE, true).values()) {
+            if (ids.size() >= limite) {
+                return;
+            }
+            ids.add(id);
+        }
+    }
+
+    private void coletarTrecho(String q, Set<Long> ids, int limite) {
+        // interseção começando pela lista mais curta
+        List<LongLista> listas = new ArrayList<>();
+        for (String t : trigramasDe(q)) {
+            LongLista l = trigramas.get(t);
+            if (l == null) {
+                return;
+            }
+            listas.add(l);
+        }
+        listas.sort(Comparator.comparingInt(LongLista::tamanho));
+
+        LongLista menor = listas.get(0);
+        for (int k = 0; k < menor.tamanho(); k++) {
+            if (ids.size() >= limite) {
+                return;
+            }
+            long id = menor.get(k);
+            boolean emTodas = true;
+            for (int i = 1; i < listas.size() && emTodas; i++) {
+                emTodas = listas.get(i).contem(id);
+            }
+            if (emTodas && porId.get(id).nome().contains(q)) {
+                ids.add(id);
+            }
+        }
+    }
+
+    // ===== ESTRUTURAS (chamar com o writeLock) =====
+
+    private void inserir(ProdutoDetalhesDTO dto) {
+        Entrada e = indexar(dto);
+        for (String t : trigramasDe(e.nome())) {
+            trigramas.computeIfAbsent(t, k -> new LongLista()).incluir(dto.getId_produto());
+        }
+    }
+
+    // nome e código; os trigramas ficam a cargo de quem chama
+    private Entrada indexar(ProdutoDetalhesDTO dto) {
+        Long id = dto.getId_produto();
+        String nome = TextoNormalizador.normalizar(dto.getNomeProduto());
+        String codigo = TextoNormalizador.normalizar(dto.getCodg_barras_prod());
+
+        Entrada e = new Entrada(dto, nome, codigo);
+        porId.put(id, e);
+        porNome.put(nome + SEP + id, id);
+        if (!codigo.isEmpty()) {
+            porCodigo.put(codigo + SEP + id, id);
+        }
+        return e;
+    }
+
+    private void remover(Long id) {
+        Entrada e = porId.remove(id);
+        if (e == null) {
+            return;
+        }
+        porNome.remove(e.nome() + SEP + id);
+        porCodigo.remove(e.codigo() + SEP + id);
+        for (String t : trigramasDe(e.nome())) {
+            trigramas.computeIfPresent(t, (k, l) -> l.remover(id) ? null : l);
+        }
+    }
+
+    private static Set<String> trigramasDe(String s) {
+        Set<String> r = new HashSet<>();
+        for (int i = 0; i + 3 <= s.length(); i++) {
+            r.add(s.substring(i, i + 3));
+        }
+        return r;
+    }
+
+    // ids ordenados de um trigrama; cresce no lugar (ids novos costumam ir para o fim)
+    private static final class LongLista {
+        private long[] v = new long[4];
+        private int n;
+
+        // só na reconstrução: acrescenta sem ordenar, ordena no fim com ordenar()
+        void acrescentar(long x) {
+            if (n == v.length) {
+                v = Arrays.copyOf(v, n * 2);
+            }
+            v[n++] = x;
+        }
+
+        void ordenar() {
+            Arrays.sort(v, 0, n);
+        }
+
+        void incluir(long x) {
+            int pos = Arrays.binarySearch(v, 0, n, x);
+            if (pos >= 0) {
+                return;
+            }
+            int ins = -pos - 1;
+            if (n == v.length) {
+                v = Arrays.copyOf(v, n * 2);
+            }
+            System.arraycopy(v, ins, v, ins + 1, n - ins);
+            v[ins] = x;
+            n++;
+        }
+
+        // devolve true quando a lista fica vazia
+        boolean remover(long x) {
+            int pos = Arrays.binarySearch(v, 0, n, x);
+            if (pos >= 0) {
+                System.arraycopy(v, pos + 1, v, pos, n - pos - 1);
+                n--;
+            }
+            return n == 0;
+        }
+
+        boolean contem(long x) {
+            return Arrays.binarySearch(v, 0, n, x) >= 0;
+        }
+
+        int tamanho() {
+            return n;
+        }
+
+        long get(int i) {
+            return v[i];
+        }
+    }
+}
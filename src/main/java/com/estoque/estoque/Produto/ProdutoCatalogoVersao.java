@@ -0,0 +1,83 @@
+package com.estoque.estoque.Produto;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Versão do catálogo de produtos: cresce a cada {@link ProdutoEvento} após o
+ * commit (quem avança é o {@link ProdutoAlteracoes}, junto com a entrada no
+ * diário). Começa no relógio da subida para não repetir valores de antes de um
+ * restart.
+ *
+ * Serve de ETag para as listagens e guarda o último JSON de cada uma, de modo
+ * que GETs repetidos sem alteração no meio não vão ao banco nem serializam.
+ */
+@Component
+public class ProdutoCatalogoVersao {
+
+    private final ObjectMapper mapper;
+    private final AtomicLong versao = new AtomicLong(System.currentTimeMillis());
+
+    private final Map<String, Resposta> respostas = new ConcurrentHashMap<>();
+    private final ReentrantLock montagem = new ReentrantLock();
+
+    public ProdutoCatalogoVersao(ObjectMapper mapper) {
+        this.mapper = mapper;
+    }
+
+    /** JSON de uma listagem e a versão a que ele corresponde. */
+    public record Resposta(long versao, String etag, byte[] json) {
+    }
+
+    public long atual() {
+        return versao.get();
+    }
+
+    public String etag(String tipo) {
+        return etag(tipo, versao.get());
+    }
+
+    static String etag(String tipo, long v) {
+        return "\"" + tipo + "-" + v + "\"";
+    }
+
+    long avancar() {
+        return versao.incrementAndGet();
+    }
+
+    /**
+     * JSON da listagem {@code tipo} na versão atual. Só uma thread monta por vez;
+     * as que chegam durante a montagem esperam e reaproveitam o resultado.
+     *
+     * A versão é lida antes da consulta: um commit no meio deixa a resposta com
+     * a versão antiga e a próxima chamada monta de novo.
+     */
+    public Resposta resposta(String tipo, Supplier<?> consulta) {
+        Resposta r = respostas.get(tipo);
+        if (r != null && r.versao() == versao.get()) {
+            return r;
+        }
+        montagem.lock();
+        try {
+            long v = versao.get();
+            r = respostas.get(tipo);
+            if (r != null && r.versao() == v) {
+                return r;
+            }
+            r = new Resposta(v, etag(tipo, v), mapper.writeValueAsBytes(consulta.get()));
+            respostas.put(tipo, r);
+            return r;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Falha ao serializar a listagem " + tipo, e);
+        } finally {
+            montagem.unlock();
+        }
+    }
+}
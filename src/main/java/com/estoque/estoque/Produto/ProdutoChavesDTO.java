@@ -0,0 +1,8 @@
+package com.estoque.estoque.Produto;
+
+// Só o que identifica o item: usado para carregar o registro de unicidade
+public record ProdutoChavesDTO(
+        Long id,
+        String nome,
+        String codigo
+) {}
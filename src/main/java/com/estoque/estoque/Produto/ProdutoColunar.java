@@ -0,0 +1,58 @@
+package com.estoque.estoque.Produto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+
+/**
+ * Lista detalhada em colunas: os nomes dos campos uma vez só e cada produto
+ * como um array na mesma ordem, em vez de repetir as chaves a cada linha.
+ * Escrito direto no gerador (JSON ou CBOR), sem passar pelo databind.
+ *
+ * {"versao": v, "campos": ["id_produto", ...], "linhas": [[1, "Café", ...], ...]}
+ */
+final class ProdutoColunar {
+
+    static final String[] CAMPOS = {
+            "id_produto", "nomeProduto", "descricao_produto", "codg_barras_prod", "temperatura_produto",
+            "estoque_minimo", "estoque_maximo", "ponto_abastecimento", "unidade_medida"
+    };
+
+    private ProdutoColunar() {
+    }
+
+    static void inicio(JsonGenerator gen, long versao) throws IOException {
+        gen.writeStartObject();
+        gen.writeNumberField("versao", versao);
+        gen.writeArrayFieldStart("campos");
+        for (String c : CAMPOS) {
+            gen.writeString(c);
+        }
+        gen.writeEndArray();
+        gen.writeArrayFieldStart("linhas");
+    }
+
+    // mesma ordem de CAMPOS
+    static void linha(JsonGenerator gen, ProdutoDetalhesDTO p) throws IOException {
+        gen.writeStartArray();
+        gen.writeNumber(p.getId_produto());
+        gen.writeString(p.getNomeProduto());
+        gen.writeString(p.getDescricao_produto());
+        gen.writeString(p.getCodg_barras_prod());
+        if (p.getTemperatura_produto() == null) {
+            gen.writeNull();
+        } else {
+            gen.writeNumber(p.getTemperatura_produto());
+        }
+        gen.writeNumber(p.getEstoque_minimo());
+        gen.writeNumber(p.getEstoque_maximo());
+        gen.writeNumber(p.getPonto_abastecimento());
+        gen.writeString(p.getUnidade_medida());
+        gen.writeEndArray();
+    }
+
+    static void fim(JsonGenerator gen) throws IOException {
+        gen.writeEndArray();
+        gen.writeEndObject();
+    }
+}
@@ -1,32 +1,374 @@
 package com.estoque.estoque.Produto;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
 import jakarta.validation.Valid;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Locale;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+import static org.springframework.http.HttpStatus.*;
 
 @RestController
 @RequestMapping("/api/produtos")
 public class ProdutoController {
 
     private final ProdutoService service;
+    private final ProdutoCriacaoAgrupada criacao;
+    private final ProdutoBuscaIndice indice;
+    private final ProdutoTextoIndice texto;
+    private final ProdutoEanIndice eans;
+    private final ProdutoImportService importacao;
+    private final ProdutoExportService exportacao;
+    private final ProdutoLoteService lotes;
+    private final ProdutoExclusaoService exclusao;
+    private final ProdutoCatalogoVersao versao;
+    private final ProdutoAlteracoes alteracoes;
+    private final ProdutoEventosSse eventos;
+    private final ObjectMapper mapper;
+
+    // Limites da busca por nome/código
+    private static final int BUSCA_LIMITE_PADRAO = 20;
+    private static final int BUSCA_LIMITE_MAXIMO = 200;
+    // Códigos por chamada em POST /ean
+    private static final int EAN_LOTE_MAXIMO = 500;
+    // Ids/nomes por chamada em DELETE /api/produtos e /nomes
+    private static final int EXCLUSAO_MAXIMO = 10_000;
+
+    private static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
 
-    public ProdutoController(ProdutoService service) {
+    // Lista detalhada em colunas (ProdutoColunar): JSON ou CBOR, pelo Accept
+    public static final String COLUNAR_JSON_VALUE = "application/vnd.estoque.colunar+json";
+    public static final String CBOR_VALUE = "application/cbor";
+    private static final CBORFactory CBOR = new CBORFactory();
+
+    public ProdutoController(ProdutoService service,
+                             ProdutoCriacaoAgrupada criacao,
+                             ProdutoBuscaIndice indice,
+                             ProdutoTextoIndice texto,
+                             ProdutoEanIndice eans,
+                             ProdutoImportService importacao,
+                             ProdutoExportService exportacao,
+                             ProdutoLoteService lotes,
+                             ProdutoExclusaoService exclusao,
+                             ProdutoCatalogoVersao versao,
+                             ProdutoAlteracoes alteracoes,
+                             ProdutoEventosSse eventos,
+                             ObjectMapper mapper) {
         this.service = service;
+        this.criacao = criacao;
+        this.indice = indice;
+        this.texto = texto;
+        this.eans = eans;
+        this.importacao = importacao;
+        this.exportacao = exportacao;
+        this.lotes = lotes;
+        this.exclusao = exclusao;
+        this.versao = versao;
+        this.alteracoes = alteracoes;
+        this.eventos = eventos;
+        this.mapper = mapper;
     }
 
     // Lista "crua" (ProdutoModel)
+    // ETag = versão do catálogo: If-None-Match igual responde 304 sem ir ao banco
     @GetMapping
-    public List<ProdutoModel> listar() {
-        return service.listar();
+    public ResponseEntity<byte[]> listar(WebRequest request) {
+        return listagem(request, "p", service::listar);
     }
 
     // Lista detalhada (DTO com unidade_medida, temperatura, estoques, etc.)
+    // Com ?after=<id_produto>&limit=N devolve só uma página; o header X-Next-After
+    // traz o cursor da próxima página quando ela pode existir.
+    // Lista e páginas levam a mesma ETag (versão do catálogo).
     @GetMapping("/detalhes")
-    public List<ProdutoDetalhesDTO> listarDetalhado() {
-        return service.listarDetalhado();
+    public ResponseEntity<?> listarDetalhado(
+            @RequestParam(value = "after", required = false) Long after,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            WebRequest request) {
+        if (after == null && limit == null) {
+            return listagem(request, "pd", service::listarDetalhado);
+        }
+
+        String etag = versao.etag("pd");
+        if (request.checkNotModified(etag)) {
+            return naoModificado(etag);
+        }
+        var pagina = service.listarDetalhado(after, limit);
+        var resposta = ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache());
+        int tamanho = limit == null ? ProdutoService.LIMITE_PADRAO : limit;
+        if (pagina.size() == tamanho) {
+            resposta.header("X-Next-After", String.valueOf(pagina.get(pagina.size() - 1).getId_produto()));
+        }
+        return resposta.body(pagina);
+    }
+
+    // Mesma lista (ou página) em colunas: nomes dos campos uma vez e cada produto
+    // como array. Accept: application/vnd.estoque.colunar+json ou application/cbor.
+    // Sai do cursor direto para a resposta; com Accept-Encoding: gzip vai comprimida.
+    @GetMapping(value = "/detalhes", produces = COLUNAR_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> listarDetalhadoColunar(
+            @RequestParam(value = "after", required = false) Long after,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String encoding,
+            WebRequest request) {
+        return colunar(mapper.getFactory(), COLUNAR_JSON_VALUE, "pdc", after, limit, encoding, request);
+    }
+
+    @GetMapping(value = "/detalhes", produces = CBOR_VALUE)
+    public ResponseEntity<StreamingResponseBody> listarDetalhadoCbor(
+            @RequestParam(value = "after", required = false) Long after,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String encoding,
+            WebRequest request) {
+        return colunar(CBOR, CBOR_VALUE, "pdb", after, limit, encoding, request);
+    }
+
+    private ResponseEntity<StreamingResponseBody> colunar(JsonFactory fabrica, String tipoMidia, String tipo,
+                                                          Long after, Integer limit, String encoding,
+                                                          WebRequest request) {
+        long v = versao.atual();
+        String etag = ProdutoCatalogoVersao.etag(tipo, v);
+        if (request.checkNotModified(etag)) {
+            return naoModificado(etag);
+        }
+        boolean paginado = after != null || limit != null;
+        var pagina = paginado ? service.listarDetalhado(after, limit) : null;
+        boolean gzip = aceitaGzip(encoding);
+
+        // ETag já posta pelo checkNotModified (o handler de streaming somaria outra)
+        var resposta = ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .contentType(MediaType.parseMediaType(tipoMidia))
+                .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            resposta.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        int tamanho = limit == null ? ProdutoService.LIMITE_PADRAO : limit;
+        if (paginado && pagina.size() == tamanho) {
+            resposta.header("X-Next-After", String.valueOf(pagina.get(pagina.size() - 1).getId_produto()));
+        }
+        return resposta.body(out -> {
+            OutputStream destino = gzip ? new GZIPOutputStream(out, 64 * 1024) : out;
+            try (JsonGenerator gen = fabrica.createGenerator(destino)) {
+                ProdutoColunar.inicio(gen, v);
+                if (paginado) {
+                    for (ProdutoDetalhesDTO p : pagina) {
+                        ProdutoColunar.linha(gen, p);
+                    }
+                } else {
+                    service.percorrerDetalhado(p -> {
+                        try {
+                            ProdutoColunar.linha(gen, p);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+                }
+                ProdutoColunar.fim(gen);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        });
+    }
+
+    // Accept-Encoding com pesos: "gzip;q=0" recusa; sem gzip na lista vale o "*"
+    static boolean aceitaGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        double gzip = -1;
+        double qualquer = -1;
+        for (String item : acceptEncoding.split(",")) {
+            String[] partes = item.split(";");
+            String codificacao = partes[0].strip().toLowerCase(Locale.ROOT);
+            double q = 1;
+            for (int i = 1; i < partes.length; i++) {
+                String parametro = partes[i].strip();
+                if (parametro.regionMatches(true, 0, "q=", 0, 2)) {
+                    try {
+                        q = Double.parseDouble(parametro.substring(2).strip());
+                    } catch (NumberFormatException e) {
+                        q = 0;
+                    }
+                }
+            }
+            if (codificacao.equals("gzip") || codificacao.equals("x-gzip")) {
+                gzip = Math.max(gzip, q);
+            } else if (codificacao.equals("*")) {
+                qualquer = Math.max(qualquer, q);
+            }
+        }
+        return gzip >= 0 ? gzip > 0 : qualquer > 0;
+    }
+
+    private ResponseEntity<byte[]> listagem(WebRequest request, String tipo, Supplier<?> consulta) {
+        String etag = versao.etag(tipo);
+        if (request.checkNotModified(etag)) {
+            return naoModificado(etag);
+        }
+        var r = versao.resposta(tipo, consulta);
+        return ResponseEntity.ok()
+                .eTag(r.etag())
+                .cacheControl(CacheControl.noCache())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(r.json());
+    }
+
+    private static <T> ResponseEntity<T> naoModificado(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+    }
+
+    // Sincronização incremental: o que mudou desde a versão informada
+    // (/api/produtos/changes?since=<versao>). Sem since ou com versão velha demais
+    // vem o catálogo completo (completo=true).
+    @GetMapping("/changes")
+    public ProdutoAlteracoesResposta alteracoes(@RequestParam(value = "since", required = false) Long since) {
+        return alteracoes.desde(since, service::listarDetalhado);
+    }
+
+    // Alterações do catálogo em tempo real (SSE). O EventSource reconecta sozinho
+    // mandando Last-Event-ID; ?since=<versao> serve para a primeira conexão.
+    @GetMapping(value = "/eventos", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter eventos(@RequestHeader(value = "Last-Event-ID", required = false) Long ultimoId,
+                              @RequestParam(value = "since", required = false) Long since) {
+        return eventos.assinar(ultimoId != null ? ultimoId : since);
+    }
+
+    // Lista detalhada escrita linha a linha a partir do cursor do banco
+    @GetMapping(value = "/detalhes/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+    public StreamingResponseBody listarDetalhadoStream() {
+        return out -> {
+            try (JsonGenerator gen = mapper.getFactory().createGenerator(out)) {
+                gen.writeStartArray();
+                service.percorrerDetalhado(dto -> {
+                    try {
+                        gen.writeObject(dto);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                gen.writeEndArray();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+    }
+
+    // Catálogo inteiro para integração (ERP): /api/produtos/export?format=csv|ndjson.
+    // Sai do cursor direto para a resposta, sem montar a lista; com
+    // Accept-Encoding: gzip vai comprimido.
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportar(
+            @RequestParam(value = "format", defaultValue = "csv") String format,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String encoding) {
+        var formato = switch (format.toLowerCase(Locale.ROOT)) {
+            case "csv" -> ProdutoImportService.Formato.CSV;
+            case "ndjson" -> ProdutoImportService.Formato.NDJSON;
+            default -> throw new ResponseStatusException(BAD_REQUEST, "format deve ser csv ou ndjson");
+        };
+        boolean csv = formato == ProdutoImportService.Formato.CSV;
+        boolean gzip = aceitaGzip(encoding);
+
+        var resposta = ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .contentType(new MediaType(csv ? TEXT_CSV : NDJSON, StandardCharsets.UTF_8))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(csv ? "produtos.csv" : "produtos.ndjson").build().toString())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            resposta.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return resposta.body(out -> {
+            try (OutputStream destino = gzip ? new GZIPOutputStream(out, 64 * 1024) : out) {
+                exportacao.exportar(formato, destino);
+            }
+        });
+    }
+
+    // Busca por prefixo/trecho do nome ou prefixo do código de barras,
+    // sem diferenciar maiúsculas e acentos: /api/produtos/busca?q=cafe&limit=20
+    @GetMapping("/busca")
+    public List<ProdutoDetalhesDTO> buscarPorTermo(
+            @RequestParam("q") String q,
+            @RequestParam(value = "limit", defaultValue = "" + BUSCA_LIMITE_PADRAO) int limit) {
+        if (limit < 1 || limit > BUSCA_LIMITE_MAXIMO) {
+            throw new ResponseStatusException(BAD_REQUEST, "limit deve estar entre 1 e " + BUSCA_LIMITE_MAXIMO);
+        }
+        if (!indice.isPronto()) {
+            throw new ResponseStatusException(SERVICE_UNAVAILABLE, "Índice de busca ainda não carregado");
+        }
+        return indice.buscar(q, limit);
+    }
+
+    // Busca por palavras do nome e da descrição, da mais para a menos relevante:
+    // /api/produtos/busca-texto?q=parafuso%20inox&limit=20. Sem acento, sem caixa,
+    // singular/plural e masculino/feminino indiferentes.
+    @GetMapping("/busca-texto")
+    public List<ProdutoDetalhesDTO> buscarPorTexto(
+            @RequestParam("q") String q,
+            @RequestParam(value = "limit", defaultValue = "" + BUSCA_LIMITE_PADRAO) int limit) {
+        if (limit < 1 || limit > BUSCA_LIMITE_MAXIMO) {
+            throw new ResponseStatusException(BAD_REQUEST, "limit deve estar entre 1 e " + BUSCA_LIMITE_MAXIMO);
+        }
+        if (!texto.isPronto()) {
+            throw new ResponseStatusException(SERVICE_UNAVAILABLE, "Índice de texto ainda não carregado");
+        }
+        return texto.buscar(q, limit);
+    }
+
+    // Leitura de coletor: produto pelo código de barras, direto do índice em memória.
+    // 400 se o EAN-13 tem dígito verificador errado; 409 para o EAN fixo de serviço,
+    // que é de todos os serviços e não identifica um item.
+    @GetMapping("/ean/{ean}")
+    public ResponseEntity<byte[]> buscarPorEan(@PathVariable String ean) {
+        exigirIndiceEan();
+        var r = eans.buscar(ean);
+        return switch (r.situacao()) {
+            case ENCONTRADO -> ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(r.json());
+            case NAO_ENCONTRADO -> throw new ResponseStatusException(NOT_FOUND, "Nenhum produto com esse código de barras");
+            case INVALIDO -> throw new ResponseStatusException(BAD_REQUEST, "EAN-13 com dígito verificador inválido");
+            case SERVICO -> throw new ResponseStatusException(CONFLICT, "Código de serviço: compartilhado por todos os serviços");
+        };
+    }
+
+    // Vários códigos numa chamada (corpo: ["789...", ...]); cada um volta com a
+    // situação (encontrado, nao_encontrado, invalido, servico) na ordem enviada.
+    @PostMapping("/ean")
+    public ResponseEntity<byte[]> buscarPorEans(@RequestBody List<String> codigos) {
+        if (codigos.size() > EAN_LOTE_MAXIMO) {
+            throw new ResponseStatusException(BAD_REQUEST, "No máximo " + EAN_LOTE_MAXIMO + " códigos por chamada");
+        }
+        exigirIndiceEan();
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(eans.buscarVarios(codigos));
+    }
+
+    private void exigirIndiceEan() {
+        if (!eans.isPronto()) {
+            throw new ResponseStatusException(SERVICE_UNAVAILABLE, "Índice de EAN ainda não carregado");
+        }
     }
 
     @GetMapping("/{id}")
@@ -36,7 +378,7 @@ public class ProdutoController {
 
     @PostMapping
     public ResponseEntity<ProdutoModel> criar(@Valid @RequestBody ProdutoModel produto) {
-        ProdutoModel salvo = service.criar(produto);
+        ProdutoModel salvo = criacao.criar(produto);
         return ResponseEntity
                 .created(URI.create("/api/produtos/" + salvo.getId_produto()))
                 .body(salvo);
@@ -57,14 +399,64 @@ public class ProdutoController {
     // DELETE por nome: /api/produtos/nome?nome=Mouse%20Gamer%20RGB
     @DeleteMapping("/nome")
     public ResponseEntity<Void> excluirPorNome(@RequestParam("nome") String nome) {
-        service.excluirPorNome(nome);
+        if (nome.isBlank()) {
+            throw new ResponseStatusException(BAD_REQUEST, "Informe o nome do produto");
+        }
+        if (exclusao.excluirPorNomes(List.of(nome)).excluidos() == 0) {
+            throw new ResponseStatusException(NOT_FOUND, "Produto não encontrado pelo nome");
+        }
         return ResponseEntity.noContent().build();
     }
 
+    // Exclusão em massa (corpo: [12, 15, ...]); 200 com o relatório, que lista os ids sem produto
+    @DeleteMapping
+    public ProdutoExclusaoRelatorio<Long> excluirVarios(@RequestBody List<Long> ids) {
+        exigirListaExclusao(ids, "ids");
+        return exclusao.excluirPorIds(ids);
+    }
+
+    // Idem por nome (corpo: ["Mouse Gamer RGB", ...]), comparado sem caixa nem acentos
+    @DeleteMapping("/nomes")
+    public ProdutoExclusaoRelatorio<String> excluirVariosPorNome(@RequestBody List<String> nomes) {
+        exigirListaExclusao(nomes, "nomes");
+        if (nomes.stream().anyMatch(String::isBlank)) {
+            throw new ResponseStatusException(BAD_REQUEST, "Nome vazio na lista");
+        }
+        return exclusao.excluirPorNomes(nomes);
+    }
+
+    private static void exigirListaExclusao(List<?> itens, String nome) {
+        if (itens.isEmpty() || itens.size() > EXCLUSAO_MAXIMO) {
+            throw new ResponseStatusException(BAD_REQUEST, "Informe de 1 a " + EXCLUSAO_MAXIMO + " " + nome + " por chamada");
+        }
+        if (itens.contains(null)) {
+            throw new ResponseStatusException(BAD_REQUEST, "Valor nulo na lista de " + nome);
+        }
+    }
+
+    // Importação em lote: corpo CSV (com cabeçalho) ou NDJSON, um produto por linha
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    public ProdutoImportRelatorio importar(@RequestHeader(HttpHeaders.CONTENT_TYPE) String tipo,
+                                           InputStream corpo) throws IOException {
+        var formato = MediaType.parseMediaType(tipo).isCompatibleWith(TEXT_CSV)
+                ? ProdutoImportService.Formato.CSV
+                : ProdutoImportService.Formato.NDJSON;
+        return importacao.importar(corpo, formato);
+    }
+
+    // Lote misto (criar/atualizar/excluir produtos e serviços) numa transação só.
+    // Resultados na ordem das operações; se alguma for inválida, 400 e nada é gravado.
+    @PostMapping("/batch")
+    public ResponseEntity<ProdutoLoteRelatorio> lote(@RequestBody List<ProdutoLoteOperacao> operacoes) {
+        var relatorio = lotes.aplicar(operacoes);
+        return ResponseEntity.status(relatorio.aplicado() ? HttpStatus.OK : HttpStatus.BAD_REQUEST)
+                .body(relatorio);
+    }
+
     // Criação de serviço via /api/produtos/servicos
     @PostMapping("/servicos")
     public ResponseEntity<ProdutoModel> criarServico(@Valid @RequestBody ServicoRequest req) {
-        var salvo = service.criarServico(req);
+        var salvo = criacao.criarServico(req);
         return ResponseEntity.created(URI.create("/api/produtos/" + salvo.getId_produto()))
                 .body(salvo);
     }
@@ -0,0 +1,245 @@
+package com.estoque.estoque.Produto;
+
+import com.estoque.estoque.Infra.AdmissaoBanco;
+import com.estoque.estoque.Infra.LeituraPropriaFilter;
+import com.estoque.estoque.Produto.ProdutoLoteRelatorio.Resultado;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
+
+/**
+ * Criação agrupada (group commit) de produtos e serviços, ligada por
+ * {@code estoque.produtos.agrupamento.enabled}. Desligada, cada POST segue
+ * direto para o {@link ProdutoService}.
+ *
+ * Ligada, os POSTs entram numa fila e uma thread junta os que chegam em até
+ * {@code estoque.produtos.agrupamento.janela} depois do primeiro (no máximo
+ * {@code estoque.produtos.agrupamento.maximo}) numa transação só, pelo
+ * {@link ProdutoLoteService#criarIndependentes}: unicidade conferida para o
+ * grupo todo, inclusive entre os próprios pedidos, na ordem de chegada. Cada
+ * chamador recebe o próprio produto ou o próprio erro, com o mesmo status do
+ * caminho direto.
+ *
+ * Se a transação do grupo falhar inteira (ex.: UNIQUE violado por outra
+ * instância), os pedidos são refeitos um a um, para o erro ficar só com quem
+ * o causou. Tamanho dos grupos em estoque.produtos.agrupamento.tamanho.
+ *
+ * O chamador espera no máximo o prazo da requisição (estoque.admissao.prazo-requisicao):
+ * se o pedido ainda está na fila, sai dela e recebe 503; se o grupo dele já
+ * está gravando, recebe 503 sem saber se o item foi gravado. Qualquer erro
+ * de um grupo fica com os pedidos dele; a thread segue para o próximo.
+ */
+@Component
+public class ProdutoCriacaoAgrupada {
+
+    private static final Logger log = LoggerFactory.getLogger(ProdutoCriacaoAgrupada.class);
+
+    // fila vazia: de quanto em quanto a thread confere se a aplicação está encerrando
+    private static final long ESPERA_VAZIA_MS = 200;
+    // espera do chamador fora de uma requisição da API (sem prazo definido)
+    private static final long ESPERA_SEM_PRAZO_NS = TimeUnit.SECONDS.toNanos(30);
+
+    private final ProdutoService produtos;
+    private final ProdutoLoteService lotes;
+    private final boolean ativo;
+    private final long janelaNs;
+    private final int maximo;
+
+    private final LinkedBlockingQueue<Pedido> fila = new LinkedBlockingQueue<>();
+    private final Thread gravacao;
+    private volatile boolean encerrado;
+
+    private final DistributionSummary tamanho;
+    private final Counter refeitos;
+
+    // iniciado: quem vira primeiro fica com o pedido (a thread, para gravar; o chamador, para desistir)
+    private record Pedido(ProdutoLoteOperacao operacao, CompletableFuture<ProdutoModel> resposta, AtomicBoolean iniciado) {
+    }
+
+    public ProdutoCriacaoAgrupada(ProdutoService produtos,
+                                  ProdutoLoteService lotes,
+                                  MeterRegistry metricas,
+                                  @Value("${estoque.produtos.agrupamento.enabled:false}") boolean ativo,
+                                  @Value("${estoque.produtos.agrupamento.janela:PT0.005S}") Duration janela,
+                                  @Value("${estoque.produtos.agrupamento.maximo:200}") int maximo) {
+        this.produtos = produtos;
+        this.lotes = lotes;
+        this.ativo = ativo;
+        this.janelaNs = janela.toNanos();
+        this.maximo = Math.max(1, maximo);
+
+        this.tamanho = DistributionSummary.builder("estoque.produtos.agrupamento.tamanho")
+                .description("Criações gravadas por transação agrupada")
+                .register(metricas);
+        this.refeitos = Counter.builder("estoque.produtos.agrupamento.refeitos")
+                .description("Grupos cuja transação falhou e foram refeitos um a um")
+                .register(metricas);
+
+        this.gravacao = ativo
+                ? Thread.ofPlatform().name("produto-agrupamento").daemon().start(this::executar)
+                : null;
+    }
+
+    public ProdutoModel criar(ProdutoModel p) {
+        if (!ativo) {
+            return produtos.criar(p);
+        }
+        return aguardar(new ProdutoLoteOperacao(ProdutoLoteOperacao.Tipo.CRIAR, null, p, null));
+    }
+
+    public ProdutoModel criarServico(ServicoRequest in) {
+        if (!ativo) {
+            return produtos.criarServico(in);
+        }
+        return aguardar(new ProdutoLoteOperacao(ProdutoLoteOperacao.Tipo.CRIAR_SERVICO, null, null, in));
+    }
+
+    private ProdutoModel aguardar(ProdutoLoteOperacao op) {
+        if (encerrado) {
+            throw new ResponseStatusException(SERVICE_UNAVAILABLE, "Aplicação encerrando");
+        }
+        var pedido = new Pedido(op, new CompletableFuture<>(), new AtomicBoolean());
+        fila.add(pedido);
+        // encerrou entre a checagem e o add: a thread pode já ter feito a última varredura
+        if (encerrado && fila.remove(pedido)) {
+            throw new ResponseStatusException(SERVICE_UNAVAILABLE, "Aplicação encerrando");
+        }
+        try {
+            ProdutoModel salvo = pedido.resposta().get(
+                    Math.max(0, AdmissaoBanco.restanteNs(ESPERA_SEM_PRAZO_NS)), TimeUnit.NANOSECONDS);
+            // gravado em outra thread: o cookie de leitura própria sai daqui
+            LeituraPropriaFilter.gravou();
+            return salvo;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException r) {
+                throw r;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            if (pedido.iniciado().compareAndSet(false, true)) {
+                fila.remove(pedido);
+                throw new ResponseStatusException(SERVICE_UNAVAILABLE, "Prazo da requisição esgotado na fila de criação");
+            }
+            throw new ResponseStatusException(SERVICE_UNAVAILABLE,
+                    "Prazo da requisição esgotado com a criação em andamento; confira se o item foi gravado");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(SERVICE_UNAVAILABLE, "Criação interrompida");
+        }
+    }
+
+    // ===== THREAD DE GRAVAÇÃO =====
+
+    private void executar() {
+        List<Pedido> grupo = new ArrayList<>(maximo);
+        try {
+            while (!encerrado) {
+                Pedido primeiro = fila.poll(ESPERA_VAZIA_MS, TimeUnit.MILLISECONDS);
+                if (primeiro == null) {
+                    continue;
+                }
+                grupo.add(primeiro);
+                long limite = System.nanoTime() + janelaNs;
+                while (grupo.size() < maximo) {
+                    fila.drainTo(grupo, maximo - grupo.size());
+                    long resta = limite - System.nanoTime();
+                    if (grupo.size() >= maximo || resta <= 0) {
+                        break;
+                    }
+                    Pedido p = fila.poll(resta, TimeUnit.NANOSECONDS);
+                    if (p == null) {
+                        break;
+                    }
+                    grupo.add(p);
+                }
+                // pedidos cujo chamador desistiu por prazo ficam de fora
+                grupo.removeIf(p -> !p.iniciado().compareAndSet(false, true));
+                if (!grupo.isEmpty()) {
+                    gravarProtegido(grupo);
+                }
+                grupo.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        fila.drainTo(grupo);
+        grupo.forEach(p -> p.resposta().completeExceptionally(
+                new ResponseStatusException(SERVICE_UNAVAILABLE, "Aplicação encerrando")));
+    }
+
+    // Nada que escape de um grupo derruba a thread: sem ela, todo POST de criação esperaria até o prazo
+    private void gravarProtegido(List<Pedido> grupo) {
+        try {
+            gravar(grupo);
+        } catch (Throwable t) {
+            log.error("Falha inesperada gravando grupo de {} criações", grupo.size(), t);
+            grupo.forEach(p -> p.resposta().completeExceptionally(t));
+        }
+    }
+
+    private void gravar(List<Pedido> grupo) {
+        tamanho.record(grupo.size());
+        try {
+            responder(grupo, lotes.criarIndependentes(grupo.stream().map(Pedido::operacao).toList()));
+            return;
+        } catch (RuntimeException e) {
+            if (grupo.size() == 1) {
+                grupo.get(0).resposta().completeExceptionally(e);
+                return;
+            }
+            log.warn("Transação agrupada de {} criações falhou, refazendo uma a uma: {}", grupo.size(), e.toString());
+            refeitos.increment();
+        }
+        for (Pedido p : grupo) {
+            try {
+                // o insert desfeito pode ter deixado o id gerado na entidade
+                if (p.operacao().produto() != null) {
+                    p.operacao().produto().setId_produto(null);
+                }
+                responder(List.of(p), lotes.criarIndependentes(List.of(p.operacao())));
+            } catch (RuntimeException e) {
+                p.resposta().completeExceptionally(e);
+            }
+        }
+    }
+
+    private static void responder(List<Pedido> grupo, List<Resultado> resultados) {
+        for (int i = 0; i < grupo.size(); i++) {
+            Resultado r = resultados.get(i);
+            if (r.erro() == null) {
+                grupo.get(i).resposta().complete(r.produto());
+            } else {
+                grupo.get(i).resposta().completeExceptionally(
+                        new ResponseStatusException(HttpStatus.valueOf(r.status()), r.erro()));
+            }
+        }
+    }
+
+    // Deixa o grupo em andamento terminar; os que ainda estão na fila recebem 503
+    @PreDestroy
+    void encerrar() throws InterruptedException {
+        encerrado = true;
+        if (gravacao != null) {
+            gravacao.join(Duration.ofSeconds(10));
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.estoque.estoque.Produto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -21,4 +22,34 @@ public class ProdutoDetalhesDTO {
     private int ponto_abastecimento;
 
     private String unidade_medida; // UNIABREV da UNIMEDIDA
+
+    // Referências do PRODUTO para quem ouve os ProdutoEvento (auditoria); fora do JSON
+    @JsonIgnore
+    private Long id_almoxarifado;
+    @JsonIgnore
+    private Long id_unmedida;
+
+    // sem as referências (testes, benchmarks)
+    public ProdutoDetalhesDTO(Long id_produto, String nomeProduto, String descricao_produto, String codg_barras_prod,
+                              Double temperatura_produto, int estoque_minimo, int estoque_maximo,
+                              int ponto_abastecimento, String unidade_medida) {
+        this(id_produto, nomeProduto, descricao_produto, codg_barras_prod, temperatura_produto,
+                estoque_minimo, estoque_maximo, ponto_abastecimento, unidade_medida, null, null);
+    }
+
+    public static ProdutoDetalhesDTO de(ProdutoModel p, String unidadeMedida) {
+        return new ProdutoDetalhesDTO(
+                p.getId_produto(),
+                p.getNomeProduto(),
+                p.getDescricao_produto(),
+                p.getCodg_barras_prod(),
+                p.getTemperatura_produto(),
+                p.getEstoque_minimo(),
+                p.getEstoque_maximo(),
+                p.getPonto_abastecimento(),
+                unidadeMedida,
+                p.getId_almoxarifado(),
+                p.getId_unmedida()
+        );
+    }
 }
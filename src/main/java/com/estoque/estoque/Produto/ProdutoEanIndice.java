@@ -0,0 +1,372 @@
+package com.estoque.estoque.Produto;
+
+import com.estoque.estoque.Infra.CargaNaSubida;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.StampedLock;
+
+import static com.estoque.estoque.Produto.ProdutoService.EAN_SERVICO_FIXO;
+
+/**
+ * Consulta por código de barras para os coletores, sem ir ao banco.
+ *
+ * O EAN-13 vira um long (13 dígitos cabem em 44 bits) e a tabela é de
+ * endereçamento aberto em arrays primitivos: chave, id e o JSON do
+ * {@link ProdutoDetalhesDTO} já serializado, nada de Long/Entry por item. A
+ * leitura é otimista ({@link StampedLock}): sem escrita no meio, não trava.
+ *
+ * Códigos que não são EAN-13 (legado) ficam num mapa à parte. O EAN fixo de
+ * serviço não entra: é de todos os serviços e não identifica um item.
+ * Carregado na subida e mantido pelos {@link ProdutoEvento} após o commit.
+ */
+@Component
+public class ProdutoEanIndice {
+
+    private static final Logger log = LoggerFactory.getLogger(ProdutoEanIndice.class);
+
+    private static final long VAZIO = -1L;
+
+    private final ProdutoRepository repo;
+    private final ObjectMapper mapper;
+    private final CargaNaSubida carga;
+    private final StampedLock lock = new StampedLock();
+
+    private volatile Tabela tabela = new Tabela(16);
+    private int tamanho;
+    // código -> {id, JSON}; códigos fora do padrão EAN-13, normalmente vazio
+    private final Map<String, Linha> outros = new HashMap<>();
+
+    private volatile boolean pronto;
+
+    public ProdutoEanIndice(ProdutoRepository repo, ObjectMapper mapper, CargaNaSubida carga) {
+        this.repo = repo;
+        this.mapper = mapper;
+        this.carga = carga;
+    }
+
+    public enum Situacao { ENCONTRADO, NAO_ENCONTRADO, INVALIDO, SERVICO }
+
+    /** Resultado da consulta; {@code json} só em ENCONTRADO. */
+    public record Resultado(Situacao situacao, byte[] json) {
+
+        static final Resultado NAO_ENCONTRADO = new Resultado(Situacao.NAO_ENCONTRADO, null);
+        static final Resultado INVALIDO = new Resultado(Situacao.INVALIDO, null);
+        static final Resultado SERVICO = new Resultado(Situacao.SERVICO, null);
+    }
+
+    private record Linha(long id, byte[] json) {
+    }
+
+    // Sondagem linear, capacidade potência de 2 e no máximo metade ocupada.
+    // Trocada inteira no crescimento: o leitor sempre vê arrays do mesmo tamanho.
+    private static final class Tabela {
+        final long[] chaves;
+        final long[] ids;
+        final byte[][] linhas;
+
+        Tabela(int capacidade) {
+            chaves = new long[capacidade];
+            ids = new long[capacidade];
+            linhas = new byte[capacidade][];
+            Arrays.fill(chaves, VAZIO);
+        }
+
+        int mascara() {
+            return chaves.length - 1;
+        }
+    }
+
+    private static int espalhar(long chave) {
+        long h = chave * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    // ===== CARGA / MANUTENÇÃO =====
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void aoSubir() {
+        carga.executar("o índice de EAN", this::carregar);
+    }
+
+    public void carregar() {
+        long stamp = lock.writeLock();
+        try {
+            long inicio = System.nanoTime();
+            List<ProdutoDetalhesDTO> todos = repo.listarComUnidade();
+            tabela = new Tabela(capacidadePara(todos.size()));
+            tamanho = 0;
+            outros.clear();
+            todos.forEach(this::incluir);
+            pronto = true;
+            log.info("Índice de EAN carregado: {} códigos em {} ms",
+                    tamanho + outros.size(), (System.nanoTime() - inicio) / 1_000_000);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @TransactionalEventListener
+    public void aoAlterar(ProdutoEvento evento) {
+        long stamp = lock.writeLock();
+        try {
+            if (evento.anterior() != null) {
+                excluir(evento.anterior().getCodg_barras_prod(), evento.id());
+            }
+            if (evento.atual() != null) {
+                incluir(evento.atual());
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public boolean isPronto() {
+        return pronto;
+    }
+
+    // ===== CONSULTA =====
+
+    /**
+     * Produto com o código informado. Código de 13 dígitos precisa ter o dígito
+     * verificador certo (senão INVALIDO); outros formatos são procurados como
+     * estão. O EAN de serviço responde SERVICO.
+     */
+    public Resultado buscar(String codigo) {
+        if (codigo == null || codigo.isBlank()) {
+            return Resultado.INVALIDO;
+        }
+        String c = codigo.strip();
+        if (EAN_SERVICO_FIXO.equals(c)) {
+            return Resultado.SERVICO;
+        }
+        long chave = ean13(c);
+        if (chave == VAZIO) {
+            // 13 dígitos com verificador errado: só se estiver gravado assim no legado
+            Resultado r = buscarOutro(c);
+            return r.json() == null && ehEan13(c) ? Resultado.INVALIDO : r;
+        }
+
+        long stamp = lock.tryOptimisticRead();
+        byte[] json = procurar(tabela, chave);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                json = procurar(tabela, chave);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return json == null ? Resultado.NAO_ENCONTRADO : new Resultado(Situacao.ENCONTRADO, json);
+    }
+
+    /**
+     * Vários códigos de uma vez, na ordem recebida:
+     * [{"ean": ..., "situacao": "encontrado", "produto": {...}}, ...].
+     * O JSON de cada produto entra como está na tabela.
+     */
+    public byte[] buscarVarios(List<String> codigos) {
+        var out = new ByteArrayOutputStream(256 * codigos.size() + 2);
+        try (JsonGenerator gen = mapper.getFactory().createGenerator(out)) {
+            gen.writeStartArray();
+            for (String codigo : codigos) {
+                Resultado r = buscar(codigo);
+                gen.writeStartObject();
+                gen.writeStringField("ean", codigo);
+                gen.writeStringField("situacao", r.situacao().name().toLowerCase(Locale.ROOT));
+                if (r.json() != null) {
+                    gen.writeFieldName("produto");
+                    gen.writeRawValue(new String(r.json(), StandardCharsets.UTF_8));
+                }
+                gen.writeEndObject();
+            }
+            gen.writeEndArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private Resultado buscarOutro(String codigo) {
+        long stamp = lock.readLock();
+        try {
+            Linha l = outros.get(codigo);
+            return l == null ? Resultado.NAO_ENCONTRADO : new Resultado(Situacao.ENCONTRADO, l.json());
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // Pode rodar junto com uma escrita (leitura otimista): só lê, e no máximo
+    // uma volta na tabela; quem chama descarta o resultado se o stamp não validar.
+    private static byte[] procurar(Tabela t, long chave) {
+        int m = t.mascara();
+        int i = espalhar(chave) & m;
+        for (int n = 0; n <= m; n++, i = (i + 1) & m) {
+            long k = t.chaves[i];
+            if (k == chave) {
+                return t.linhas[i];
+            }
+            if (k == VAZIO) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    // ===== EAN-13 =====
+
+    private static boolean ehEan13(String c) {
+        if (c.length() != 13) {
+            return false;
+        }
+        for (int i = 0; i < 13; i++) {
+            char d = c.charAt(i);
+            if (d < '0' || d > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** EAN-13 como número, ou VAZIO se não tem 13 dígitos ou o verificador não bate. */
+    static long ean13(String c) {
+        if (!ehEan13(c)) {
+            return VAZIO;
+        }
+        long valor = 0;
+        int soma = 0;
+        for (int i = 0; i < 12; i++) {
+            int d = c.charAt(i) - '0';
+            soma += (i % 2 == 0) ? d : d * 3;
+            valor = valor * 10 + d;
+        }
+        int verificador = c.charAt(12) - '0';
+        if ((10 - soma % 10) % 10 != verificador) {
+            return VAZIO;
+        }
+        return valor * 10 + verificador;
+    }
+
+    // ===== ESTRUTURAS (chamar com o writeLock) =====
+
+    private void incluir(ProdutoDetalhesDTO dto) {
+        String codigo = dto.getCodg_barras_prod() == null ? "" : dto.getCodg_barras_prod().strip();
+        if (codigo.isEmpty() || EAN_SERVICO_FIXO.equals(codigo)) {
+            return;
+        }
+        byte[] json;
+        try {
+            json = mapper.writeValueAsBytes(dto);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Falha ao serializar o produto " + dto.getId_produto(), e);
+        }
+        long id = dto.getId_produto();
+        long chave = ean13(codigo);
+        if (chave == VAZIO) {
+            outros.put(codigo, new Linha(id, json));
+            return;
+        }
+        if ((tamanho + 1) * 2 > tabela.chaves.length) {
+            tabela = redimensionar(tabela, tabela.chaves.length * 2);
+        }
+        Tabela t = tabela;
+        int m = t.mascara();
+        int i = espalhar(chave) & m;
+        while (t.chaves[i] != VAZIO && t.chaves[i] != chave) {
+            i = (i + 1) & m;
+        }
+        if (t.chaves[i] == VAZIO) {
+            tamanho++;
+        }
+        // linha antes da chave: leitor otimista nunca vê a chave com a linha de outro slot
+        t.ids[i] = id;
+        t.linhas[i] = json;
+        t.chaves[i] = chave;
+    }
+
+    // Só remove se o código ainda for do item: num lote, outro item pode já tê-lo assumido
+    private void excluir(String codigo, long id) {
+        if (codigo == null) {
+            return;
+        }
+        String c = codigo.strip();
+        long chave = ean13(c);
+        if (chave == VAZIO) {
+            outros.computeIfPresent(c, (k, l) -> l.id() == id ? null : l);
+            return;
+        }
+        Tabela t = tabela;
+        int m = t.mascara();
+        int i = espalhar(chave) & m;
+        while (t.chaves[i] != chave) {
+            if (t.chaves[i] == VAZIO) {
+                return;
+            }
+            i = (i + 1) & m;
+        }
+        if (t.ids[i] != id) {
+            return;
+        }
+        // remoção com deslocamento para trás: a sondagem continua sem lápides
+        int j = i;
+        while (true) {
+            j = (j + 1) & m;
+            long k = t.chaves[j];
+            if (k == VAZIO) {
+                break;
+            }
+            int ideal = espalhar(k) & m;
+            boolean fora = i <= j ? (ideal <= i || ideal > j) : (ideal <= i && ideal > j);
+            if (fora) {
+                t.chaves[i] = k;
+                t.ids[i] = t.ids[j];
+                t.linhas[i] = t.linhas[j];
+                i = j;
+            }
+        }
+        t.chaves[i] = VAZIO;
+        t.ids[i] = 0;
+        t.linhas[i] = null;
+        tamanho--;
+    }
+
+    private static Tabela redimensionar(Tabela velha, int capacidade) {
+        Tabela nova = new Tabela(capacidade);
+        int m = nova.mascara();
+        for (int s = 0; s < velha.chaves.length; s++) {
+            long k = velha.chaves[s];
+            if (k == VAZIO) {
+                continue;
+            }
+            int i = espalhar(k) & m;
+            while (nova.chaves[i] != VAZIO) {
+                i = (i + 1) & m;
+            }
+            nova.chaves[i] = k;
+            nova.ids[i] = velha.ids[s];
+            nova.linhas[i] = velha.linhas[s];
+        }
+        return nova;
+    }
+
+    private static int capacidadePara(int itens) {
+        return Math.max(16, Integer.highestOneBit(Math.max(1, itens) * 2 - 1) << 1);
+    }
+}
@@ -0,0 +1,29 @@
+package com.estoque.estoque.Produto;
+
+/**
+ * Mudança no catálogo publicada pelo {@link ProdutoService}.
+ *
+ * Os ouvintes devem usar {@code @TransactionalEventListener} para só reagir
+ * depois do commit. Em EXCLUIDO, {@code atual} é null.
+ */
+public record ProdutoEvento(
+        Tipo tipo,
+        Long id,
+        ProdutoDetalhesDTO atual,
+        ProdutoDetalhesDTO anterior
+) {
+
+    public enum Tipo { CRIADO, ATUALIZADO, EXCLUIDO }
+
+    public static ProdutoEvento criado(ProdutoDetalhesDTO atual) {
+        return new ProdutoEvento(Tipo.CRIADO, atual.getId_produto(), atual, null);
+    }
+
+    public static ProdutoEvento atualizado(ProdutoDetalhesDTO atual, ProdutoDetalhesDTO anterior) {
+        return new ProdutoEvento(Tipo.ATUALIZADO, atual.getId_produto(), atual, anterior);
+    }
+
+    public static ProdutoEvento excluido(ProdutoDetalhesDTO anterior) {
+        return new ProdutoEvento(Tipo.EXCLUIDO, anterior.getId_produto(), null, anterior);
+    }
+}
@@ -0,0 +1,249 @@
+package com.estoque.estoque.Produto;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter.SseEventBuilder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
+
+/**
+ * Difusão das alterações do catálogo por SSE (GET /api/produtos/eventos).
+ *
+ * Cada assinante tem uma fila própria limitada a {@code estoque.sse.buffer}
+ * eventos. Um assinante parado não ocupa thread: quando entra evento, uma
+ * thread virtual esvazia a fila dele e termina. Quem deixa a fila encher é
+ * desconectado; o EventSource reconecta com Last-Event-ID (a versão do
+ * catálogo) e recebe o que perdeu a partir do {@link ProdutoAlteracoes}, ou
+ * um evento "reset" se o diário já não cobre aquela versão.
+ *
+ * Eventos: criado / atualizado / excluido (id = versão), reset, e "conectado"
+ * com a versão atual logo após assinar.
+ */
+@Component
+public class ProdutoEventosSse {
+
+    private static final Logger log = LoggerFactory.getLogger(ProdutoEventosSse.class);
+
+    private final ProdutoAlteracoes alteracoes;
+    private final ProdutoCatalogoVersao versao;
+    private final ObjectMapper mapper;
+    private final int buffer;
+    private final int maximoAssinantes;
+    private final Duration timeout;
+    private final Duration batimento;
+
+    private final Set<Assinante> assinantes = ConcurrentHashMap.newKeySet();
+    private final ExecutorService envio = Executors.newVirtualThreadPerTaskExecutor();
+    private final ScheduledExecutorService relogio = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("sse-batimento").daemon().factory());
+    private final Counter lentos;
+
+    private static final Set<DataWithMediaType> BATIMENTO = montar(SseEmitter.event().comment(""));
+
+    public ProdutoEventosSse(ProdutoAlteracoes alteracoes,
+                             ProdutoCatalogoVersao versao,
+                             ObjectMapper mapper,
+                             MeterRegistry metricas,
+                             @Value("${estoque.sse.buffer:256}") int buffer,
+                             @Value("${estoque.sse.maximo-assinantes:5000}") int maximoAssinantes,
+                             @Value("${estoque.sse.timeout:PT30M}") Duration timeout,
+                             @Value("${estoque.sse.batimento:PT25S}") Duration batimento) {
+        this.alteracoes = alteracoes;
+        this.versao = versao;
+        this.mapper = mapper;
+        this.buffer = buffer;
+        this.maximoAssinantes = maximoAssinantes;
+        this.timeout = timeout;
+        this.batimento = batimento;
+
+        Gauge.builder("estoque.sse.assinantes", assinantes, Set::size)
+                .description("Conexões abertas em /api/produtos/eventos")
+                .register(metricas);
+        this.lentos = Counter.builder("estoque.sse.desconectados")
+                .description("Assinantes desconectados por encher a fila")
+                .tag("motivo", "lento")
+                .register(metricas);
+    }
+
+    private record Mensagem(ProdutoEvento.Tipo tipo, Long id, ProdutoDetalhesDTO produto) {
+    }
+
+    // Evento já montado (e com o JSON já escrito): o mesmo Set vai para todos os
+    // assinantes. build() acrescenta ao builder, então só pode ser chamado uma vez.
+    private static Set<DataWithMediaType> montar(SseEventBuilder e) {
+        return Collections.unmodifiableSet(e.build());
+    }
+
+    private static final class Assinante {
+        final SseEmitter emitter;
+        final Queue<Set<DataWithMediaType>> fila = new ConcurrentLinkedQueue<>();
+        final AtomicInteger tamanho = new AtomicInteger();
+        final AtomicBoolean agendado = new AtomicBoolean();
+        volatile boolean transbordou;
+
+        Assinante(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        void enfileirar(Set<DataWithMediaType> e) {
+            fila.add(e);
+            tamanho.incrementAndGet();
+        }
+    }
+
+    @PostConstruct
+    void iniciar() {
+        alteracoes.ouvir(this::distribuir);
+        long ms = batimento.toMillis();
+        relogio.scheduleAtFixedRate(this::baterCoracao, ms, ms, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void encerrar() {
+        relogio.shutdownNow();
+        assinantes.forEach(this::fechar);
+        envio.shutdown();
+    }
+
+    // ===== ASSINATURA =====
+
+    /**
+     * Nova conexão. Com {@code ultimoId} (Last-Event-ID), reenvia antes o que
+     * mudou depois daquela versão.
+     */
+    public SseEmitter assinar(Long ultimoId) {
+        if (assinantes.size() >= maximoAssinantes) {
+            throw new ResponseStatusException(SERVICE_UNAVAILABLE, "Limite de conexões em /api/produtos/eventos");
+        }
+        var a = new Assinante(new SseEmitter(timeout.toMillis()));
+        a.emitter.onCompletion(() -> assinantes.remove(a));
+        a.emitter.onTimeout(() -> fechar(a));
+        a.emitter.onError(e -> assinantes.remove(a));
+
+        alteracoes.acompanhar(ultimoId, reenvio -> {
+            if (ultimoId != null) {
+                reenvio.ifPresentOrElse(
+                        registros -> registros.forEach(r -> a.enfileirar(evento(r))),
+                        () -> a.enfileirar(montar(SseEmitter.event().name("reset").data(""))));
+            }
+            a.enfileirar(montar(SseEmitter.event()
+                    .id(String.valueOf(versao.atual()))
+                    .name("conectado")
+                    .data(String.valueOf(versao.atual()))));
+            assinantes.add(a);
+        });
+        agendar(a);
+        return a.emitter;
+    }
+
+    // ===== DISTRIBUIÇÃO =====
+
+    // Ouvinte do diário: roda com o lock dele, então só enfileira
+    private void distribuir(ProdutoAlteracoes.Registro r) {
+        if (assinantes.isEmpty()) {
+            return;
+        }
+        Set<DataWithMediaType> e = evento(r);
+        for (Assinante a : assinantes) {
+            if (a.tamanho.get() >= buffer) {
+                a.transbordou = true;
+            } else {
+                a.enfileirar(e);
+            }
+            agendar(a);
+        }
+    }
+
+    private Set<DataWithMediaType> evento(ProdutoAlteracoes.Registro r) {
+        String json;
+        try {
+            json = mapper.writeValueAsString(new Mensagem(r.tipo(), r.id(), r.atual()));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+        return montar(SseEmitter.event()
+                .id(String.valueOf(r.versao()))
+                .name(r.tipo().name().toLowerCase(Locale.ROOT))
+                .data(json));
+    }
+
+    // Comentário vazio para quem está quieto: mantém proxies abertos e revela conexões mortas
+    private void baterCoracao() {
+        for (Assinante a : assinantes) {
+            if (a.tamanho.get() == 0) {
+                a.enfileirar(BATIMENTO);
+                agendar(a);
+            }
+        }
+    }
+
+    private void agendar(Assinante a) {
+        if (a.agendado.compareAndSet(false, true)) {
+            try {
+                envio.execute(() -> drenar(a));
+            } catch (RejectedExecutionException e) {
+                a.agendado.set(false); // desligando
+            }
+        }
+    }
+
+    private void drenar(Assinante a) {
+        try {
+            while (true) {
+                if (a.transbordou) {
+                    lentos.increment();
+                    log.debug("Assinante SSE desconectado: fila cheia ({} eventos)", buffer);
+                    fechar(a);
+                    return;
+                }
+                Set<DataWithMediaType> e = a.fila.poll();
+                if (e == null) {
+                    a.agendado.set(false);
+                    // evento que chegou entre o poll e a liberação: reassume se ninguém pegou
+                    if (a.fila.isEmpty() || !a.agendado.compareAndSet(false, true)) {
+                        return;
+                    }
+                    continue;
+                }
+                a.tamanho.decrementAndGet();
+                a.emitter.send(e);
+            }
+        } catch (IOException | IllegalStateException e) {
+            // cliente foi embora (ou o emitter já terminou)
+            assinantes.remove(a);
+            a.agendado.set(false);
+        }
+    }
+
+    private void fechar(Assinante a) {
+        assinantes.remove(a);
+        try {
+            a.emitter.complete();
+        } catch (RuntimeException ignored) {
+            // já encerrado
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.estoque.estoque.Produto;
+
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.io.IOException;
+
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
+
+/**
+ * Violação de restrição do banco (ex.: NOME UNIQUE) que escapou das conferências
+ * em memória — por exemplo, gravada por outra instância. Vira 400 como as demais
+ * regras de unicidade, em vez de 500.
+ */
+@RestControllerAdvice(assignableTypes = {ProdutoController.class, ServicoController.class})
+public class ProdutoExceptionHandler {
+
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public void violacaoDeIntegridade(HttpServletResponse response) throws IOException {
+        response.sendError(BAD_REQUEST.value(), "Já existe produto com esse nome ou código de barras");
+    }
+}
@@ -0,0 +1,17 @@
+package com.estoque.estoque.Produto;
+
+import java.util.List;
+
+/**
+ * Resultado de DELETE /api/produtos e DELETE /api/produtos/nomes: quantos
+ * identificadores vieram (sem repetições), quantos produtos saíram e quais
+ * identificadores não acharam produto, na ordem do pedido.
+ */
+public record ProdutoExclusaoRelatorio<T>(
+        int solicitados,
+        int excluidos,
+        int lotes,
+        long duracaoMs,
+        List<T> ausentes
+) {
+}
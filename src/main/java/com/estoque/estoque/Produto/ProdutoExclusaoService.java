@@ -0,0 +1,106 @@
+package com.estoque.estoque.Produto;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Exclusão em massa por lista de ids ou de nomes.
+ *
+ * Em lotes de {@code estoque.produtos.exclusao.lote} identificadores, cada lote
+ * na sua transação: uma consulta traz os detalhes dos produtos encontrados (para
+ * os eventos) e um DELETE ... WHERE IDPRODUTO IN (...) apaga todos de uma vez.
+ * Entre lotes a conexão volta ao pool, então uma limpeza grande não segura as
+ * outras requisições. Um lote que falha desfaz só ele; os anteriores ficam.
+ *
+ * Cada produto apagado gera um EXCLUIDO, como no DELETE de um só: registro de
+ * unicidade, índices e diário se atualizam depois do commit do lote. O DELETE
+ * em massa do Hibernate descarta a região de ProdutoModel do cache de segundo
+ * nível e invalida as consultas em cache sobre PRODUTO.
+ *
+ * Nomes são comparados pela forma normalizada (coluna NOMENORM), como em
+ * DELETE /api/produtos/nome; todos os produtos com o nome saem.
+ */
+@Service
+public class ProdutoExclusaoService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProdutoExclusaoService.class);
+
+    private final ProdutoRepository repo;
+    private final ApplicationEventPublisher eventos;
+    private final TransactionTemplate tx;
+    private final int tamanhoLote;
+
+    public ProdutoExclusaoService(ProdutoRepository repo,
+                                  ApplicationEventPublisher eventos,
+                                  PlatformTransactionManager txManager,
+                                  @Value("${estoque.produtos.exclusao.lote:500}") int tamanhoLote) {
+        this.repo = repo;
+        this.eventos = eventos;
+        this.tx = new TransactionTemplate(txManager);
+        this.tamanhoLote = Math.max(1, tamanhoLote);
+    }
+
+    public ProdutoExclusaoRelatorio<Long> excluirPorIds(Collection<Long> ids) {
+        return excluir("ids", new LinkedHashSet<>(ids), repo::detalhesPorIds, ProdutoDetalhesDTO::getId_produto);
+    }
+
+    public ProdutoExclusaoRelatorio<String> excluirPorNomes(Collection<String> nomes) {
+        // chave normalizada -> nome como veio (o primeiro, se repetido), para o relatório
+        Map<String, String> pedidos = new LinkedHashMap<>();
+        for (String nome : nomes) {
+            pedidos.putIfAbsent(TextoNormalizador.normalizar(nome), nome);
+        }
+        var r = excluir("nomes", pedidos.keySet(), repo::detalhesPorNomes,
+                d -> TextoNormalizador.normalizar(d.getNomeProduto()));
+        return new ProdutoExclusaoRelatorio<>(r.solicitados(), r.excluidos(), r.lotes(), r.duracaoMs(),
+                r.ausentes().stream().map(pedidos::get).toList());
+    }
+
+    private <K> ProdutoExclusaoRelatorio<K> excluir(String tipo,
+                                                    Set<K> chaves,
+                                                    Function<List<K>, List<ProdutoDetalhesDTO>> consulta,
+                                                    Function<ProdutoDetalhesDTO, K> chaveDe) {
+        long inicio = System.nanoTime();
+        List<K> todas = List.copyOf(chaves);
+        Set<K> encontradas = new HashSet<>();
+        int excluidos = 0;
+        int lotes = 0;
+        for (int de = 0; de < todas.size(); de += tamanhoLote) {
+            List<K> lote = todas.subList(de, Math.min(todas.size(), de + tamanhoLote));
+            List<ProdutoDetalhesDTO> achados = tx.execute(status -> apagar(consulta.apply(lote)));
+            for (ProdutoDetalhesDTO d : achados) {
+                encontradas.add(chaveDe.apply(d));
+            }
+            excluidos += achados.size();
+            lotes++;
+        }
+        List<K> ausentes = todas.stream().filter(k -> !encontradas.contains(k)).toList();
+        long ms = (System.nanoTime() - inicio) / 1_000_000;
+        log.info("Exclusão por {}: {} pedidos, {} produtos excluídos, {} ausentes, {} lotes em {} ms",
+                tipo, todas.size(), excluidos, ausentes.size(), lotes, ms);
+        return new ProdutoExclusaoRelatorio<>(todas.size(), excluidos, lotes, ms, ausentes);
+    }
+
+    private List<ProdutoDetalhesDTO> apagar(List<ProdutoDetalhesDTO> achados) {
+        if (achados.isEmpty()) {
+            return achados;
+        }
+        int apagados = repo.excluirPorIds(achados.stream().map(ProdutoDetalhesDTO::getId_produto).toList());
+        if (apagados != achados.size()) {
+            // outra gravação apagou parte deles entre a consulta e o DELETE; o EXCLUIDO repetido é inofensivo
+            log.warn("Exclusão em massa: {} de {} produtos já tinham saído", achados.size() - apagados, achados.size());
+        }
+        for (ProdutoDetalhesDTO d : achados) {
+            eventos.publishEvent(ProdutoEvento.excluido(d));
+        }
+        return achados;
+    }
+}
@@ -0,0 +1,95 @@
+package com.estoque.estoque.Produto;
+
+import com.estoque.estoque.Produto.ProdutoImportService.Formato;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Exportação do catálogo completo (GET /api/produtos/export), na forma da
+ * lista detalhada: CSV com cabeçalho ou NDJSON, um produto por linha.
+ *
+ * As linhas saem do cursor do {@link ProdutoService#percorrerDetalhado} direto
+ * para a saída, sem montar a lista: a memória não cresce com o catálogo. Se o
+ * cliente desconecta, a próxima escrita falha, o cursor é fechado e a
+ * transação de leitura termina ali.
+ */
+@Service
+public class ProdutoExportService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProdutoExportService.class);
+
+    // Mesma ordem dos campos do ProdutoDetalhesDTO
+    private static final CsvSchema SCHEMA = CsvSchema.builder()
+            .addColumn("id_produto")
+            .addColumn("nomeProduto")
+            .addColumn("descricao_produto")
+            .addColumn("codg_barras_prod")
+            .addColumn("temperatura_produto")
+            .addColumn("estoque_minimo")
+            .addColumn("estoque_maximo")
+            .addColumn("ponto_abastecimento")
+            .addColumn("unidade_medida")
+            .build()
+            .withHeader();
+
+    private final ProdutoService produtos;
+    private final ObjectMapper json;
+    private final CsvMapper csv = new CsvMapper();
+
+    public ProdutoExportService(ProdutoService produtos, ObjectMapper json) {
+        this.produtos = produtos;
+        this.json = json;
+    }
+
+    /** Escreve o catálogo em {@code out} (sem fechá-lo) e devolve quantas linhas saíram. */
+    public long exportar(Formato formato, OutputStream out) throws IOException {
+        long inicio = System.nanoTime();
+        long[] linhas = {0};
+        try (SequenceWriter escritor = escritor(formato, out)) {
+            produtos.percorrerDetalhado(dto -> {
+                try {
+                    escritor.write(dto);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                linhas[0]++;
+            });
+        } catch (UncheckedIOException e) {
+            log.info("Exportação {} interrompida após {} linhas: {}", formato, linhas[0], e.getCause().toString());
+            throw e.getCause();
+        }
+        if (formato == Formato.NDJSON && linhas[0] > 0) {
+            out.write('\n');
+        }
+        log.info("Exportação {}: {} linhas em {} ms", formato, linhas[0], (System.nanoTime() - inicio) / 1_000_000);
+        return linhas[0];
+    }
+
+    // Sem flush por linha: o gerador esvazia o buffer dele na saída conforme enche
+    private SequenceWriter escritor(Formato formato, OutputStream out) throws IOException {
+        if (formato == Formato.CSV) {
+            return csv.writerFor(ProdutoDetalhesDTO.class)
+                    .with(SCHEMA)
+                    .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                    .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                    .writeValues(out);
+        }
+        // NDJSON: separador entre objetos; o \n da última linha sai no fim
+        return json.writerFor(ProdutoDetalhesDTO.class)
+                .withRootValueSeparator("\n")
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .writeValues(out);
+    }
+}
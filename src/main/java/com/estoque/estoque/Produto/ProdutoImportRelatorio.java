@@ -0,0 +1,21 @@
+package com.estoque.estoque.Produto;
+
+import java.util.List;
+
+/**
+ * Resultado de POST /api/produtos/import: contagens, vazão e os erros por linha
+ * (linha 1 = primeira linha do corpo, inclusive o cabeçalho do CSV).
+ */
+public record ProdutoImportRelatorio(
+        long lidas,
+        long importadas,
+        long rejeitadas,
+        int lotes,
+        long duracaoMs,
+        double linhasPorSegundo,
+        List<ErroLinha> erros
+) {
+
+    public record ErroLinha(long linha, String mensagem) {
+    }
+}
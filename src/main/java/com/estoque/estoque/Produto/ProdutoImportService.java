@@ -0,0 +1,339 @@
+package com.estoque.estoque.Produto;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Consumer;
+
+import static com.estoque.estoque.Produto.ProdutoService.EAN_SERVICO_FIXO;
+
+/**
+ * Importação em lote de produtos (CSV com cabeçalho ou NDJSON, um registro por linha).
+ *
+ * O corpo é lido em fluxo e processado em lotes: NDJSON linha a linha; CSV registro
+ * a registro pelo parser do CsvMapper, então campos entre aspas podem ter quebra
+ * de linha (como os que o export gera). Cada lote valida as linhas
+ * com as mesmas regras do {@link ProdutoService#criar}, confere nome e EAN com
+ * uma consulta por lote (não por linha), reserva os dois no
+ * {@link ProdutoUnicidadeRegistro} como as outras gravações e grava tudo numa
+ * transação só.
+ * Linhas com erro são puladas e vão para o relatório; as demais seguem.
+ */
+@Service
+public class ProdutoImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProdutoImportService.class);
+
+    public enum Formato { CSV, NDJSON }
+
+    private final ProdutoRepository repo;
+    private final ProdutoService produtos;
+    private final ProdutoUnicidadeRegistro unicidade;
+    private final ApplicationEventPublisher eventos;
+    private final TransactionTemplate tx;
+    private final Validator validator;
+    private final ObjectMapper json;
+    private final CsvMapper csv;
+    private final int tamanhoLote;
+
+    public ProdutoImportService(ProdutoRepository repo,
+                                ProdutoService produtos,
+                                ProdutoUnicidadeRegistro unicidade,
+                                ApplicationEventPublisher eventos,
+                                PlatformTransactionManager txManager,
+                                Validator validator,
+                                ObjectMapper json,
+                                @Value("${estoque.import.tamanho-lote:500}") int tamanhoLote) {
+        this.repo = repo;
+        this.produtos = produtos;
+        this.unicidade = unicidade;
+        this.eventos = eventos;
+        this.tx = new TransactionTemplate(txManager);
+        this.validator = validator;
+        this.json = json;
+        this.csv = CsvMapper.builder()
+                .enable(CsvParser.Feature.EMPTY_STRING_AS_NULL)
+                .enable(CsvParser.Feature.SKIP_EMPTY_LINES)
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .build();
+        this.tamanhoLote = tamanhoLote;
+    }
+
+    private record Linha(long numero, ProdutoModel produto) {
+    }
+
+    // Estado de uma importação em andamento
+    private static final class Execucao {
+        long lidas;
+        long importadas;
+        int lotes;
+        final List<ProdutoImportRelatorio.ErroLinha> erros = new ArrayList<>();
+        // nomes (forma do TextoNormalizador, como a coluna NOMENORM) e EANs já aceitos nesta importação
+        final Set<String> nomes = new HashSet<>();
+        final Set<String> eans = new HashSet<>();
+
+        void erro(long linha, String mensagem) {
+            erros.add(new ProdutoImportRelatorio.ErroLinha(linha, mensagem));
+        }
+    }
+
+    public ProdutoImportRelatorio importar(InputStream corpo, Formato formato) throws IOException {
+        long inicio = System.nanoTime();
+        var exec = new Execucao();
+        List<Linha> lote = new ArrayList<>(tamanhoLote);
+        Consumer<Linha> acumular = l -> {
+            lote.add(l);
+            if (lote.size() == tamanhoLote) {
+                processarLote(lote, exec);
+                lote.clear();
+            }
+        };
+
+        var in = new BufferedReader(new InputStreamReader(corpo, StandardCharsets.UTF_8));
+        if (formato == Formato.NDJSON) {
+            lerNdjson(in, exec, acumular);
+        } else {
+            lerCsv(in, exec, acumular);
+        }
+        if (!lote.isEmpty()) {
+            processarLote(lote, exec);
+        }
+
+        long duracaoNs = System.nanoTime() - inicio;
+        double porSegundo = duracaoNs > 0 ? exec.lidas * 1_000_000_000.0 / duracaoNs : 0;
+        log.info("Importação {}: {} lidas, {} importadas, {} rejeitadas em {} ms",
+                formato, exec.lidas, exec.importadas, exec.erros.size(), duracaoNs / 1_000_000);
+
+        exec.erros.sort(Comparator.comparingLong(ProdutoImportRelatorio.ErroLinha::linha));
+        return new ProdutoImportRelatorio(exec.lidas, exec.importadas, exec.erros.size(),
+                exec.lotes, duracaoNs / 1_000_000, porSegundo, List.copyOf(exec.erros));
+    }
+
+    // ===== LEITURA =====
+
+    private void lerNdjson(BufferedReader in, Execucao exec, Consumer<Linha> destino) throws IOException {
+        ObjectReader leitor = json.readerFor(ProdutoModel.class);
+        long numero = 0;
+        String texto;
+        while ((texto = in.readLine()) != null) {
+            numero++;
+            if (texto.isBlank()) {
+                continue;
+            }
+            exec.lidas++;
+            ProdutoModel p;
+            try {
+                p = leitor.readValue(texto);
+            } catch (JsonProcessingException e) {
+                exec.erro(numero, "Linha inválida: " + e.getOriginalMessage());
+                continue;
+            }
+            destino.accept(new Linha(numero, p));
+        }
+    }
+
+    // Cabeçalho (nomes dos campos do JSON) na primeira linha não vazia; os registros
+    // saem do parser, que conta as linhas a partir da seguinte. O número informado
+    // é o da linha onde o registro começa.
+    private void lerCsv(BufferedReader in, Execucao exec, Consumer<Linha> destino) throws IOException {
+        long cabecalho = 0;
+        String texto;
+        do {
+            texto = in.readLine();
+            cabecalho++;
+        } while (texto != null && texto.isBlank());
+        if (texto == null) {
+            return;
+        }
+
+        try (MappingIterator<ProdutoModel> registros = leitorCsv(texto).readValues(in)) {
+            while (true) {
+                try {
+                    if (!registros.hasNextValue()) {
+                        break;
+                    }
+                } catch (JsonProcessingException e) {
+                    // estrutura quebrada (ex.: aspas sem fechar): o parser não tem como seguir
+                    long linha = e.getLocation() != null ? cabecalho + e.getLocation().getLineNr() : cabecalho;
+                    exec.erro(linha, "CSV inválido: " + e.getOriginalMessage());
+                    break;
+                }
+                long numero = cabecalho + registros.getParser().currentLocation().getLineNr();
+                exec.lidas++;
+                ProdutoModel p;
+                try {
+                    p = registros.nextValue();
+                } catch (JsonProcessingException e) {
+                    // o iterador pula o resto do registro e segue no próximo
+                    exec.erro(numero, "Linha inválida: " + e.getOriginalMessage());
+                    continue;
+                }
+                destino.accept(new Linha(numero, p));
+            }
+        }
+    }
+
+    private ObjectReader leitorCsv(String cabecalho) throws IOException {
+        String[] colunas = csv.readerFor(String[].class)
+                .with(CsvParser.Feature.WRAP_AS_ARRAY)
+                .<String[]>readValues(cabecalho)
+                .next();
+        var schema = CsvSchema.builder();
+        for (String c : colunas) {
+            schema.addColumn(c.strip());
+        }
+        return csv.readerFor(ProdutoModel.class).with(schema.build());
+    }
+
+    // ===== LOTE =====
+
+    private void processarLote(List<Linha> lote, Execucao exec) {
+        exec.lotes++;
+
+        // 1) regras que não dependem do banco
+        List<Linha> validas = new ArrayList<>(lote.size());
+        for (Linha l : lote) {
+            String erro = validar(l.produto());
+            if (erro != null) {
+                exec.erro(l.numero(), erro);
+            } else {
+                validas.add(l);
+            }
+        }
+        if (validas.isEmpty()) {
+            return;
+        }
+
+        // 2) unicidade por conjunto + gravação, na mesma transação
+        try {
+            aplicar(tx.execute(status -> gravar(validas, exec)), exec);
+        } catch (DataAccessException e) {
+            // alguma linha bateu numa restrição do banco: refaz uma a uma para isolar
+            log.warn("Lote com {} linhas falhou ({}), gravando linha a linha", validas.size(), e.getMessage());
+            for (Linha l : validas) {
+                l.produto().setId_produto(null); // id atribuído na tentativa desfeita
+                try {
+                    aplicar(tx.execute(status -> gravar(List.of(l), exec)), exec);
+                } catch (DataAccessException ex) {
+                    exec.erro(l.numero(), "Erro ao gravar: " + ex.getMostSpecificCause().getMessage());
+                }
+            }
+        }
+    }
+
+    // O que uma transação de gravação produziu; só entra na Execucao depois do commit
+    private record Resultado(int gravadas,
+                             List<ProdutoImportRelatorio.ErroLinha> erros,
+                             Set<String> nomes,
+                             Set<String> eans) {
+    }
+
+    private static void aplicar(Resultado r, Execucao exec) {
+        exec.importadas += r.gravadas();
+        exec.erros.addAll(r.erros());
+        exec.nomes.addAll(r.nomes());
+        exec.eans.addAll(r.eans());
+    }
+
+    private Resultado gravar(List<Linha> linhas, Execucao exec) {
+        Set<String> nomes = new HashSet<>();
+        Set<String> eans = new HashSet<>();
+        for (Linha l : linhas) {
+            nomes.add(chaveNome(l.produto()));
+            if (!EAN_SERVICO_FIXO.equals(l.produto().getCodg_barras_prod())) {
+                eans.add(l.produto().getCodg_barras_prod());
+            }
+        }
+        Set<String> nomesNoBanco = new HashSet<>(repo.nomesExistentes(nomes));
+        Set<String> eansNoBanco = eans.isEmpty() ? Set.of() : new HashSet<>(repo.codigosExistentes(eans));
+
+        var r = new Resultado(0, new ArrayList<>(), new HashSet<>(), new HashSet<>());
+        List<ProdutoModel> novos = new ArrayList<>(linhas.size());
+        for (Linha l : linhas) {
+            ProdutoModel p = l.produto();
+            String nome = chaveNome(p);
+            String ean = p.getCodg_barras_prod();
+            boolean eanServico = EAN_SERVICO_FIXO.equals(ean);
+
+            if (nomesNoBanco.contains(nome) || exec.nomes.contains(nome) || r.nomes().contains(nome)) {
+                r.erros().add(new ProdutoImportRelatorio.ErroLinha(l.numero(), "Já existe produto com esse nome"));
+            } else if (!eanServico && (eansNoBanco.contains(ean) || exec.eans.contains(ean) || r.eans().contains(ean))) {
+                r.erros().add(new ProdutoImportRelatorio.ErroLinha(l.numero(), "Já existe produto com este código de barras"));
+            } else if (!unicidade.reservar(null, p.getNomeProduto(), ean)) {
+                // POST/PUT/lote concorrente com o mesmo nome ou EAN ainda não commitado
+                r.erros().add(new ProdutoImportRelatorio.ErroLinha(l.numero(),
+                        "Nome ou código de barras em uso por outra gravação em andamento"));
+            } else {
+                r.nomes().add(nome);
+                if (!eanServico) {
+                    r.eans().add(ean);
+                }
+                novos.add(p);
+            }
+        }
+
+        for (ProdutoModel salvo : repo.saveAll(novos)) {
+            eventos.publishEvent(ProdutoEvento.criado(produtos.detalhes(salvo)));
+        }
+        return new Resultado(novos.size(), r.erros(), r.nomes(), r.eans());
+    }
+
+    // Mesmas normalizações e regras do ProdutoService.criar; devolve a mensagem de erro ou null
+    private String validar(ProdutoModel p) {
+        if (p.getId_produto() != null) {
+            return "ID não deve ser informado na criação";
+        }
+        if (p.getNomeProduto() != null) {
+            p.setNomeProduto(p.getNomeProduto().trim());
+        }
+        if (p.getCodg_barras_prod() != null) {
+            p.setCodg_barras_prod(p.getCodg_barras_prod().trim());
+        }
+
+        Set<ConstraintViolation<ProdutoModel>> violacoes = validator.validate(p);
+        if (!violacoes.isEmpty()) {
+            return violacoes.stream()
+                    .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                    .sorted()
+                    .reduce((a, b) -> a + "; " + b)
+                    .orElseThrow();
+        }
+        if (p.getCodg_barras_prod().isBlank()) {
+            return "Código de barras é obrigatório";
+        }
+        try {
+            ProdutoService.validarRegras(p);
+        } catch (ResponseStatusException e) {
+            return e.getReason();
+        }
+        return null;
+    }
+
+    // mesma chave da coluna NOMENORM e do registro de unicidade
+    private static String chaveNome(ProdutoModel p) {
+        return TextoNormalizador.normalizar(p.getNomeProduto());
+    }
+}
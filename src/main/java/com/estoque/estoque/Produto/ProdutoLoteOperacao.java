@@ -0,0 +1,28 @@
+package com.estoque.estoque.Produto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Uma operação de POST /api/produtos/batch.
+ *
+ * - criar: {@code produto}
+ * - atualizar: {@code id} + {@code produto}
+ * - excluir: {@code id}
+ * - criarServico: {@code servico}
+ * - atualizarServico: {@code id} + {@code servico}
+ */
+public record ProdutoLoteOperacao(
+        Tipo op,
+        Long id,
+        ProdutoModel produto,
+        ServicoRequest servico
+) {
+
+    public enum Tipo {
+        @JsonProperty("criar") CRIAR,
+        @JsonProperty("atualizar") ATUALIZAR,
+        @JsonProperty("excluir") EXCLUIR,
+        @JsonProperty("criarServico") CRIAR_SERVICO,
+        @JsonProperty("atualizarServico") ATUALIZAR_SERVICO
+    }
+}
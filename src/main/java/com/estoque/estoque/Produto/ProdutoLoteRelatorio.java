@@ -0,0 +1,23 @@
+package com.estoque.estoque.Produto;
+
+import java.util.List;
+
+/**
+ * Resposta de POST /api/produtos/batch: um resultado por operação, na ordem
+ * do pedido. Com {@code aplicado = false} nada foi gravado e os resultados
+ * com {@code erro} dizem o que impediu.
+ */
+public record ProdutoLoteRelatorio(
+        boolean aplicado,
+        int operacoes,
+        int erros,
+        List<Resultado> resultados
+) {
+
+    /**
+     * {@code status} segue o endpoint equivalente: 201 criado, 200 alterado,
+     * 204 excluído, 400/404 erro. {@code produto} é o estado final gravado.
+     */
+    public record Resultado(int indice, int status, Long id, ProdutoModel produto, String erro) {
+    }
+}
@@ -0,0 +1,477 @@
+package com.estoque.estoque.Produto;
+
+import com.estoque.estoque.Produto.ProdutoLoteRelatorio.Resultado;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.*;
+
+import static com.estoque.estoque.Produto.ProdutoService.EAN_SERVICO_FIXO;
+import static org.springframework.http.HttpStatus.*;
+
+/**
+ * Lote de criações, alterações e exclusões de produtos e serviços, aplicado
+ * numa transação só (POST /api/produtos/batch).
+ *
+ * Os ids citados são lidos com uma consulta; nome e EAN são conferidos no
+ * registro de unicidade (ou, enquanto ele não carregou, com mais uma consulta
+ * para o lote todo). As operações são validadas em ordem sobre o estado que o
+ * próprio lote vai deixando, com as mesmas regras do {@link ProdutoService}.
+ * Se alguma falhar, nada é gravado; senão exclusões, alterações e criações vão
+ * para o banco em lotes JDBC.
+ */
+@Service
+public class ProdutoLoteService {
+
+    static final int MAXIMO_OPERACOES = 1000;
+
+    // dono "ninguém" nos mapas do lote (nome/EAN liberado por uma operação anterior)
+    private static final long LIVRE = 0L;
+
+    // nome de passagem de um item num ciclo de trocas de nome (cabe nos 50 de NOME)
+    private static final String NOME_PROVISORIO = "~lote~";
+
+    private final ProdutoRepository repo;
+    private final ProdutoService produtos;
+    private final ProdutoUnicidadeRegistro unicidade;
+    private final ApplicationEventPublisher eventos;
+    private final Validator validator;
+
+    public ProdutoLoteService(ProdutoRepository repo,
+                              ProdutoService produtos,
+                              ProdutoUnicidadeRegistro unicidade,
+                              ApplicationEventPublisher eventos,
+                              Validator validator) {
+        this.repo = repo;
+        this.produtos = produtos;
+        this.unicidade = unicidade;
+        this.eventos = eventos;
+        this.validator = validator;
+    }
+
+    @Transactional
+    public ProdutoLoteRelatorio aplicar(List<ProdutoLoteOperacao> operacoes) {
+        if (operacoes == null || operacoes.isEmpty()) {
+            throw new ResponseStatusException(BAD_REQUEST, "Informe ao menos uma operação");
+        }
+        if (operacoes.size() > MAXIMO_OPERACOES) {
+            throw new ResponseStatusException(BAD_REQUEST, "No máximo " + MAXIMO_OPERACOES + " operações por lote");
+        }
+
+        var plano = new Plano(operacoes, false);
+        String[] erros = new String[operacoes.size()];
+        int[] status = new int[operacoes.size()];
+        int falhas = 0;
+        for (int i = 0; i < operacoes.size(); i++) {
+            try {
+                plano.validar(i, operacoes.get(i));
+            } catch (ResponseStatusException e) {
+                erros[i] = e.getReason();
+                status[i] = e.getStatusCode().value();
+                falhas++;
+            }
+        }
+
+        List<Resultado> resultados = new ArrayList<>(operacoes.size());
+        if (falhas > 0) {
+            for (int i = 0; i < operacoes.size(); i++) {
+                Long id = operacoes.get(i) != null ? operacoes.get(i).id() : null;
+                resultados.add(erros[i] != null
+                        ? new Resultado(i, status[i], id, null, erros[i])
+                        : new Resultado(i, FAILED_DEPENDENCY.value(), id, null,
+                                "Não aplicada: outra operação do lote falhou"));
+            }
+            return new ProdutoLoteRelatorio(false, operacoes.size(), falhas, resultados);
+        }
+
+        plano.gravar();
+        for (int i = 0; i < operacoes.size(); i++) {
+            resultados.add(plano.resultado(i, operacoes.get(i)));
+        }
+        return new ProdutoLoteRelatorio(true, operacoes.size(), 0, resultados);
+    }
+
+    /**
+     * Criações independentes entre si ({@link ProdutoCriacaoAgrupada}): cada uma
+     * é validada em ordem, como se as anteriores já estivessem gravadas; as que
+     * falham ficam de fora com o próprio erro e as outras vão juntas para o banco.
+     * Só aceita {@code criar} e {@code criarServico}.
+     */
+    @Transactional
+    public List<Resultado> criarIndependentes(List<ProdutoLoteOperacao> criacoes) {
+        var plano = new Plano(criacoes, true);
+        Resultado[] falhas = new Resultado[criacoes.size()];
+        for (int i = 0; i < criacoes.size(); i++) {
+            var op = criacoes.get(i);
+            try {
+                if (op.op() != ProdutoLoteOperacao.Tipo.CRIAR && op.op() != ProdutoLoteOperacao.Tipo.CRIAR_SERVICO) {
+                    throw new IllegalArgumentException("Operação não é de criação: " + op.op());
+                }
+                plano.validar(i, op);
+            } catch (ResponseStatusException e) {
+                falhas[i] = new Resultado(i, e.getStatusCode().value(), null, null, e.getReason());
+            }
+        }
+
+        plano.gravar();
+        List<Resultado> resultados = new ArrayList<>(criacoes.size());
+        for (int i = 0; i < criacoes.size(); i++) {
+            resultados.add(falhas[i] != null ? falhas[i] : plano.resultado(i, criacoes.get(i)));
+        }
+        return resultados;
+    }
+
+    // Estado do catálogo conforme o lote avança (nada vai ao banco antes de gravar())
+    private final class Plano {
+
+        // entidades gerenciadas dos ids citados
+        private final Map<Long, ProdutoModel> linhas = new HashMap<>();
+        // DTO de antes do lote, para os eventos
+        private final Map<Long, ProdutoDetalhesDTO> anteriores = new HashMap<>();
+        // estado final dos alterados (cópias soltas) e ids excluídos
+        private final Map<Long, ProdutoModel> alterados = new LinkedHashMap<>();
+        private final Set<Long> excluidos = new LinkedHashSet<>();
+        // índice da operação -> item novo
+        private final Map<Integer, ProdutoModel> criados = new LinkedHashMap<>();
+
+        // nome normalizado / EAN -> dono depois das operações já validadas
+        // (id, -(índice+1) para criados no lote, LIVRE)
+        private final Map<String, Long> nomesLote = new HashMap<>();
+        private final Map<String, Long> codigosLote = new HashMap<>();
+
+        // donos no banco, só quando o registro em memória não está pronto
+        private final Map<String, Long> nomesBanco = new HashMap<>();
+        private final Map<String, Long> codigosBanco = new HashMap<>();
+
+        // criações independentes: reserva nome/EAN já na validação, para uma
+        // reserva negada derrubar só a própria operação
+        private final boolean reservarNaValidacao;
+
+        Plano(List<ProdutoLoteOperacao> operacoes, boolean reservarNaValidacao) {
+            this.reservarNaValidacao = reservarNaValidacao;
+            Set<Long> ids = new HashSet<>();
+            Set<String> nomes = new HashSet<>();
+            Set<String> eans = new HashSet<>();
+            for (ProdutoLoteOperacao op : operacoes) {
+                if (op == null) {
+                    continue;
+                }
+                if (op.id() != null) {
+                    ids.add(op.id());
+                }
+                if (op.produto() != null) {
+                    adicionarNome(nomes, op.produto().getNomeProduto());
+                    if (op.produto().getCodg_barras_prod() != null) {
+                        eans.add(op.produto().getCodg_barras_prod().trim());
+                    }
+                }
+                if (op.servico() != null) {
+                    adicionarNome(nomes, op.servico().nomeProduto());
+                }
+            }
+
+            if (!ids.isEmpty()) {
+                for (ProdutoModel p : repo.findAllById(ids)) {
+                    linhas.put(p.getId_produto(), p);
+                }
+            }
+            if (!unicidade.isPronto() && (!nomes.isEmpty() || !eans.isEmpty())) {
+                // "in ()" vazio não é SQL válido em todo banco
+                for (ProdutoChavesDTO c : repo.chavesPorNomeOuCodigo(
+                        nomes.isEmpty() ? List.of("") : nomes, eans.isEmpty() ? List.of("") : eans)) {
+                    nomesBanco.put(TextoNormalizador.normalizar(c.nome()), c.id());
+                    if (c.codigo() != null && !EAN_SERVICO_FIXO.equals(c.codigo())) {
+                        codigosBanco.put(c.codigo(), c.id());
+                    }
+                }
+            }
+        }
+
+        private static void adicionarNome(Set<String> nomes, String nome) {
+            if (nome != null && !nome.isBlank()) {
+                nomes.add(TextoNormalizador.normalizar(nome));
+            }
+        }
+
+        // ===== VALIDAÇÃO =====
+
+        void validar(int i, ProdutoLoteOperacao op) {
+            if (op == null || op.op() == null) {
+                throw new ResponseStatusException(BAD_REQUEST, "Operação inválida: informe op");
+            }
+            switch (op.op()) {
+                case CRIAR -> criar(i, exigir(op.produto(), "produto"));
+                case ATUALIZAR -> atualizar(exigirId(op), exigir(op.produto(), "produto"));
+                case EXCLUIR -> excluir(exigirId(op));
+                case CRIAR_SERVICO -> criarServico(i, validarServico(exigir(op.servico(), "servico")));
+                case ATUALIZAR_SERVICO -> atualizarServico(exigirId(op), validarServico(exigir(op.servico(), "servico")));
+            }
+        }
+
+        private void criar(int i, ProdutoModel p) {
+            if (p.getId_produto() != null) {
+                throw new ResponseStatusException(BAD_REQUEST, "ID não deve ser informado na criação");
+            }
+            if (p.getNomeProduto() != null) {
+                p.setNomeProduto(p.getNomeProduto().trim());
+            }
+            if (p.getCodg_barras_prod() != null) {
+                p.setCodg_barras_prod(p.getCodg_barras_prod().trim());
+            }
+            validarBean(p);
+            String ean = p.getCodg_barras_prod();
+            if (ean.isBlank()) {
+                throw new ResponseStatusException(BAD_REQUEST, "Código de barras é obrigatório");
+            }
+            conferirNome(p.getNomeProduto(), null, "Já existe produto com esse nome");
+            conferirCodigo(ean, null);
+            ProdutoService.validarRegras(p);
+            if (reservarNaValidacao) {
+                reservar(null, p);
+            }
+
+            tomar(p.getNomeProduto(), ean, -(i + 1L));
+            criados.put(i, p);
+        }
+
+        private void atualizar(Long id, ProdutoModel body) {
+            ProdutoModel atual = estado(id);
+            String nome = body.getNomeProduto() != null ? body.getNomeProduto().trim() : null;
+            if (nome == null || nome.isBlank()) {
+                throw new ResponseStatusException(BAD_REQUEST, "Nome é obrigatório");
+            }
+            String ean = body.getCodg_barras_prod();
+            if (ean == null || ean.isBlank()) {
+                throw new ResponseStatusException(BAD_REQUEST, "Código de barras é obrigatório");
+            }
+            validarBean(body);
+            conferirNome(nome, id, "Já existe produto com esse nome");
+            conferirCodigo(ean, id);
+
+            ProdutoModel novo = copia(atual);
+            ProdutoService.aplicarCampos(novo, body, nome, ean);
+            ProdutoService.validarRegras(novo);
+
+            liberar(atual);
+            tomar(nome, ean, id);
+            alterados.put(id, novo);
+        }
+
+        private void excluir(Long id) {
+            ProdutoModel atual = estado(id);
+            liberar(atual);
+            alterados.remove(id);
+            excluidos.add(id);
+        }
+
+        private void criarServico(int i, ServicoRequest in) {
+            String nome = in.nomeProduto().trim();
+            conferirNome(nome, null, "Já existe item com esse nome");
+
+            var m = new ProdutoModel();
+            ProdutoService.aplicarServico(m, nome, in);
+            if (reservarNaValidacao) {
+                reservar(null, m);
+            }
+            tomar(nome, EAN_SERVICO_FIXO, -(i + 1L));
+            criados.put(i, m);
+        }
+
+        private void atualizarServico(Long id, ServicoRequest in) {
+            ProdutoModel atual = estado(id);
+            String nome = in.nomeProduto().trim();
+            conferirNome(nome, id, "Já existe item com esse nome");
+
+            ProdutoModel novo = copia(atual);
+            ProdutoService.aplicarServico(novo, nome, in);
+            liberar(atual);
+            tomar(nome, EAN_SERVICO_FIXO, id);
+            alterados.put(id, novo);
+        }
+
+        // Estado do item depois das operações anteriores do lote
+        private ProdutoModel estado(Long id) {
+            ProdutoModel p = excluidos.contains(id) ? null : alterados.getOrDefault(id, linhas.get(id));
+            if (p == null) {
+                throw new ResponseStatusException(NOT_FOUND, "Produto não encontrado");
+            }
+            anteriores.computeIfAbsent(id, k -> produtos.detalhes(linhas.get(k)));
+            return p;
+        }
+
+        private static <T> T exigir(T valor, String campo) {
+            if (valor == null) {
+                throw new ResponseStatusException(BAD_REQUEST, "Informe " + campo);
+            }
+            return valor;
+        }
+
+        private static Long exigirId(ProdutoLoteOperacao op) {
+            return exigir(op.id(), "id");
+        }
+
+        private ServicoRequest validarServico(ServicoRequest in) {
+            validarBean(in);
+            return in;
+        }
+
+        private <T> void validarBean(T objeto) {
+            Set<ConstraintViolation<T>> violacoes = validator.validate(objeto);
+            if (!violacoes.isEmpty()) {
+                throw new ResponseStatusException(BAD_REQUEST, violacoes.stream()
+                        .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                        .sorted()
+                        .reduce((a, b) -> a + "; " + b)
+                        .orElseThrow());
+            }
+        }
+
+        private static ProdutoModel copia(ProdutoModel p) {
+            var c = new ProdutoModel();
+            c.setId_produto(p.getId_produto());
+            ProdutoService.aplicarCampos(c, p, p.getNomeProduto(), p.getCodg_barras_prod());
+            return c;
+        }
+
+        // ===== UNICIDADE =====
+
+        private void conferirNome(String nome, Long id, String mensagem) {
+            String chave = TextoNormalizador.normalizar(nome);
+            Long dono = nomesLote.containsKey(chave)
+                    ? nomesLote.get(chave)
+                    : donoNoCatalogo(chave, nome);
+            if (dono != null && dono != LIVRE && !dono.equals(id)) {
+                throw new ResponseStatusException(BAD_REQUEST, mensagem);
+            }
+        }
+
+        private Long donoNoCatalogo(String chave, String nome) {
+            return unicidade.isPronto() ? unicidade.donoDoNome(nome).orElse(null) : nomesBanco.get(chave);
+        }
+
+        private void conferirCodigo(String ean, Long id) {
+            if (EAN_SERVICO_FIXO.equals(ean)) {
+                return;
+            }
+            Long dono = codigosLote.containsKey(ean)
+                    ? codigosLote.get(ean)
+                    : (unicidade.isPronto() ? unicidade.donoDoCodigo(ean).orElse(null) : codigosBanco.get(ean));
+            if (dono != null && dono != LIVRE && !dono.equals(id)) {
+                throw new ResponseStatusException(BAD_REQUEST, "Já existe produto com este código de barras");
+            }
+        }
+
+        private void tomar(String nome, String ean, long dono) {
+            nomesLote.put(TextoNormalizador.normalizar(nome), dono);
+            if (!EAN_SERVICO_FIXO.equals(ean)) {
+                codigosLote.put(ean, dono);
+            }
+        }
+
+        private void liberar(ProdutoModel atual) {
+            nomesLote.put(TextoNormalizador.normalizar(atual.getNomeProduto()), LIVRE);
+            String ean = atual.getCodg_barras_prod();
+            if (ean != null && !EAN_SERVICO_FIXO.equals(ean)) {
+                codigosLote.put(ean, LIVRE);
+            }
+        }
+
+        // ===== GRAVAÇÃO =====
+
+        // Exclusões primeiro (liberam nomes/EANs), depois alterações, depois criações;
+        // o flush entre as fases garante essa ordem no banco.
+        void gravar() {
+            for (var e : alterados.entrySet()) {
+                reservar(e.getKey(), e.getValue());
+            }
+            if (!reservarNaValidacao) {
+                for (ProdutoModel p : criados.values()) {
+                    reservar(null, p);
+                }
+            }
+
+            if (!excluidos.isEmpty()) {
+                repo.deleteAll(excluidos.stream().map(linhas::get).toList());
+                repo.flush();
+            }
+            aplicarAlteracoes();
+            repo.saveAll(criados.values());
+
+            for (Long id : excluidos) {
+                eventos.publishEvent(ProdutoEvento.excluido(anteriores.get(id)));
+            }
+            for (Long id : alterados.keySet()) {
+                eventos.publishEvent(ProdutoEvento.atualizado(produtos.detalhes(linhas.get(id)), anteriores.get(id)));
+            }
+            for (ProdutoModel p : criados.values()) {
+                eventos.publishEvent(ProdutoEvento.criado(produtos.detalhes(p)));
+            }
+        }
+
+        /**
+         * Alterações em ordem de dependência de nome. Com order_updates o flush sai
+         * por id: se o lote passa um nome de um item para outro (5: X→Y e 3: Z→X,
+         * ou 3 e 5 trocando de nome), o novo dono gravado antes de o antigo largar
+         * bateria no NOME UNIQUE. Cada rodada grava, num flush, as alterações cujo
+         * nome de destino não está mais com outro item pendente; sem nenhuma assim
+         * (ciclo), um item passa antes por um nome provisório. Sem nomes trocando
+         * de dono é uma rodada só.
+         */
+        private void aplicarAlteracoes() {
+            // nome normalizado -> item alterado que ainda o tem no banco
+            Map<String, Long> nomesNoBanco = new HashMap<>();
+            for (Long id : alterados.keySet()) {
+                nomesNoBanco.put(TextoNormalizador.normalizar(linhas.get(id).getNomeProduto()), id);
+            }
+
+            Map<Long, ProdutoModel> pendentes = new LinkedHashMap<>(alterados);
+            while (!pendentes.isEmpty()) {
+                List<Long> rodada = new ArrayList<>();
+                for (var e : pendentes.entrySet()) {
+                    Long dono = nomesNoBanco.get(TextoNormalizador.normalizar(e.getValue().getNomeProduto()));
+                    if (dono == null || dono.equals(e.getKey())) {
+                        rodada.add(e.getKey());
+                    }
+                }
+
+                if (rodada.isEmpty()) {
+                    Long id = pendentes.keySet().iterator().next();
+                    ProdutoModel linha = linhas.get(id);
+                    nomesNoBanco.remove(TextoNormalizador.normalizar(linha.getNomeProduto()), id);
+                    linha.setNomeProduto(NOME_PROVISORIO + UUID.randomUUID());
+                }
+                for (Long id : rodada) {
+                    ProdutoModel linha = linhas.get(id);
+                    ProdutoModel novo = pendentes.remove(id);
+                    nomesNoBanco.remove(TextoNormalizador.normalizar(linha.getNomeProduto()), id);
+                    ProdutoService.aplicarCampos(linha, novo, novo.getNomeProduto(), novo.getCodg_barras_prod());
+                }
+                repo.flush();
+            }
+        }
+
+        private void reservar(Long id, ProdutoModel p) {
+            Set<Long> doLote = new HashSet<>(alterados.keySet());
+            doLote.addAll(excluidos);
+            if (!unicidade.reservar(id, p.getNomeProduto(), p.getCodg_barras_prod(), doLote)) {
+                throw new ResponseStatusException(CONFLICT, "Nome ou código de barras em uso por outra gravação em andamento");
+            }
+        }
+
+        Resultado resultado(int i, ProdutoLoteOperacao op) {
+            return switch (op.op()) {
+                case CRIAR, CRIAR_SERVICO -> {
+                    ProdutoModel p = criados.get(i);
+                    yield new Resultado(i, CREATED.value(), p.getId_produto(), p, null);
+                }
+                case ATUALIZAR, ATUALIZAR_SERVICO -> new Resultado(i, OK.value(), op.id(),
+                        excluidos.contains(op.id()) ? null : linhas.get(op.id()), null);
+                case EXCLUIR -> new Resultado(i, NO_CONTENT.value(), op.id(), null, null);
+            };
+        }
+    }
+}
@@ -1,11 +1,18 @@
 package com.estoque.estoque.Produto;
 
+import com.estoque.estoque.Infra.IdEmBlocos;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
-@Table(name = ProdutoModel.NOME_TABELA)
+@Table(name = ProdutoModel.NOME_TABELA,
+        indexes = @Index(name = "IX_PRODUTO_NOMENORM", columnList = "NOMENORM"))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @NoArgsConstructor
 @AllArgsConstructor
 @Getter @Setter
@@ -13,8 +20,9 @@ public class ProdutoModel {
 
     public static final String NOME_TABELA = "PRODUTO";
 
+    // reservado em blocos antes do INSERT (Infra.AlocadorIds): inserts em lote
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @IdEmBlocos(tabela = ProdutoModel.NOME_TABELA, coluna = "IDPRODUTO")
     @Column(name = "IDPRODUTO", unique = true, nullable = false)
     private Long id_produto;
 
@@ -23,6 +31,14 @@ public class ProdutoModel {
     @Size(max=50)
     private String nomeProduto;
 
+    // Nome na forma do TextoNormalizador, com índice: as conferências de unicidade por nome
+    // usam esta coluna (upper(NOME) = upper(?) não aproveita o índice de NOME). Preenchida
+    // em normalizarNome(); linhas antigas pelo ProdutoNomeNormalizadoMigracao.
+    // NFD pode alongar o texto (ex.: hangul), daí o tamanho maior que o de NOME
+    @Column(name = "NOMENORM", length = 150)
+    @JsonIgnore
+    private String nomeNormalizado;
+
     @Column(name = "TEMPIDEAL")
     private Double temperatura_produto;
 
@@ -53,4 +69,10 @@ public class ProdutoModel {
     @Column(name = "ID_UNMEDI", nullable = false)
     @NotNull
     private Long id_unmedida;
+
+    @PrePersist
+    @PreUpdate
+    void normalizarNome() {
+        nomeNormalizado = TextoNormalizador.normalizar(nomeProduto);
+    }
 }
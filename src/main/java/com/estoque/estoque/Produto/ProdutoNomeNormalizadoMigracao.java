@@ -0,0 +1,77 @@
+package com.estoque.estoque.Produto;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Preenche PRODUTO.NOMENORM nas linhas gravadas antes da coluna existir (ou
+ * por fora da aplicação), em lotes de {@code estoque.produtos.nome-normalizado.lote}
+ * linhas por transação, na ordem do id.
+ *
+ * Roda a cada subida, antes do ApplicationReadyEvent: registro de unicidade e
+ * conferências por nome já encontram a coluna completa. Sem linhas pendentes,
+ * custa uma consulta pelo índice de NOMENORM.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10) // depois da carga sintética
+public class ProdutoNomeNormalizadoMigracao implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(ProdutoNomeNormalizadoMigracao.class);
+
+    private record Pendente(long id, String nome) {
+    }
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate transacao;
+    private final int lote;
+
+    public ProdutoNomeNormalizadoMigracao(JdbcTemplate jdbc,
+                                          PlatformTransactionManager transacoes,
+                                          @Value("${estoque.produtos.nome-normalizado.lote:1000}") int lote) {
+        this.jdbc = jdbc;
+        this.transacao = new TransactionTemplate(transacoes);
+        this.lote = Math.max(1, lote);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long inicio = System.nanoTime();
+        long apos = 0;
+        long total = 0;
+        while (true) {
+            long de = apos;
+            List<Pendente> pendentes = transacao.execute(s -> preencher(de));
+            if (pendentes.isEmpty()) {
+                break;
+            }
+            apos = pendentes.get(pendentes.size() - 1).id();
+            total += pendentes.size();
+        }
+        if (total > 0) {
+            log.info("NOMENORM preenchido em {} produtos em {} ms", total, (System.nanoTime() - inicio) / 1_000_000);
+        }
+    }
+
+    private List<Pendente> preencher(long apos) {
+        List<Pendente> pendentes = jdbc.query(
+                "select IDPRODUTO, NOME from PRODUTO where NOMENORM is null and IDPRODUTO > ? order by IDPRODUTO limit ?",
+                (rs, n) -> new Pendente(rs.getLong(1), rs.getString(2)), apos, lote);
+        // "is null" de novo: outra instância pode ter gravado a linha nesse meio-tempo
+        jdbc.batchUpdate("update PRODUTO set NOMENORM = ? where IDPRODUTO = ? and NOMENORM is null",
+                pendentes.stream()
+                        .map(p -> new Object[]{TextoNormalizador.normalizar(p.nome()), p.id()})
+                        .toList());
+        return pendentes;
+    }
+}
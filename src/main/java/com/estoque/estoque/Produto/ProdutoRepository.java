@@ -1,30 +1,31 @@
 package com.estoque.estoque.Produto;
 
+import com.estoque.estoque.Infra.CacheSegundoNivel;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface ProdutoRepository extends JpaRepository<ProdutoModel, Long> {
 
-    boolean existsByNomeProdutoIgnoreCase(String nomeProduto);
+    // Linhas buscadas por ida ao banco nas leituras por cursor
+    int TAMANHO_FETCH = 1000;
 
-    long deleteByNomeProdutoIgnoreCase(String nomeProduto);
-
-    Optional<ProdutoModel> findByNomeProdutoIgnoreCase(String nomeProduto);
-
-    @Query("select (count(p) > 0) from ProdutoModel p where p.codg_barras_prod = :ean")
-    boolean existsByBarcode(@Param("ean") String ean);
-
-    @Query("select p from ProdutoModel p where p.codg_barras_prod = :ean")
-    Optional<ProdutoModel> findByBarcode(@Param("ean") String ean);
-
-    // ===== Listagem com unidade de medida (UNIABREV) + temperatura =====
-    @Query("""
+    // Projeção da lista detalhada, base das consultas de ProdutoDetalhesDTO abaixo (cada uma
+    // acrescenta filtro e ordem). left join: na exclusão, produto com unidade inexistente
+    // também sai (unidade_medida nula no evento); as listagens filtram u.id is not null, o
+    // que o banco executa como join comum. As referências do PRODUTO vão para os eventos
+    String DETALHES = """
         select new com.estoque.estoque.Produto.ProdutoDetalhesDTO(
             p.id_produto,
             p.nomeProduto,
@@ -34,12 +35,93 @@ public interface ProdutoRepository extends JpaRepository<ProdutoModel, Long> {
             p.estoque_minimo,
             p.estoque_maximo,
             p.ponto_abastecimento,
-            u.abreviacao
+            u.abreviacao,
+            p.id_almoxarifado,
+            p.id_unmedida
         )
         from ProdutoModel p
-        join UnidadeMedidaModel u
+        left join UnidadeMedidaModel u
           on u.id = p.id_unmedida
+        """;
+
+    // ===== Por nome: sempre pela forma normalizada (TextoNormalizador), que tem índice =====
+    boolean existsByNomeNormalizado(String nomeNormalizado);
+
+    Optional<ProdutoModel> findByNomeNormalizado(String nomeNormalizado);
+
+    @Query("select (count(p) > 0) from ProdutoModel p where p.codg_barras_prod = :ean")
+    boolean existsByBarcode(@Param("ean") String ean);
+
+    @Query("select p from ProdutoModel p where p.codg_barras_prod = :ean")
+    Optional<ProdutoModel> findByBarcode(@Param("ean") String ean);
+
+    // ===== Nome/EAN de todos os itens (registro de unicidade) =====
+    @Query("select new com.estoque.estoque.Produto.ProdutoChavesDTO(p.id_produto, p.nomeProduto, p.codg_barras_prod) from ProdutoModel p")
+    List<ProdutoChavesDTO> listarChaves();
+
+    // ===== Conferências em conjunto (importação em lote) =====
+    // nomes já normalizados (TextoNormalizador)
+    @Query("select p.nomeNormalizado from ProdutoModel p where p.nomeNormalizado in :nomes")
+    List<String> nomesExistentes(@Param("nomes") Collection<String> nomes);
+
+    @Query("select p.codg_barras_prod from ProdutoModel p where p.codg_barras_prod in :eans")
+    List<String> codigosExistentes(@Param("eans") Collection<String> eans);
+
+    // ===== Donos de nomes/EANs em conjunto (lote de alterações, sem o registro em memória) =====
+    // nomes já normalizados (TextoNormalizador)
+    @Query("""
+        select new com.estoque.estoque.Produto.ProdutoChavesDTO(p.id_produto, p.nomeProduto, p.codg_barras_prod)
+        from ProdutoModel p
+        where p.nomeNormalizado in :nomes or p.codg_barras_prod in :eans
+        """)
+    List<ProdutoChavesDTO> chavesPorNomeOuCodigo(@Param("nomes") Collection<String> nomes,
+                                                 @Param("eans") Collection<String> eans);
+
+    // ===== Exclusão em massa: detalhes dos encontrados (para os eventos) e um DELETE por lote =====
+    @Query(DETALHES + """
+        where p.id_produto in :ids
+        """)
+    List<ProdutoDetalhesDTO> detalhesPorIds(@Param("ids") Collection<Long> ids);
+
+    // nomes já normalizados (TextoNormalizador)
+    @Query(DETALHES + """
+        where p.nomeNormalizado in :nomes
+        """)
+    List<ProdutoDetalhesDTO> detalhesPorNomes(@Param("nomes") Collection<String> nomes);
+
+    @Modifying
+    @Query("delete from ProdutoModel p where p.id_produto in :ids")
+    int excluirPorIds(@Param("ids") Collection<Long> ids);
+
+    // ===== Listagem com unidade de medida (UNIABREV) + temperatura =====
+    // Resultado no cache de consultas; qualquer gravação em PRODUTO/UNIMEDIDA o descarta
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.cacheable", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheRegion", value = CacheSegundoNivel.REGIAO_PRODUTO_DETALHES)
+    })
+    @Query(DETALHES + """
+        where u.id is not null
         order by p.id_produto
         """)
     List<ProdutoDetalhesDTO> listarComUnidade();
+
+    // ===== Paginação por chave (keyset): ?after=<id_produto>&limit=N =====
+    @Query(DETALHES + """
+        where u.id is not null
+          and p.id_produto > :after
+        order by p.id_produto
+        """)
+    List<ProdutoDetalhesDTO> listarComUnidadeApos(@Param("after") Long after, Limit limit);
+
+    // ===== Mesma listagem, lida por cursor (exige transação aberta e fechar o Stream) =====
+    // No MySQL o fetchSize só vira cursor no servidor com useCursorFetch=true na URL.
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.fetchSize", value = "" + TAMANHO_FETCH),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true")
+    })
+    @Query(DETALHES + """
+        where u.id is not null
+        order by p.id_produto
+        """)
+    Stream<ProdutoDetalhesDTO> streamComUnidade();
 }
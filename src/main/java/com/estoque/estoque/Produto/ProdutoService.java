@@ -1,10 +1,16 @@
 package com.estoque.estoque.Produto;
 
-import jakarta.transaction.Transactional;
+import com.estoque.estoque.Infra.RoteamentoDataSource;
+import com.estoque.estoque.UnidadeDeMedida.UnidadeMedidaService;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import static org.springframework.http.HttpStatus.*;
 
@@ -12,9 +18,12 @@ import static org.springframework.http.HttpStatus.*;
 public class ProdutoService {
 
     private final ProdutoRepository repo;
+    private final ProdutoUnicidadeRegistro unicidade;
+    private final UnidadeMedidaService unidades;
+    private final ApplicationEventPublisher eventos;
 
     // EAN-13 sintético/constante para serviços (válido)
-    private static final String EAN_SERVICO_FIXO = "9999999999996";
+    public static final String EAN_SERVICO_FIXO = "9999999999996";
 
     // Defaults para colunas NOT NULL quando o item é SERVIÇO
     private static final int DEFAULT_STQ_MIN = 0;
@@ -24,24 +33,58 @@ public class ProdutoService {
     // Unidade de Medida fixa para SERVIÇO (ID=1)
     private static final long UOM_SERVICO_ID = 1L;
 
-    public ProdutoService(ProdutoRepository repo) {
+    // Limites da paginação por chave
+    static final int LIMITE_PADRAO = 500;
+    static final int LIMITE_MAXIMO = 5000;
+
+    public ProdutoService(ProdutoRepository repo,
+                          ProdutoUnicidadeRegistro unicidade,
+                          UnidadeMedidaService unidades,
+                          ApplicationEventPublisher eventos) {
         this.repo = repo;
+        this.unicidade = unicidade;
+        this.unidades = unidades;
+        this.eventos = eventos;
     }
 
     // ===== LISTAGENS =====
+    // readOnly: com réplica configurada (Infra.RoteamentoBanco) as leituras vão para ela,
+    // menos as duas listagens completas: viram o JSON do ProdutoCatalogoVersao (e a
+    // detalhada, entrada no cache de consultas) e por isso são lidas do primário
 
     // Lista "crua" de ProdutoModel (se precisar em algum lugar)
+    @Transactional(readOnly = true)
     public List<ProdutoModel> listar() {
-        return repo.findAll();
+        return RoteamentoDataSource.noPrimario(repo::findAll);
     }
 
     // Lista detalhada (DTO com unidade_medida, temperatura etc.)
+    @Transactional(readOnly = true)
     public List<ProdutoDetalhesDTO> listarDetalhado() {
-        return repo.listarComUnidade();
+        return RoteamentoDataSource.noPrimario(repo::listarComUnidade);
+    }
+
+    // Página da lista detalhada: itens com id_produto > after, em ordem de id
+    @Transactional(readOnly = true)
+    public List<ProdutoDetalhesDTO> listarDetalhado(Long after, Integer limit) {
+        int n = limit == null ? LIMITE_PADRAO : limit;
+        if (n < 1 || n > LIMITE_MAXIMO) {
+            throw new ResponseStatusException(BAD_REQUEST, "limit deve estar entre 1 e " + LIMITE_MAXIMO);
+        }
+        return repo.listarComUnidadeApos(after == null ? 0L : after, Limit.of(n));
+    }
+
+    // Percorre a lista detalhada por cursor, sem materializar o resultado
+    @Transactional(readOnly = true)
+    public void percorrerDetalhado(Consumer<ProdutoDetalhesDTO> consumidor) {
+        try (Stream<ProdutoDetalhesDTO> linhas = repo.streamComUnidade()) {
+            linhas.forEach(consumidor);
+        }
     }
 
     // ===== CRUD PRODUTO =====
 
+    @Transactional(readOnly = true)
     public ProdutoModel buscar(Long id) {
         return repo.findById(id)
                 .orElseThrow(() -> new ResponseStatusException(NOT_FOUND, "Produto não encontrado"));
@@ -61,7 +104,7 @@ public class ProdutoService {
             throw new ResponseStatusException(BAD_REQUEST, "Nome é obrigatório");
         }
 
-        if (repo.existsByNomeProdutoIgnoreCase(p.getNomeProduto())) {
+        if (nomeEmUso(p.getNomeProduto(), null)) {
             throw new ResponseStatusException(BAD_REQUEST, "Já existe produto com esse nome");
         }
 
@@ -70,19 +113,21 @@ public class ProdutoService {
         if (ean == null || ean.isBlank()) {
             throw new ResponseStatusException(BAD_REQUEST, "Código de barras é obrigatório");
         }
-        if (!EAN_SERVICO_FIXO.equals(ean)) {
-            if (repo.existsByBarcode(ean)) {
-                throw new ResponseStatusException(BAD_REQUEST, "Já existe produto com este código de barras");
-            }
+        if (codigoEmUso(ean, null)) {
+            throw new ResponseStatusException(BAD_REQUEST, "Já existe produto com este código de barras");
         }
 
         validarRegras(p);
-        return repo.save(p);
+        reservar(null, p.getNomeProduto(), ean);
+        ProdutoModel salvo = repo.save(p);
+        eventos.publishEvent(ProdutoEvento.criado(detalhes(salvo)));
+        return salvo;
     }
 
     @Transactional
     public ProdutoModel atualizar(Long id, ProdutoModel body) {
         ProdutoModel atual = buscar(id);
+        ProdutoDetalhesDTO anterior = detalhes(atual);
 
         // nome
         String nome = body.getNomeProduto() != null ? body.getNomeProduto().trim() : null;
@@ -90,26 +135,36 @@ public class ProdutoService {
             throw new ResponseStatusException(BAD_REQUEST, "Nome é obrigatório");
         }
 
-        repo.findByNomeProdutoIgnoreCase(nome)
-                .filter(p -> !p.getId_produto().equals(id))
-                .ifPresent(p -> {
-                    throw new ResponseStatusException(BAD_REQUEST, "Já existe produto com esse nome");
-                });
+        if (nomeEmUso(nome, id)) {
+            throw new ResponseStatusException(BAD_REQUEST, "Já existe produto com esse nome");
+        }
 
         // Unicidade de EAN (exclui o próprio registro) — ignora se for EAN fixo de serviço
         String ean = body.getCodg_barras_prod();
         if (ean == null || ean.isBlank()) {
             throw new ResponseStatusException(BAD_REQUEST, "Código de barras é obrigatório");
         }
-        if (!EAN_SERVICO_FIXO.equals(ean)) {
-            repo.findByBarcode(ean)
-                    .filter(p -> !p.getId_produto().equals(id))
-                    .ifPresent(p -> {
-                        throw new ResponseStatusException(BAD_REQUEST, "Já existe produto com este código de barras");
-                    });
+        if (codigoEmUso(ean, id)) {
+            throw new ResponseStatusException(BAD_REQUEST, "Já existe produto com este código de barras");
         }
 
-        // aplica campos
+        aplicarCampos(atual, body, nome, ean);
+        validarRegras(atual);
+        reservar(id, nome, ean);
+        ProdutoModel salvo = repo.save(atual);
+        eventos.publishEvent(ProdutoEvento.atualizado(detalhes(salvo), anterior));
+        return salvo;
+    }
+
+    @Transactional
+    public void excluir(Long id) {
+        ProdutoModel atual = buscar(id);
+        repo.delete(atual);
+        eventos.publishEvent(ProdutoEvento.excluido(detalhes(atual)));
+    }
+
+    // Campos editáveis do PUT, com nome e EAN já normalizados (também usado no lote)
+    static void aplicarCampos(ProdutoModel atual, ProdutoModel body, String nome, String ean) {
         atual.setNomeProduto(nome);
         atual.setTemperatura_produto(body.getTemperatura_produto());
         atual.setDescricao_produto(body.getDescricao_produto());
@@ -119,20 +174,10 @@ public class ProdutoService {
         atual.setPonto_abastecimento(body.getPonto_abastecimento());
         atual.setId_almoxarifado(body.getId_almoxarifado());
         atual.setId_unmedida(body.getId_unmedida());
-
-        validarRegras(atual);
-        return repo.save(atual);
-    }
-
-    @Transactional
-    public void excluir(Long id) {
-        if (!repo.existsById(id)) {
-            throw new ResponseStatusException(NOT_FOUND, "Produto não encontrado");
-        }
-        repo.deleteById(id);
     }
 
-    private void validarRegras(ProdutoModel p) {
+    // Regras de estoque comuns a criar/atualizar (e à importação em lote)
+    static void validarRegras(ProdutoModel p) {
         if (p.getEstoque_minimo() < 0 || p.getEstoque_maximo() < 0 || p.getPonto_abastecimento() < 0) {
             throw new ResponseStatusException(BAD_REQUEST, "Valores de estoque não podem ser negativos");
         }
@@ -148,30 +193,45 @@ public class ProdutoService {
         }
     }
 
-    @Transactional
-    public void excluirPorNome(String nome) {
-        if (nome == null || nome.isBlank()) {
-            throw new ResponseStatusException(BAD_REQUEST, "Informe o nome do produto");
-        }
-        String nomeLimpo = nome.strip();
-
-        long apagados = repo.deleteByNomeProdutoIgnoreCase(nomeLimpo);
-        if (apagados == 0) {
-            throw new ResponseStatusException(NOT_FOUND, "Produto não encontrado pelo nome");
-        }
-    }
-
     // ====== SERVIÇO: força UoM ID=1 e demais defaults ======
 
     @Transactional
     public ProdutoModel criarServico(ServicoRequest in) {
         String nome = in.nomeProduto().trim();
-        if (repo.existsByNomeProdutoIgnoreCase(nome)) {
+        if (nomeEmUso(nome, null)) {
             throw new ResponseStatusException(BAD_REQUEST, "Já existe item com esse nome");
         }
 
         var m = new ProdutoModel();
         m.setId_produto(null);
+        aplicarServico(m, nome, in);
+
+        reservar(null, nome, EAN_SERVICO_FIXO);
+        ProdutoModel salvo = repo.save(m);
+        eventos.publishEvent(ProdutoEvento.criado(detalhes(salvo)));
+        return salvo;
+    }
+
+    @Transactional
+    public ProdutoModel atualizarServico(Long id, ServicoRequest in) {
+        var atual = buscar(id);
+        var anterior = detalhes(atual);
+
+        String nome = in.nomeProduto().trim();
+        if (nomeEmUso(nome, id)) {
+            throw new ResponseStatusException(BAD_REQUEST, "Já existe item com esse nome");
+        }
+
+        aplicarServico(atual, nome, in);
+
+        reservar(id, nome, EAN_SERVICO_FIXO);
+        ProdutoModel salvo = repo.save(atual);
+        eventos.publishEvent(ProdutoEvento.atualizado(detalhes(salvo), anterior));
+        return salvo;
+    }
+
+    // Serviço = nome/descrição do request + defaults fixos (também usado no lote)
+    static void aplicarServico(ProdutoModel m, String nome, ServicoRequest in) {
         m.setNomeProduto(nome);
         m.setDescricao_produto(in.descricao_produto().trim());
 
@@ -184,34 +244,49 @@ public class ProdutoService {
 
         m.setId_unmedida(UOM_SERVICO_ID);
         m.setCodg_barras_prod(EAN_SERVICO_FIXO);
-
-        return repo.save(m);
     }
 
-    @Transactional
-    public ProdutoModel atualizarServico(Long id, ServicoRequest in) {
-        var atual = buscar(id);
+    // ===== UNICIDADE =====
+    // Responde pelo registro em memória; enquanto ele não carregou, pergunta ao banco.
 
-        String nome = in.nomeProduto().trim();
-        repo.findByNomeProdutoIgnoreCase(nome)
+    private boolean nomeEmUso(String nome, Long id) {
+        if (unicidade.isPronto()) {
+            return unicidade.donoDoNome(nome).filter(dono -> !dono.equals(id)).isPresent();
+        }
+        String chave = TextoNormalizador.normalizar(nome);
+        if (id == null) {
+            return repo.existsByNomeNormalizado(chave);
+        }
+        return repo.findByNomeNormalizado(chave)
                 .filter(p -> !p.getId_produto().equals(id))
-                .ifPresent(p -> {
-                    throw new ResponseStatusException(BAD_REQUEST, "Já existe item com esse nome");
-                });
-
-        atual.setNomeProduto(nome);
-        atual.setDescricao_produto(in.descricao_produto().trim());
-
-        atual.setTemperatura_produto(null);
-        atual.setId_almoxarifado(null);
+                .isPresent();
+    }
 
-        atual.setEstoque_minimo(DEFAULT_STQ_MIN);
-        atual.setEstoque_maximo(DEFAULT_STQ_MAX);
-        atual.setPonto_abastecimento(DEFAULT_PONTO);
+    private boolean codigoEmUso(String ean, Long id) {
+        if (EAN_SERVICO_FIXO.equals(ean)) {
+            return false;
+        }
+        if (unicidade.isPronto()) {
+            return unicidade.donoDoCodigo(ean).filter(dono -> !dono.equals(id)).isPresent();
+        }
+        if (id == null) {
+            return repo.existsByBarcode(ean);
+        }
+        return repo.findByBarcode(ean)
+                .filter(p -> !p.getId_produto().equals(id))
+                .isPresent();
+    }
 
-        atual.setId_unmedida(UOM_SERVICO_ID);
-        atual.setCodg_barras_prod(EAN_SERVICO_FIXO);
+    // Segura nome/EAN até o commit e confere de novo o registro com a chave em mãos:
+    // quem consultou antes do commit de outra gravação com a mesma chave leva 409
+    private void reservar(Long id, String nome, String ean) {
+        if (!unicidade.reservar(id, nome, ean)) {
+            throw new ResponseStatusException(CONFLICT, "Nome ou código de barras em uso por outra gravação em andamento");
+        }
+    }
 
-        return repo.save(atual);
+    // Mesma forma da listagem detalhada, para quem ouve os ProdutoEvento
+    ProdutoDetalhesDTO detalhes(ProdutoModel p) {
+        return ProdutoDetalhesDTO.de(p, unidades.abreviacao(p.getId_unmedida()));
     }
 }
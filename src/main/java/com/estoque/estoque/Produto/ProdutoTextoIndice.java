@@ -0,0 +1,405 @@
+package com.estoque.estoque.Produto;
+
+import com.estoque.estoque.Infra.CargaNaSubida;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+/**
+ * Índice invertido em memória para busca por palavras da descrição (e do nome)
+ * dos produtos, com resultado ordenado por relevância.
+ *
+ * - termos: texto do {@link TextoNormalizador} (sem acento e sem caixa), sem
+ *   palavras vazias ("de", "para", ...) e reduzido a um radical simples
+ *   ({@link #radical}): "parafusos", "parafusinho" e "parafuso" caem no mesmo;
+ * - relevância: BM25, com as palavras do nome valendo em dobro; itens com mais
+ *   termos da consulta vêm antes dos que têm menos.
+ *
+ * Reconstruído na subida em paralelo (cada parte da lista monta suas listas de
+ * ocorrências, juntadas no fim) e mantido pelos {@link ProdutoEvento} após o
+ * commit. As buscas não acessam o banco.
+ */
+@Component
+public class ProdutoTextoIndice {
+
+    private static final Logger log = LoggerFactory.getLogger(ProdutoTextoIndice.class);
+
+    // BM25
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int PESO_NOME = 2;
+
+    // itens por parte na reconstrução paralela
+    private static final int ITENS_POR_PARTE = 5000;
+
+    private static final Pattern SEPARADOR = Pattern.compile("[^a-z0-9]+");
+    private static final Set<String> VAZIAS = Set.of(
+            "a", "o", "as", "os", "e", "de", "da", "do", "das", "dos", "em", "na", "no", "nas", "nos",
+            "um", "uma", "uns", "umas", "para", "pra", "por", "com", "ao", "aos", "ou", "que", "se");
+
+    private final ProdutoRepository repo;
+    private final CargaNaSubida carga;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Long, Documento> documentos = new HashMap<>();
+    private final Map<String, Ocorrencias> termos = new HashMap<>();
+    private long somaComprimentos;
+
+    private volatile boolean pronto;
+
+    public ProdutoTextoIndice(ProdutoRepository repo, CargaNaSubida carga) {
+        this.repo = repo;
+        this.carga = carga;
+    }
+
+    // comprimento = soma das frequências (já com o peso do nome). Os termos não
+    // ficam guardados: para remover, o dto é analisado de novo.
+    private record Documento(ProdutoDetalhesDTO dto, int comprimento) {
+    }
+
+    private record Analise(Map<String, Integer> frequencias, int comprimento) {
+    }
+
+    // Ordem natural = do pior para o melhor (mais termos, depois nota; no
+    // empate, id menor é melhor). Ids chegam em ordem crescente, então quem
+    // empata com o pior do heap não entra.
+    private record Candidato(long id, int achados, double nota) implements Comparable<Candidato> {
+
+        boolean piorQue(int outrosAchados, double outraNota) {
+            return achados < outrosAchados || (achados == outrosAchados && nota < outraNota);
+        }
+
+        @Override
+        public int compareTo(Candidato o) {
+            if (achados != o.achados) {
+                return Integer.compare(achados, o.achados);
+            }
+            if (nota != o.nota) {
+                return Double.compare(nota, o.nota);
+            }
+            return Long.compare(o.id, id);
+        }
+    }
+
+    // parte do índice montada por uma thread na reconstrução
+    private record Parte(List<Documento> documentos, Map<String, Ocorrencias> termos) {
+    }
+
+    // ===== CARGA / MANUTENÇÃO =====
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void aoSubir() {
+        carga.executar("o índice de texto", this::reconstruir);
+    }
+
+    // Segura o writeLock durante a consulta, como o ProdutoBuscaIndice: eventos
+    // de commits concorrentes são aplicados depois da troca do conteúdo.
+    public void reconstruir() {
+        lock.writeLock().lock();
+        try {
+            long inicio = System.nanoTime();
+            List<ProdutoDetalhesDTO> todos = repo.listarComUnidade();
+
+            // partes contíguas da lista (ordenada por id): juntadas na ordem,
+            // as listas de ocorrências já saem ordenadas
+            int partes = Math.max(1, (todos.size() + ITENS_POR_PARTE - 1) / ITENS_POR_PARTE);
+            List<Parte> montadas = IntStream.range(0, partes).parallel()
+                    .mapToObj(i -> montar(todos.subList(
+                            (int) ((long) todos.size() * i / partes),
+                            (int) ((long) todos.size() * (i + 1) / partes))))
+                    .toList();
+
+            documentos.clear();
+            termos.clear();
+            somaComprimentos = 0;
+            for (Parte p : montadas) {
+                for (Documento d : p.documentos()) {
+                    documentos.put(d.dto().getId_produto(), d);
+                    somaComprimentos += d.comprimento();
+                }
+                p.termos().forEach((t, o) -> termos.computeIfAbsent(t, k -> new Ocorrencias()).acrescentar(o));
+            }
+            pronto = true;
+
+            log.info("Índice de texto carregado: {} itens, {} termos em {} ms ({} partes)",
+                    todos.size(), termos.size(), (System.nanoTime() - inicio) / 1_000_000, partes);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static Parte montar(List<ProdutoDetalhesDTO> itens) {
+        List<Documento> docs = new ArrayList<>(itens.size());
+        Map<String, Ocorrencias> parcial = new HashMap<>();
+        for (ProdutoDetalhesDTO dto : itens) {
+            Analise a = analisar(dto);
+            docs.add(new Documento(dto, a.comprimento()));
+            a.frequencias().forEach((t, f) ->
+                    parcial.computeIfAbsent(t, k -> new Ocorrencias()).acrescentar(dto.getId_produto(), f, a.comprimento()));
+        }
+        return new Parte(docs, parcial);
+    }
+
+    @TransactionalEventListener
+    public void aoAlterar(ProdutoEvento evento) {
+        lock.writeLock().lock();
+        try {
+            remover(evento.id());
+            // sem unidade conhecida o item também não sai no join de listarComUnidade
+            if (evento.atual() != null && evento.atual().getUnidade_medida() != null) {
+                inserir(evento.atual());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isPronto() {
+        return pronto;
+    }
+
+    // ===== BUSCA =====
+
+    /**
+     * Itens com as palavras da consulta no nome ou na descrição, do mais para o
+     * menos relevante: primeiro quem tem mais palavras da consulta, depois a
+     * nota BM25.
+     */
+    public List<ProdutoDetalhesDTO> buscar(String consulta, int limite) {
+        Set<String> pedidos = new LinkedHashSet<>(termosDe(consulta));
+        if (pedidos.isEmpty() || limite <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            if (documentos.isEmpty()) {
+                return List.of();
+            }
+            int total = documentos.size();
+            double media = (double) somaComprimentos / total;
+
+            List<Ocorrencias> listas = new ArrayList<>();
+            for (String t : pedidos) {
+                Ocorrencias o = termos.get(t);
+                if (o != null) {
+                    listas.add(o);
+                }
+            }
+            int m = listas.size();
+            double[] idf = new double[m];
+            int[] pos = new int[m];
+            for (int i = 0; i < m; i++) {
+                int df = listas.get(i).n;
+                idf[i] = Math.log(1 + (total - df + 0.5) / (df + 0.5));
+            }
+
+            // Item a item pelas listas (todas ordenadas por id), sem mapa de
+            // acumuladores; só os "limite" melhores ficam, com o pior no topo do heap
+            PriorityQueue<Candidato> melhores = new PriorityQueue<>(limite + 1);
+            while (true) {
+                long id = Long.MAX_VALUE;
+                for (int i = 0; i < m; i++) {
+                    if (pos[i] < listas.get(i).n) {
+                        id = Math.min(id, listas.get(i).ids[pos[i]]);
+                    }
+                }
+                if (id == Long.MAX_VALUE) {
+                    break;
+                }
+                int achados = 0;
+                double nota = 0;
+                for (int i = 0; i < m; i++) {
+                    Ocorrencias o = listas.get(i);
+                    int k = pos[i];
+                    if (k < o.n && o.ids[k] == id) {
+                        int tf = o.frequencias[k];
+                        nota += idf[i] * tf * (K1 + 1) / (tf + K1 * (1 - B + B * o.comprimentos[k] / media));
+                        achados++;
+                        pos[i]++;
+                    }
+                }
+                if (melhores.size() < limite) {
+                    melhores.add(new Candidato(id, achados, nota));
+                } else if (melhores.peek().piorQue(achados, nota)) {
+                    melhores.poll();
+                    melhores.add(new Candidato(id, achados, nota));
+                }
+            }
+
+            ProdutoDetalhesDTO[] resultado = new ProdutoDetalhesDTO[melhores.size()];
+            for (int i = resultado.length - 1; i >= 0; i--) {
+                resultado[i] = documentos.get(melhores.poll().id()).dto();
+            }
+            return Arrays.asList(resultado);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ===== ANÁLISE DO TEXTO =====
+
+    private static Analise analisar(ProdutoDetalhesDTO dto) {
+        Map<String, Integer> freq = new HashMap<>();
+        for (String t : termosDe(dto.getNomeProduto())) {
+            freq.merge(t, PESO_NOME, Integer::sum);
+        }
+        for (String t : termosDe(dto.getDescricao_produto())) {
+            freq.merge(t, 1, Integer::sum);
+        }
+        int comprimento = 0;
+        for (int f : freq.values()) {
+            comprimento += f;
+        }
+        return new Analise(freq, comprimento);
+    }
+
+    static List<String> termosDe(String texto) {
+        String s = TextoNormalizador.normalizar(texto);
+        if (s.isEmpty()) {
+            return List.of();
+        }
+        List<String> r = new ArrayList<>();
+        for (String p : SEPARADOR.split(s)) {
+            if (p.length() >= 2 && !VAZIAS.contains(p)) {
+                r.add(radical(p));
+            }
+        }
+        return r;
+    }
+
+    /**
+     * Radical simples de uma palavra já normalizada: tira o plural, o
+     * diminutivo, o "-mente" e a vogal final (gênero). Não é um stemmer
+     * completo (tipo RSLP); basta que singular/plural, masculino/feminino e
+     * diminutivo da mesma palavra caiam no mesmo termo. Palavras com dígito
+     * ficam como estão.
+     */
+    static String radical(String p) {
+        if (p.length() <= 3 || !p.chars().allMatch(Character::isLetter)) {
+            return p;
+        }
+        String r = p;
+
+        // plural
+        if (r.endsWith("oes") || r.endsWith("aes")) {
+            r = r.substring(0, r.length() - 3) + "ao";
+        } else if (r.endsWith("ais") || r.endsWith("eis") || r.endsWith("ois")) {
+            r = r.substring(0, r.length() - 2) + "l";
+        } else if (r.endsWith("ns")) {
+            r = r.substring(0, r.length() - 2) + "m";
+        } else if (r.endsWith("s") && !r.endsWith("ss") && !r.endsWith("us") && !r.endsWith("is")) {
+            r = r.substring(0, r.length() - 1);
+        }
+
+        // diminutivo / advérbio
+        if (r.length() > 7 && (r.endsWith("zinho") || r.endsWith("zinha"))) {
+            r = r.substring(0, r.length() - 5);
+        } else if (r.length() > 6 && (r.endsWith("inho") || r.endsWith("inha"))) {
+            r = r.substring(0, r.length() - 4);
+        } else if (r.length() > 7 && r.endsWith("mente")) {
+            r = r.substring(0, r.length() - 5);
+        }
+
+        // vogal temática / gênero
+        char fim = r.charAt(r.length() - 1);
+        if (r.length() > 3 && (fim == 'a' || fim == 'e' || fim == 'o')) {
+            r = r.substring(0, r.length() - 1);
+        }
+        return r;
+    }
+
+    // ===== ESTRUTURAS (chamar com o writeLock) =====
+
+    private void inserir(ProdutoDetalhesDTO dto) {
+        Analise a = analisar(dto);
+        Long id = dto.getId_produto();
+        documentos.put(id, new Documento(dto, a.comprimento()));
+        somaComprimentos += a.comprimento();
+        a.frequencias().forEach((t, f) ->
+                termos.computeIfAbsent(t, k -> new Ocorrencias()).incluir(id, f, a.comprimento()));
+    }
+
+    private void remover(Long id) {
+        Documento d = documentos.remove(id);
+        if (d == null) {
+            return;
+        }
+        somaComprimentos -= d.comprimento();
+        for (String t : analisar(d.dto()).frequencias().keySet()) {
+            termos.computeIfPresent(t, (k, o) -> o.remover(id) ? null : o);
+        }
+    }
+
+    // Ocorrências de um termo: ids ordenados, com a frequência no item e o
+    // comprimento do item (a nota BM25 sai sem consultar outro mapa)
+    private static final class Ocorrencias {
+        private long[] ids = new long[4];
+        private int[] frequencias = new int[4];
+        private int[] comprimentos = new int[4];
+        private int n;
+
+        // só na reconstrução: ids chegam em ordem crescente
+        void acrescentar(long id, int frequencia, int comprimento) {
+            crescer(n + 1);
+            ids[n] = id;
+            frequencias[n] = frequencia;
+            comprimentos[n] = comprimento;
+            n++;
+        }
+
+        // junta a lista de uma parte seguinte (ids todos maiores)
+        void acrescentar(Ocorrencias o) {
+            crescer(n + o.n);
+            System.arraycopy(o.ids, 0, ids, n, o.n);
+            System.arraycopy(o.frequencias, 0, frequencias, n, o.n);
+            System.arraycopy(o.comprimentos, 0, comprimentos, n, o.n);
+            n += o.n;
+        }
+
+        void incluir(long id, int frequencia, int comprimento) {
+            int pos = Arrays.binarySearch(ids, 0, n, id);
+            if (pos < 0) {
+                pos = -pos - 1;
+                crescer(n + 1);
+                System.arraycopy(ids, pos, ids, pos + 1, n - pos);
+                System.arraycopy(frequencias, pos, frequencias, pos + 1, n - pos);
+                System.arraycopy(comprimentos, pos, comprimentos, pos + 1, n - pos);
+                n++;
+            }
+            ids[pos] = id;
+            frequencias[pos] = frequencia;
+            comprimentos[pos] = comprimento;
+        }
+
+        // devolve true quando a lista fica vazia
+        boolean remover(long id) {
+            int pos = Arrays.binarySearch(ids, 0, n, id);
+            if (pos >= 0) {
+                System.arraycopy(ids, pos + 1, ids, pos, n - pos - 1);
+                System.arraycopy(frequencias, pos + 1, frequencias, pos, n - pos - 1);
+                System.arraycopy(comprimentos, pos + 1, comprimentos, pos, n - pos - 1);
+                n--;
+            }
+            return n == 0;
+        }
+
+        private void crescer(int minimo) {
+            if (minimo > ids.length) {
+                int tamanho = Math.max(minimo, ids.length * 2);
+                ids = Arrays.copyOf(ids, tamanho);
+                frequencias = Arrays.copyOf(frequencias, tamanho);
+                comprimentos = Arrays.copyOf(comprimentos, tamanho);
+            }
+        }
+    }
+}
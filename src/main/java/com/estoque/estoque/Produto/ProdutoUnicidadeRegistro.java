@@ -0,0 +1,187 @@
+package com.estoque.estoque.Produto;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.estoque.estoque.Produto.ProdutoService.EAN_SERVICO_FIXO;
+
+/**
+ * Quem usa cada nome e cada EAN, em memória, para criar/atualizar não precisarem
+ * consultar o banco só para provar unicidade.
+ *
+ * Nomes são comparados pela forma do {@link TextoNormalizador} (sem caixa e sem
+ * acento, como a collation padrão do MySQL). O EAN fixo de serviço não entra.
+ * Carregado na subida e atualizado pelos {@link ProdutoEvento} após o commit;
+ * enquanto a transação não termina, as chaves ficam reservadas para ela. A
+ * reserva só é solta depois que o evento do commit entrou no registro, e quem
+ * reserva confere o registro já segurando a chave: uma gravação que consultou
+ * antes do commit de outra não passa com a mesma chave.
+ *
+ * Escritas feitas por outra instância só aparecem aqui depois de recarregar:
+ * a restrição UNIQUE do banco continua sendo a última barreira.
+ */
+@Component
+public class ProdutoUnicidadeRegistro {
+
+    private static final Logger log = LoggerFactory.getLogger(ProdutoUnicidadeRegistro.class);
+
+    private final ProdutoRepository repo;
+
+    private final Map<String, Long> nomes = new ConcurrentHashMap<>();
+    private final Map<String, Long> codigos = new ConcurrentHashMap<>();
+    private final Map<Long, ProdutoChavesDTO> porId = new ConcurrentHashMap<>();
+
+    // chaves ("n:"/"e:" + valor) em uso por transações ainda abertas
+    private final Map<String, Object> reservas = new ConcurrentHashMap<>();
+
+    private volatile boolean pronto;
+
+    public ProdutoUnicidadeRegistro(ProdutoRepository repo) {
+        this.repo = repo;
+    }
+
+    // ===== CARGA / MANUTENÇÃO (synchronized: eventos esperam a carga terminar) =====
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void carregar() {
+        try {
+            long inicio = System.nanoTime();
+            List<ProdutoChavesDTO> todos = repo.listarChaves();
+            nomes.clear();
+            codigos.clear();
+            porId.clear();
+            todos.forEach(this::registrar);
+            pronto = true;
+            log.info("Registro de unicidade carregado: {} itens em {} ms",
+                    todos.size(), (System.nanoTime() - inicio) / 1_000_000);
+        } catch (RuntimeException e) {
+            log.warn("Não foi possível carregar o registro de unicidade: {}", e.getMessage());
+        }
+    }
+
+    // Antes da sincronização que solta as reservas da mesma transação (ver reservar)
+    @TransactionalEventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public synchronized void aoAlterar(ProdutoEvento evento) {
+        remover(evento.id());
+        if (evento.atual() != null) {
+            var a = evento.atual();
+            registrar(new ProdutoChavesDTO(a.getId_produto(), a.getNomeProduto(), a.getCodg_barras_prod()));
+        }
+    }
+
+    public boolean isPronto() {
+        return pronto;
+    }
+
+    // ===== CONSULTAS =====
+
+    // Id do item que usa o nome; vazio = livre
+    public Optional<Long> donoDoNome(String nome) {
+        return Optional.ofNullable(nomes.get(TextoNormalizador.normalizar(nome)));
+    }
+
+    // Id do item que usa o EAN; vazio = livre (o EAN de serviço é sempre livre)
+    public Optional<Long> donoDoCodigo(String ean) {
+        if (ean == null || EAN_SERVICO_FIXO.equals(ean)) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(codigos.get(ean));
+    }
+
+    /**
+     * Reserva nome e EAN para o item {@code id} (null na criação) até o fim da
+     * transação corrente. Devolve false se outra transação aberta já reservou
+     * alguma das chaves ou se, com a chave em mãos, o registro já a dá a outro
+     * item (commit que aconteceu depois da consulta de quem reserva).
+     */
+    public boolean reservar(Long id, String nome, String ean) {
+        return reservar(id, nome, ean, List.of());
+    }
+
+    /**
+     * Como {@link #reservar(Long, String, String)}, para um lote: {@code doLote}
+     * são os itens alterados ou excluídos na mesma transação, cujas chaves atuais
+     * o próprio lote libera.
+     */
+    public boolean reservar(Long id, String nome, String ean, Collection<Long> doLote) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return true;
+        }
+        Object dono = id != null ? id : new Object();
+        List<String> feitas = new ArrayList<>(2);
+
+        List<String> chaves = new ArrayList<>(2);
+        chaves.add("n:" + TextoNormalizador.normalizar(nome));
+        if (ean != null && !EAN_SERVICO_FIXO.equals(ean)) {
+            chaves.add("e:" + ean);
+        }
+        for (String chave : chaves) {
+            Object atual = reservas.putIfAbsent(chave, dono);
+            if (atual == null) {
+                feitas.add(chave);
+            } else if (!atual.equals(dono)) {
+                feitas.forEach(k -> reservas.remove(k, dono));
+                return false;
+            }
+        }
+        if (pronto && (deOutro(donoDoNome(nome), id, doLote) || deOutro(donoDoCodigo(ean), id, doLote))) {
+            feitas.forEach(k -> reservas.remove(k, dono));
+            return false;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            // depois do aoAlterar do mesmo commit: quem pegar a chave já vê o novo dono
+            @Override
+            public int getOrder() {
+                return Ordered.LOWEST_PRECEDENCE;
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                feitas.forEach(k -> reservas.remove(k, dono));
+            }
+        });
+        return true;
+    }
+
+    private static boolean deOutro(Optional<Long> dono, Long id, Collection<Long> doLote) {
+        return dono.filter(d -> !d.equals(id) && !doLote.contains(d)).isPresent();
+    }
+
+    // ===== ESTRUTURAS =====
+
+    private void registrar(ProdutoChavesDTO c) {
+        porId.put(c.id(), c);
+        nomes.put(TextoNormalizador.normalizar(c.nome()), c.id());
+        if (c.codigo() != null && !EAN_SERVICO_FIXO.equals(c.codigo())) {
+            codigos.put(c.codigo(), c.id());
+        }
+    }
+
+    private void remover(Long id) {
+        var c = porId.remove(id);
+        if (c == null) {
+            return;
+        }
+        nomes.remove(TextoNormalizador.normalizar(c.nome()), id);
+        if (c.codigo() != null) {
+            codigos.remove(c.codigo(), id);
+        }
+    }
+}
@@ -13,10 +13,11 @@ import java.net.URI;
 public class ServicoController {
 
     private final ProdutoService service;
+    private final ProdutoCriacaoAgrupada criacao;
 
     @PostMapping
     public ResponseEntity<ProdutoModel> criar(@Valid @RequestBody ServicoRequest req) {
-        var salvo = service.criarServico(req);
+        var salvo = criacao.criarServico(req);
         return ResponseEntity
                 .created(URI.create("/api/produtos/" + salvo.getId_produto()))
                 .body(salvo);
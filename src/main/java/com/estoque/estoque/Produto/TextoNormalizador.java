@@ -0,0 +1,34 @@
+package com.estoque.estoque.Produto;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Forma canônica de textos para comparação e busca:
+ * sem espaços nas pontas, espaços internos colapsados, minúsculo e sem acentos.
+ *
+ * "  Café  com LEITE " -> "cafe com leite"
+ */
+public final class TextoNormalizador {
+
+    private static final Pattern DIACRITICOS = Pattern.compile("\\p{M}+");
+    private static final Pattern ESPACOS = Pattern.compile("\\s+");
+
+    private TextoNormalizador() {
+    }
+
+    public static String normalizar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        String s = texto.strip();
+        if (s.isEmpty()) {
+            return s;
+        }
+        s = Normalizer.normalize(s, Normalizer.Form.NFD);
+        s = DIACRITICOS.matcher(s).replaceAll("");
+        s = ESPACOS.matcher(s).replaceAll(" ");
+        return s.toLowerCase(Locale.ROOT);
+    }
+}
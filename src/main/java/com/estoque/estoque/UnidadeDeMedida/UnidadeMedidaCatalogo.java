@@ -0,0 +1,24 @@
+package com.estoque.estoque.UnidadeDeMedida;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Retrato imutável da tabela UNIMEDIDA.
+ *
+ * A versão só muda quando o conteúdo muda; é ela que vira o ETag do GET.
+ * {@code json} guarda a lista já serializada, para não reserializar a cada resposta.
+ */
+public record UnidadeMedidaCatalogo(
+        long versao,
+        List<UnidadeMedidaDTO> lista,
+        Map<Long, UnidadeMedidaDTO> porId,
+        byte[] json,
+        Instant carregadoEm
+) {
+
+    public String etag() {
+        return "\"um-" + versao + "\"";
+    }
+}
@@ -1,9 +1,12 @@
 package com.estoque.estoque.UnidadeDeMedida;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-
-import java.util.List;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping("/api/unidades-medida")
@@ -14,12 +17,23 @@ public class UnidadeMedidaController {
 
     /**
      * Lista todas as unidades de medida cadastradas.
+     * Responde 304 quando o If-None-Match bate com a versão atual do catálogo.
      *
      * GET /api/unidades-medida
      */
     @GetMapping
-    public List<UnidadeMedidaDTO> listar() {
-        return service.listarTodas();
+    public ResponseEntity<byte[]> listar(WebRequest request) {
+        var catalogo = service.catalogo();
+        if (request.checkNotModified(catalogo.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(catalogo.etag())
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .eTag(catalogo.etag())
+                .cacheControl(CacheControl.noCache())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(catalogo.json());
     }
 
     /**
@@ -29,7 +43,17 @@ public class UnidadeMedidaController {
      */
     @GetMapping("/{id}")
     public UnidadeMedidaDTO buscar(@PathVariable Long id) {
-        var u = service.buscarPorId(id);
-        return new UnidadeMedidaDTO(u.getId(), u.getAbreviacao(), u.getDescricao());
+        return service.buscarPorId(id);
+    }
+
+    /**
+     * Relê a tabela UNIMEDIDA sem esperar o TTL. Devolve a versão resultante.
+     *
+     * POST /api/unidades-medida/recarregar
+     */
+    @PostMapping("/recarregar")
+    public ResponseEntity<Void> recarregar() {
+        var catalogo = service.recarregar();
+        return ResponseEntity.noContent().eTag(catalogo.etag()).build();
     }
-}
\ No newline at end of file
+}
@@ -1,32 +1,159 @@
 package com.estoque.estoque.UnidadeDeMedida;
 
-import lombok.RequiredArgsConstructor;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
 
 import static org.springframework.http.HttpStatus.NOT_FOUND;
 
+/**
+ * UNIMEDIDA é dado de referência: as leituras vêm de um {@link UnidadeMedidaCatalogo}
+ * em memória, recarregado do banco quando passa do TTL ou em {@link #recarregar()}.
+ */
 @Service
-@RequiredArgsConstructor
 public class UnidadeMedidaService {
 
+    private static final Logger log = LoggerFactory.getLogger(UnidadeMedidaService.class);
+
     private final UnidadeMedidaRepository repository;
+    private final ObjectMapper mapper;
+    private final Duration ttl;
+    private final Duration esperaAposFalha;
+
+    private final ReentrantLock recarga = new ReentrantLock();
+    private volatile UnidadeMedidaCatalogo catalogo;
+    // depois de uma recarga que falhou, o retrato vencido segue em uso até aqui
+    private volatile Instant novaTentativa = Instant.MIN;
+
+    public UnidadeMedidaService(UnidadeMedidaRepository repository,
+                                ObjectMapper mapper,
+                                @Value("${estoque.unidades-medida.ttl:PT10M}") Duration ttl,
+                                @Value("${estoque.unidades-medida.espera-apos-falha:PT30S}") Duration esperaAposFalha) {
+        this.repository = repository;
+        this.mapper = mapper;
+        this.ttl = ttl;
+        this.esperaAposFalha = esperaAposFalha;
+    }
 
     public List<UnidadeMedidaDTO> listarTodas() {
-        return repository.findAllByOrderByAbreviacaoAsc()
-                .stream()
-                .map(u -> new UnidadeMedidaDTO(
-                        u.getId(),
-                        u.getAbreviacao(),
-                        u.getDescricao()
-                ))
-                .toList();
+        return catalogo().lista();
+    }
+
+    public UnidadeMedidaDTO buscarPorId(Long id) {
+        var u = id == null ? null : catalogo().porId().get(id);
+        if (u == null) {
+            throw new ResponseStatusException(NOT_FOUND, "Unidade de medida não encontrada");
+        }
+        return u;
+    }
+
+    // Sigla (UNIABREV) da unidade, ou null se o ID não existir
+    public String abreviacao(Long id) {
+        if (id == null) {
+            return null;
+        }
+        var u = catalogo().porId().get(id);
+        return u != null ? u.abreviacao() : null;
+    }
+
+    // ===== CATÁLOGO EM MEMÓRIA =====
+
+    /**
+     * Catálogo atual. Só vai ao banco na primeira chamada ou quando o TTL venceu;
+     * enquanto outra thread recarrega, as demais seguem com o retrato anterior.
+     * Se a recarga falha, o retrato anterior vale por mais {@code esperaAposFalha}
+     * antes da próxima tentativa: com o banco fora, não é uma consulta por chamada.
+     */
+    public UnidadeMedidaCatalogo catalogo() {
+        var atual = catalogo;
+        if (atual != null && !vencido(atual)) {
+            return atual;
+        }
+        if (atual == null) {
+            recarga.lock();
+        } else if (!recarga.tryLock()) {
+            return atual;
+        }
+        try {
+            atual = catalogo;
+            if (atual == null || vencido(atual)) {
+                atual = carregar(atual);
+            }
+            return atual;
+        } finally {
+            recarga.unlock();
+        }
+    }
+
+    // Força a leitura do banco (ex.: depois de alterar UNIMEDIDA por fora da aplicação)
+    public UnidadeMedidaCatalogo recarregar() {
+        recarga.lock();
+        try {
+            return carregar(catalogo);
+        } finally {
+            recarga.unlock();
+        }
+    }
+
+    private boolean vencido(UnidadeMedidaCatalogo c) {
+        Instant agora = Instant.now();
+        return c.carregadoEm().plus(ttl).isBefore(agora) && novaTentativa.isBefore(agora);
+    }
+
+    // chamar com o lock de recarga
+    private UnidadeMedidaCatalogo carregar(UnidadeMedidaCatalogo anterior) {
+        List<UnidadeMedidaDTO> lista;
+        try {
+            lista = repository.findAllByOrderByAbreviacaoAsc()
+                    .stream()
+                    .map(u -> new UnidadeMedidaDTO(
+                            u.getId(),
+                            u.getAbreviacao(),
+                            u.getDescricao()
+                    ))
+                    .toList();
+        } catch (RuntimeException e) {
+            if (anterior == null) {
+                throw e;
+            }
+            novaTentativa = Instant.now().plus(esperaAposFalha);
+            log.warn("Falha ao recarregar unidades de medida, mantendo versão {} (nova tentativa em {} s): {}",
+                    anterior.versao(), esperaAposFalha.toSeconds(), e.getMessage());
+            return anterior;
+        }
+
+        UnidadeMedidaCatalogo novo;
+        if (anterior != null && anterior.lista().equals(lista)) {
+            // conteúdo igual: mantém versão (e ETag), só renova o prazo
+            novo = new UnidadeMedidaCatalogo(anterior.versao(), anterior.lista(),
+                    anterior.porId(), anterior.json(), Instant.now());
+        } else {
+            Map<Long, UnidadeMedidaDTO> porId = new LinkedHashMap<>();
+            lista.forEach(u -> porId.put(u.id(), u));
+            // versão parte do relógio para o ETag não repetir entre reinícios
+            long versao = anterior == null ? System.currentTimeMillis() : anterior.versao() + 1;
+            novo = new UnidadeMedidaCatalogo(versao, lista, Map.copyOf(porId), serializar(lista), Instant.now());
+        }
+        catalogo = novo;
+        return novo;
     }
 
-    public UnidadeMedidaModel buscarPorId(Long id) {
-        return repository.findById(id)
-                .orElseThrow(() -> new ResponseStatusException(NOT_FOUND, "Unidade de medida não encontrada"));
+    private byte[] serializar(List<UnidadeMedidaDTO> lista) {
+        try {
+            return mapper.writeValueAsBytes(lista);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Falha ao serializar unidades de medida", e);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,20 @@
+-- Trilha de auditoria de produtos (AUDITPRODUTO), gravada em lotes pela
+-- Auditoria.AuditoriaProdutos. O banco compartilhado roda sem ddl-auto:
+-- aplicar uma vez, à mão, antes de subir a versão que audita. No perfil
+-- "carga" (H2) o Hibernate cria a tabela a partir da entidade.
+--
+-- Sem a tabela as rodadas de gravação falham e o anel enche; a partir daí vale
+-- estoque.auditoria.politica.
+
+CREATE TABLE IF NOT EXISTS AUDITPRODUTO (
+    IDAUDIT    BIGINT       NOT NULL AUTO_INCREMENT,
+    ID_PRODUTO BIGINT       NOT NULL,
+    OPERACAO   VARCHAR(10)  NOT NULL,
+    CAMPO      VARCHAR(40)  NOT NULL,
+    ANTERIOR   VARCHAR(250) NULL,
+    NOVO       VARCHAR(250) NULL,
+    USUARIO    VARCHAR(60)  NULL,
+    DATAHORA   DATETIME(6)  NOT NULL,
+    PRIMARY KEY (IDAUDIT),
+    INDEX IX_AUDITPRODUTO_PRODUTO (ID_PRODUTO, IDAUDIT)
+);
@@ -0,0 +1,30 @@
+-- Contadores do alocador de ids em blocos (Infra.AlocadorIds).
+-- O banco compartilhado roda sem ddl-auto: aplicar uma vez, à mão, antes de
+-- subir a versão que gera IDPRODUTO pela aplicação. No perfil "carga" (H2) o
+-- Hibernate cria a tabela a partir da entidade.
+--
+-- Não precisa semear: a primeira reserva começa em max(IDPRODUTO) + 1.
+--
+-- Depois da primeira reserva, todo INSERT em PRODUTO tem de tirar o id da
+-- ID_BLOCO. Um id escolhido pelo AUTO_INCREMENT cairia dentro de um bloco já
+-- entregue a uma instância e o INSERT dela falharia por chave duplicada mais
+-- tarde. Por isso o segundo passo tira o AUTO_INCREMENT da coluna: INSERT sem
+-- id passa a falhar na hora. Ordem do rollout:
+--   1. criar ID_BLOCO (abaixo);
+--   2. parar as instâncias da versão anterior (elas dependem do AUTO_INCREMENT);
+--   3. aplicar o ALTER TABLE abaixo e subir a versão nova.
+-- O AlocadorIds registra erro se encontrar a coluna ainda AUTO_INCREMENT.
+--
+-- INSERT à mão (ou de outro sistema), numa transação:
+--   SELECT PROXIMO FROM ID_BLOCO WHERE NOME = 'PRODUTO' FOR UPDATE;  -- id a usar (sem linha: max(IDPRODUTO) + 1)
+--   UPDATE ID_BLOCO SET PROXIMO = PROXIMO + 1 WHERE NOME = 'PRODUTO';
+--   INSERT INTO PRODUTO (IDPRODUTO, ...) VALUES (<PROXIMO lido>, ...);
+--   COMMIT;
+
+CREATE TABLE IF NOT EXISTS ID_BLOCO (
+    NOME    VARCHAR(64) NOT NULL,
+    PROXIMO BIGINT      NOT NULL,
+    PRIMARY KEY (NOME)
+);
+
+ALTER TABLE PRODUTO MODIFY IDPRODUTO BIGINT NOT NULL;
@@ -0,0 +1,25 @@
+-- Tabelas da movimentação de estoque (MOVESTOQUE / SALDOESTOQUE).
+-- O banco compartilhado roda sem ddl-auto: aplicar uma vez, à mão, antes de
+-- subir a versão que registra movimentações. No perfil "carga" (H2) o
+-- Hibernate cria as duas a partir das entidades.
+
+CREATE TABLE IF NOT EXISTS MOVESTOQUE (
+    IDMOV      BIGINT      NOT NULL AUTO_INCREMENT,
+    ID_PRODUTO BIGINT      NOT NULL,
+    ID_ALMOX   BIGINT      NOT NULL,
+    TIPO       VARCHAR(10) NOT NULL,
+    QUANTIDADE INT         NOT NULL,
+    SALDO      INT         NOT NULL,
+    DATAHORA   DATETIME(6) NOT NULL,
+    DOCUMENTO  VARCHAR(60) NULL,
+    PRIMARY KEY (IDMOV),
+    INDEX IX_MOVESTOQUE_PRODUTO (ID_PRODUTO, ID_ALMOX, IDMOV)
+);
+
+CREATE TABLE IF NOT EXISTS SALDOESTOQUE (
+    ID_PRODUTO BIGINT      NOT NULL,
+    ID_ALMOX   BIGINT      NOT NULL,
+    QUANTIDADE INT         NOT NULL,
+    ATUALIZADO DATETIME(6) NOT NULL,
+    PRIMARY KEY (ID_PRODUTO, ID_ALMOX)
+);
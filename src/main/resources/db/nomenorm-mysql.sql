@@ -0,0 +1,13 @@
+-- Nome normalizado de PRODUTO (minúsculo, sem acentos, espaços colapsados),
+-- usado nas conferências de unicidade por nome com busca pelo índice.
+-- O banco compartilhado roda sem ddl-auto: aplicar uma vez, à mão, antes de
+-- subir a versão que consulta NOMENORM. No perfil "carga" (H2) o Hibernate
+-- cria coluna e índice a partir da entidade.
+--
+-- As linhas existentes ficam com NOMENORM nulo e são preenchidas pela própria
+-- aplicação na subida (Produto.ProdutoNomeNormalizadoMigracao), com a mesma
+-- normalização do Java: a do MySQL (collation) não é igual em todos os casos.
+
+ALTER TABLE PRODUTO
+    ADD COLUMN NOMENORM VARCHAR(150) NULL,
+    ADD INDEX IX_PRODUTO_NOMENORM (NOMENORM);
@@ -10,6 +10,15 @@ const API = {
 
   // Lista detalhada (DTO com unidade_medida + temperatura_produto)
   produtosDetalhes: () => `${API.base}/api/produtos/detalhes`,
+  produtosDetalhesPagina: (after, limit) =>
+    `${API.base}/api/produtos/detalhes?after=${after}&limit=${limit}`,
+
+  // Alterações em tempo real (SSE)
+  produtosEventos: () => `${API.base}/api/produtos/eventos`,
+
+  // Busca por nome/código no servidor
+  produtosBusca: (q, limit) =>
+    `${API.base}/api/produtos/busca?q=${encodeURIComponent(q)}&limit=${limit}`,
 
   // Unidades de medida (lista para o select)
   unidadesMedida: () => `${API.base}/api/unidades-medida`,
@@ -22,6 +31,13 @@ const API = {
 // EAN fixo de serviço — igual ao do back
 const SERVICE_EAN = "9999999999996";
 
+// Tamanho da página ao carregar a lista de produtos
+const PAGINA_PRODUTOS = 500;
+
+// Busca no servidor: máximo de resultados e espera após a digitação
+const LIMITE_BUSCA = 200;
+const ESPERA_BUSCA_MS = 250;
+
 // Util — evita XSS ao inserir texto
 const safe = (s = "") =>
   String(s).replace(/[&<>"'`]/g, (c) =>
@@ -208,7 +224,9 @@ formProduto.addEventListener("submit", async (e) => {
     );
     formProduto.reset();
     delete formProduto.dataset.editing;
-    await carregarProdutos();
+    // com o SSE conectado a tabela se atualiza pelo evento
+    if (!eventosAtivos()) await carregarProdutos();
+conectarEventos();
   } catch (err) {
     setMsg(feedbackProd, err.message || "Falha ao salvar produto", true);
   }
@@ -222,13 +240,36 @@ document
   .getElementById("filtroNome")
   .addEventListener("input", filtrarTabela);
 
+// ETag (versão do catálogo) da última carga completa da tabela
+let etagTabela = null;
+
 async function carregarProdutos() {
   try {
-    // usa a lista detalhada (DTO com temperatura_produto + unidade_medida)
-    const res = await fetch(API.produtosDetalhes());
-    if (!res.ok) throw await parseErro(res);
-    const lista = await res.json();
-    renderTabela(lista);
+    // usa a lista detalhada (DTO com temperatura_produto + unidade_medida),
+    // página a página (keyset), renderizando cada página assim que chega
+    let after = 0;
+    let etag = null;
+    while (after != null) {
+      // 1ª página condicional: 304 = nada mudou desde a última carga, mantém a tabela
+      const headers =
+        after === 0 && etagTabela ? { "If-None-Match": etagTabela } : {};
+      const res = await fetch(API.produtosDetalhesPagina(after, PAGINA_PRODUTOS), {
+        headers,
+        cache: "no-store",
+      });
+      if (res.status === 304) return;
+      if (!res.ok) throw await parseErro(res);
+      if (after === 0) {
+        tbody.innerHTML = "";
+        modoBusca = false;
+        etagTabela = null;
+        etag = res.headers.get("ETag");
+      }
+      const pagina = await res.json();
+      renderTabela(pagina, true);
+      after = res.headers.get("X-Next-After");
+    }
+    etagTabela = etag;
   } catch (err) {
     console.error("[Produtos] erro ao listar:", err);
     setMsg(
@@ -240,32 +281,72 @@ async function carregarProdutos() {
 }
 
 // renderiza tabela usando temperatura_produto e unidade_medida
-function renderTabela(lista) {
-  tbody.innerHTML = "";
+function renderTabela(lista, acrescentar = false) {
+  if (!acrescentar) tbody.innerHTML = "";
   for (const p of lista) {
-    const tr = document.createElement("tr");
-    const servico = isServico(p);
+    tbody.appendChild(linhaProduto(p));
+  }
+}
 
-    // Se for serviço, unidade de medida fica em branco
-    const unidade = servico ? "" : p.unidade_medida ?? "";
+function linhaProduto(p) {
+  const tr = document.createElement("tr");
+  const servico = isServico(p);
 
-    const temp = p.temperatura_produto ?? "";
+  // Se for serviço, unidade de medida fica em branco
+  const unidade = servico ? "" : p.unidade_medida ?? "";
 
-    tr.dataset.isServico = String(servico);
+  const temp = p.temperatura_produto ?? "";
 
-    tr.innerHTML =
-      `<td>${safe(p.id_produto)}</td>
-       <td>${safe(p.nomeProduto)}</td>
-       <td>${safe(p.descricao_produto)}</td>
-       <td>${safe(p.codg_barras_prod)}</td>
-       <td>${safe(temp)}</td>
-       <td>${safe(p.estoque_minimo)}/${safe(p.estoque_maximo)}/${safe(
-        p.ponto_abastecimento
-      )}</td>
-       <td>${safe(unidade)}</td>`;
+  tr.dataset.isServico = String(servico);
+  tr.dataset.id = String(p.id_produto);
 
-    tbody.appendChild(tr);
-  }
+  tr.innerHTML =
+    `<td>${safe(p.id_produto)}</td>
+     <td>${safe(p.nomeProduto)}</td>
+     <td>${safe(p.descricao_produto)}</td>
+     <td>${safe(p.codg_barras_prod)}</td>
+     <td>${safe(temp)}</td>
+     <td>${safe(p.estoque_minimo)}/${safe(p.estoque_maximo)}/${safe(
+      p.ponto_abastecimento
+    )}</td>
+     <td>${safe(unidade)}</td>`;
+
+  return tr;
+}
+
+// ------- Alterações em tempo real (SSE) -------
+// Mantém a tabela completa em dia sem recarregar; o EventSource reconecta
+// sozinho com Last-Event-ID e o servidor reenvia o que ficou para trás.
+let eventos = null;
+let modoBusca = false;
+
+function conectarEventos() {
+  if (!window.EventSource) return;
+  eventos = new EventSource(API.produtosEventos());
+  const aplicar = (e) => {
+    const { id, produto } = JSON.parse(e.data);
+    if (produto) atualizarLinha(produto);
+    else tbody.querySelector(`tr[data-id="${id}"]`)?.remove();
+    etagTabela = null; // tabela já está à frente da última carga
+  };
+  eventos.addEventListener("criado", aplicar);
+  eventos.addEventListener("atualizado", aplicar);
+  eventos.addEventListener("excluido", aplicar);
+  // servidor não tem mais o histórico desde a nossa versão: recarrega tudo
+  eventos.addEventListener("reset", () => {
+    etagTabela = null;
+    if (!modoBusca) carregarProdutos();
+  });
+}
+
+function eventosAtivos() {
+  return eventos?.readyState === EventSource.OPEN;
+}
+
+function atualizarLinha(p) {
+  const atual = tbody.querySelector(`tr[data-id="${p.id_produto}"]`);
+  if (atual) atual.replaceWith(linhaProduto(p));
+  else if (!modoBusca) tbody.appendChild(linhaProduto(p));
 }
 
 // Sem ação de editar via tabela
@@ -308,7 +389,7 @@ formServico.addEventListener("submit", async (e) => {
     );
     formServico.reset();
     delete formServico.dataset.editing;
-    await carregarProdutos();
+    if (!eventosAtivos()) await carregarProdutos();
   } catch (err) {
     setMsg(feedbackServ, err.message || "Falha ao salvar serviço", true);
   }
@@ -395,12 +476,34 @@ function validarProduto(p) {
   return null;
 }
 
-// Filtro cliente
+// Filtro — busca no servidor (nome/código, sem acento/maiúsculas);
+// campo vazio volta para a lista completa
+let buscaTimer = null;
+let buscaSeq = 0;
+
 function filtrarTabela(e) {
-  const q = e.target.value.toLowerCase();
-  for (const tr of tbody.rows) {
-    const nome = tr.cells[1]?.textContent.toLowerCase() ?? "";
-    tr.style.display = nome.includes(q) ? "" : "none";
+  const q = e.target.value.trim();
+  clearTimeout(buscaTimer);
+  buscaTimer = setTimeout(() => buscarProdutos(q), ESPERA_BUSCA_MS);
+}
+
+async function buscarProdutos(q) {
+  const seq = ++buscaSeq;
+  if (!q) return carregarProdutos();
+
+  try {
+    const res = await fetch(API.produtosBusca(q, LIMITE_BUSCA));
+    if (!res.ok) throw await parseErro(res);
+    const lista = await res.json();
+    // ignora respostas de buscas já substituídas por outra digitação
+    if (seq === buscaSeq) {
+      renderTabela(lista);
+      modoBusca = true;
+      etagTabela = null; // tabela com resultado de busca, não a lista completa
+    }
+  } catch (err) {
+    console.error("[Produtos] erro na busca:", err);
+    setMsg(feedbackProd, err.message || "Falha na busca", true);
   }
 }
 
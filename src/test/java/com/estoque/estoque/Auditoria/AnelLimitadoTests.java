@@ -0,0 +1,72 @@
+package com.estoque.estoque.Auditoria;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AnelLimitadoTests {
+
+	@Test
+	void cheioRecusaESegueNaOrdemDepoisDeDarVolta() {
+		var anel = new AnelLimitado<Integer>(4);
+		for (int i = 0; i < 4; i++) {
+			assertThat(anel.oferecer(i)).isTrue();
+		}
+		assertThat(anel.oferecer(4)).isFalse();
+		assertThat(anel.retirar()).isEqualTo(0);
+		assertThat(anel.oferecer(4)).isTrue();
+
+		List<Integer> saida = new ArrayList<>();
+		for (Integer i; (i = anel.retirar()) != null; ) {
+			saida.add(i);
+		}
+		assertThat(saida).containsExactly(1, 2, 3, 4);
+		assertThat(anel.tamanho()).isZero();
+	}
+
+	@Test
+	void produtoresConcorrentesEntregamCadaItemUmaVez() throws Exception {
+		var anel = new AnelLimitado<Long>(64);
+		int produtores = 4;
+		int porProdutor = 5_000;
+		var recebidos = ConcurrentHashMap.<Long>newKeySet();
+		var fim = new AtomicBoolean();
+
+		try (var exec = Executors.newFixedThreadPool(produtores + 1)) {
+			Future<?> consumidor = exec.submit(() -> {
+				while (!fim.get() || anel.tamanho() > 0) {
+					Long v = anel.retirar();
+					if (v != null) {
+						assertThat(recebidos.add(v)).isTrue();
+					} else {
+						Thread.yield();
+					}
+				}
+			});
+			List<Future<?>> envios = new ArrayList<>();
+			for (int p = 0; p < produtores; p++) {
+				long base = (long) p * porProdutor;
+				envios.add(exec.submit(() -> {
+					for (long i = 0; i < porProdutor; i++) {
+						while (!anel.oferecer(base + i)) {
+							Thread.yield();
+						}
+					}
+				}));
+			}
+			for (Future<?> f : envios) {
+				f.get();
+			}
+			fim.set(true);
+			consumidor.get();
+		}
+		assertThat(recebidos).hasSize(produtores * porProdutor);
+	}
+}
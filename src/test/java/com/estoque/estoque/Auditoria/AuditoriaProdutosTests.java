@@ -0,0 +1,25 @@
+package com.estoque.estoque.Auditoria;
+
+import com.estoque.estoque.Produto.ProdutoDetalhesDTO;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AuditoriaProdutosTests {
+
+	@Test
+	void diferencasSoDosCamposQueMudaram() {
+		var antes = new ProdutoDetalhesDTO(7L, "Gaze", "Pacote", "7891000100103", null, 1, 10, 5, "UN", 1L, 3L);
+		var depois = new ProdutoDetalhesDTO(7L, "Gaze", "Pacote 10 un", "7891000100103", 4.0, 1, 10, 5, "CX", 2L, 4L);
+
+		assertThat(AuditoriaProdutos.diferencas(antes, depois)).containsExactly(
+				new AuditoriaProdutos.Alteracao("descricao_produto", "Pacote", "Pacote 10 un"),
+				new AuditoriaProdutos.Alteracao("temperatura_produto", null, "4.0"),
+				new AuditoriaProdutos.Alteracao("id_almoxarifado", "1", "2"),
+				new AuditoriaProdutos.Alteracao("id_unmedida", "3", "4"));
+		assertThat(AuditoriaProdutos.diferencas(antes, antes)).isEmpty();
+		// exclusão: valores antigos preenchidos, novos nulos
+		assertThat(AuditoriaProdutos.diferencas(antes, null)).hasSize(8)
+				.allMatch(a -> a.novo() == null && a.anterior() != null);
+	}
+}
@@ -2,8 +2,11 @@ package com.estoque.estoque;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
 
-@SpringBootTest
+// Sobe contra o H2 do perfil "carga" (sem depender do MySQL compartilhado)
+@SpringBootTest(properties = "estoque.carga.produtos=200")
+@ActiveProfiles("carga")
 class EstoqueApplicationTests {
 
 	@Test
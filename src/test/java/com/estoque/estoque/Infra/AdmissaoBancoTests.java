@@ -0,0 +1,104 @@
+package com.estoque.estoque.Infra;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Uma conexão só: a primeira entrada ocupa a vaga e as demais esperam ou são recusadas
+class AdmissaoBancoTests {
+
+	private final SimpleMeterRegistry metricas = new SimpleMeterRegistry();
+
+	@AfterEach
+	void tearDown() {
+		AdmissaoBanco.limparPrazo();
+	}
+
+	@Test
+	void filaCheiaRecusaNaHora() throws Exception {
+		var admissao = new AdmissaoBanco("teste", 1, 1, Duration.ofSeconds(10), metricas);
+		admissao.entrar();
+		var naFila = CompletableFuture.runAsync(admissao::entrar);
+		while (medida("estoque.db.admissao.fila") < 1) {
+			Thread.onSpinWait();
+		}
+
+		long inicio = System.nanoTime();
+		assertThatThrownBy(admissao::entrar)
+				.isInstanceOfSatisfying(AdmissaoRecusadaException.class, this::servicoIndisponivel)
+				.hasMessageContaining("sobrecarregado");
+		assertThat(System.nanoTime() - inicio).isLessThan(TimeUnit.SECONDS.toNanos(1));
+		assertThat(recusadas("fila-cheia")).isEqualTo(1);
+
+		// quem estava na fila fica com a vaga liberada
+		admissao.sair();
+		naFila.get(5, TimeUnit.SECONDS);
+		assertThat(medida("estoque.db.admissao.fila")).isZero();
+		assertThat(medida("estoque.db.admissao.em-uso")).isEqualTo(1);
+	}
+
+	@Test
+	void esperaMaximaEPrazoDaRequisicaoRecusamCom503() {
+		var admissao = new AdmissaoBanco("teste", 1, 8, Duration.ofMillis(50), metricas);
+		admissao.entrar();
+
+		assertThatThrownBy(admissao::entrar)
+				.isInstanceOfSatisfying(AdmissaoRecusadaException.class, this::servicoIndisponivel)
+				.hasMessageContaining("esgotado");
+
+		// prazo já vencido: nem entra na fila
+		AdmissaoBanco.definirPrazo(System.nanoTime() - 1);
+		assertThatThrownBy(admissao::entrar)
+				.isInstanceOfSatisfying(AdmissaoRecusadaException.class, this::servicoIndisponivel)
+				.hasMessageContaining("Prazo da requisição");
+		assertThat(recusadas("prazo")).isEqualTo(2);
+		assertThat(medida("estoque.db.admissao.fila")).isZero();
+	}
+
+	@Test
+	void fecharAConexaoDevolveAPermissaoUmaVezSo() throws Exception {
+		var admissao = new AdmissaoBanco("teste", 1, 8, Duration.ofMillis(50), metricas);
+		DataSource alvo = mock(DataSource.class);
+		Connection fisica = mock(Connection.class);
+		when(alvo.getConnection()).thenReturn(fisica);
+		var ds = new AdmissaoDataSource(alvo, admissao);
+
+		Connection con = ds.getConnection();
+		assertThat(medida("estoque.db.admissao.em-uso")).isEqualTo(1);
+		con.close();
+		con.close();
+		// em-uso negativo seria permissão devolvida duas vezes
+		assertThat(medida("estoque.db.admissao.em-uso")).isZero();
+
+		// falha ao pedir ao pool também devolve
+		when(alvo.getConnection()).thenThrow(new SQLException("pool fora"));
+		assertThatThrownBy(ds::getConnection).isInstanceOf(SQLException.class);
+		assertThat(medida("estoque.db.admissao.em-uso")).isZero();
+	}
+
+	private void servicoIndisponivel(AdmissaoRecusadaException e) {
+		assertThat(e.getStatusCode().value()).isEqualTo(503);
+		assertThat(e.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+	}
+
+	private double medida(String nome) {
+		return metricas.get(nome).gauge().value();
+	}
+
+	private double recusadas(String motivo) {
+		return metricas.get("estoque.db.admissao.recusadas").tag("motivo", motivo).counter().count();
+	}
+}
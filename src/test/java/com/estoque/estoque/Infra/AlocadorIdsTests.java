@@ -0,0 +1,152 @@
+package com.estoque.estoque.Infra;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.TransactionSystemException;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Duas "instâncias" do alocador no mesmo H2, com ids antigos já gravados
+class AlocadorIdsTests {
+
+	private static final String URL = "jdbc:h2:mem:alocador;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+	private JdbcTemplate jdbc;
+	private AlocadorIds a;
+	private AlocadorIds b;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		jdbc = new JdbcTemplate(new DriverManagerDataSource(URL, "sa", ""));
+		jdbc.execute("create table ID_BLOCO (NOME varchar(64) primary key, PROXIMO bigint not null)");
+		jdbc.execute("create table PRODUTO (IDPRODUTO bigint not null primary key)");
+		jdbc.update("insert into PRODUTO (IDPRODUTO) values (1), (2), (57)");
+		a = alocador();
+		b = alocador();
+	}
+
+	@AfterEach
+	void tearDown() {
+		a.fechar();
+		b.fechar();
+		jdbc.execute("drop all objects");
+	}
+
+	@Test
+	void comecaDepoisDoMaiorIdExistente() {
+		assertThat(a.proximo("PRODUTO", "IDPRODUTO")).isEqualTo(58L);
+		assertThat(a.proximo("PRODUTO", "IDPRODUTO")).isEqualTo(59L);
+		// b reserva o bloco seguinte ao de a
+		assertThat(b.proximo("PRODUTO", "IDPRODUTO")).isEqualTo(68L);
+	}
+
+	@Test
+	void instanciasConcorrentesNuncaRepetemId() throws Exception {
+		Set<Long> ids = ConcurrentHashMap.newKeySet();
+		try (var exec = Executors.newFixedThreadPool(8)) {
+			for (int t = 0; t < 8; t++) {
+				AlocadorIds alocador = t % 2 == 0 ? a : b;
+				exec.submit(() -> {
+					for (int i = 0; i < 500; i++) {
+						ids.add(alocador.proximo("PRODUTO", "IDPRODUTO"));
+					}
+				});
+			}
+		}
+		assertThat(ids).hasSize(4000).allMatch(id -> id > 57);
+
+		// linha gravada por fora do alocador acima da faixa: a próxima reserva pula ela
+		long acima = jdbc.queryForObject("select PROXIMO from ID_BLOCO", Long.class) + 1000;
+		jdbc.update("insert into PRODUTO (IDPRODUTO) values (?)", acima);
+		Set<Long> depois = new HashSet<>();
+		for (int i = 0; i < 30; i++) {
+			depois.add(a.proximo("PRODUTO", "IDPRODUTO"));
+		}
+		assertThat(depois).contains(acima + 1).doesNotContain(acima);
+	}
+
+	// Depois de ids-mysql.sql a coluna não gera id: quem grava por fora tira o id
+	// da ID_BLOCO, e uma linha gravada depois da reserva não cai no bloco de a
+	@Test
+	void linhaGravadaDepoisDaReservaNaoCaiNoBloco() {
+		jdbc.execute("create table ITEM (IDITEM bigint not null primary key, NOME varchar(20))");
+		long primeiro = a.proximo("ITEM", "IDITEM");
+
+		assertThatThrownBy(() -> jdbc.update("insert into ITEM (NOME) values ('sem id')"))
+				.isInstanceOf(DataIntegrityViolationException.class);
+
+		long externo = jdbc.queryForObject("select PROXIMO from ID_BLOCO where NOME = 'ITEM'", Long.class);
+		jdbc.update("update ID_BLOCO set PROXIMO = PROXIMO + 1 where NOME = 'ITEM'");
+		jdbc.update("insert into ITEM (IDITEM, NOME) values (?, 'à mão')", externo);
+
+		jdbc.update("insert into ITEM (IDITEM) values (?)", primeiro);
+		for (int i = 1; i < 10; i++) {
+			jdbc.update("insert into ITEM (IDITEM) values (?)", a.proximo("ITEM", "IDITEM"));
+		}
+		// o bloco seguinte de a começa depois da linha à mão
+		assertThat(a.proximo("ITEM", "IDITEM")).isEqualTo(externo + 1);
+	}
+
+	// Outra sessão segura a linha do contador: a espera de trava esgota, a reserva é
+	// refeita e passa quando a trava sai; travada de vez, desiste após TENTATIVAS
+	@Test
+	void travaDaLinhaDoContadorRefazAReservaAteOLimite() throws Exception {
+		a.proximo("PRODUTO", "IDPRODUTO");
+		AlocadorIds impaciente = alocador(URL + ";LOCK_TIMEOUT=100");
+		AlocadorIds travado = alocador(URL + ";LOCK_TIMEOUT=50");
+		try {
+			try (Connection outra = travarContador()) {
+				var reserva = CompletableFuture.supplyAsync(() -> impaciente.proximo("PRODUTO", "IDPRODUTO"));
+				Thread.sleep(250);
+				outra.commit();
+				assertThat(reserva.get(5, TimeUnit.SECONDS)).isEqualTo(68L);
+			}
+			try (Connection outra = travarContador()) {
+				// no H2 a espera de trava esgotada é um QueryTimeoutException
+				assertThatThrownBy(() -> travado.proximo("PRODUTO", "IDPRODUTO"))
+						.isInstanceOfSatisfying(TransactionSystemException.class,
+								e -> assertThat(e.getApplicationException()).isInstanceOf(QueryTimeoutException.class));
+				outra.rollback();
+			}
+		} finally {
+			impaciente.fechar();
+			travado.fechar();
+		}
+	}
+
+	private static Connection travarContador() throws Exception {
+		Connection con = DriverManager.getConnection(URL, "sa", "");
+		con.setAutoCommit(false);
+		con.createStatement().executeQuery("select PROXIMO from ID_BLOCO for update").next();
+		return con;
+	}
+
+	private static AlocadorIds alocador() {
+		return alocador(URL);
+	}
+
+	private static AlocadorIds alocador(String url) {
+		var p = new DataSourceProperties();
+		p.setUrl(url);
+		p.setUsername("sa");
+		p.setPassword("");
+		return new AlocadorIds(p, new SimpleMeterRegistry(), 10);
+	}
+}
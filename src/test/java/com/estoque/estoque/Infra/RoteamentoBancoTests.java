@@ -0,0 +1,135 @@
+package com.estoque.estoque.Infra;
+
+import com.estoque.estoque.Produto.ProdutoDetalhesDTO;
+import com.estoque.estoque.Produto.ProdutoModel;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Primário e réplica em dois H2: a réplica é uma cópia do primário tirada logo
+// depois da carga sintética e nunca mais atualizada (atraso infinito)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"estoque.carga.produtos=50",
+		"spring.datasource.url=jdbc:h2:mem:primario;MODE=MySQL;DB_CLOSE_DELAY=-1",
+		"estoque.replica.enabled=true",
+		"estoque.replica.url=jdbc:h2:mem:replica;MODE=MySQL;DB_CLOSE_DELAY=-1",
+		"estoque.replica.janela-leitura-propria=PT1M"
+})
+@ActiveProfiles("carga")
+class RoteamentoBancoTests {
+
+	private static final String NOVA = "Descrição gravada no primário";
+
+	@Autowired
+	private TestRestTemplate http;
+
+	@TestConfiguration
+	static class CopiaParaReplica {
+
+		@Bean
+		@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+		ApplicationRunner copiarParaReplica(JdbcTemplate jdbc, @Value("${estoque.replica.url}") String url) {
+			return args -> {
+				Path arquivo = Files.createTempFile("replica", ".sql");
+				jdbc.execute("SCRIPT TO '" + arquivo + "'");
+				try (Connection c = DriverManager.getConnection(url, "sa", "")) {
+					c.createStatement().execute("RUNSCRIPT FROM '" + arquivo + "'");
+				}
+				Files.delete(arquivo);
+			};
+		}
+	}
+
+	@Test
+	void leituraVaiParaReplicaEQuemGravouLeDoPrimario() {
+		ProdutoModel p = http.getForObject("/api/produtos/1", ProdutoModel.class);
+		p.setDescricao_produto(NOVA);
+
+		var put = http.exchange("/api/produtos/1", HttpMethod.PUT, new HttpEntity<>(p), ProdutoModel.class);
+		// conexões da réplica são readOnly: gravar lá falharia
+		assertThat(put.getStatusCode()).isEqualTo(HttpStatus.OK);
+		String cookie = put.getHeaders().getFirst(HttpHeaders.SET_COOKIE);
+		assertThat(cookie).startsWith(LeituraPropriaFilter.COOKIE + "=");
+
+		assertThat(primeiraDescricao(null)).isNotEqualTo(NOVA);
+		assertThat(primeiraDescricao(cookie.split(";")[0])).isEqualTo(NOVA);
+	}
+
+	// As listagens completas ficam em cache (JSON por versão, cache de consultas):
+	// remontadas depois da gravação, têm de sair do primário mesmo sem o cookie
+	@Test
+	void listagensEmCacheSaoMontadasDoPrimario() {
+		String nova = "Descrição das listagens completas";
+		assertThat(descricao(listagem("/api/produtos", ProdutoModel[].class), 2L)).isNotEqualTo(nova);
+		assertThat(descricao(listagem("/api/produtos/detalhes", ProdutoDetalhesDTO[].class), 2L)).isNotEqualTo(nova);
+
+		ProdutoModel p = http.getForObject("/api/produtos/2", ProdutoModel.class);
+		p.setDescricao_produto(nova);
+		http.put("/api/produtos/2", p);
+
+		var lista = listagem("/api/produtos", ProdutoModel[].class);
+		var detalhes = listagem("/api/produtos/detalhes", ProdutoDetalhesDTO[].class);
+		assertThat(descricao(lista, 2L)).isEqualTo(nova);
+		assertThat(descricao(detalhes, 2L)).isEqualTo(nova);
+
+		// a ETag nova também vale para quem ainda não leu: 304 com o dado certo em cache
+		String etag = detalhes.getHeaders().getETag();
+		HttpHeaders h = new HttpHeaders();
+		h.setAccept(List.of(MediaType.APPLICATION_JSON));
+		h.setIfNoneMatch(etag);
+		var revalidacao = http.exchange("/api/produtos/detalhes", HttpMethod.GET, new HttpEntity<>(h), String.class);
+		assertThat(revalidacao.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+	}
+
+	private <T> ResponseEntity<T[]> listagem(String url, Class<T[]> tipo) {
+		HttpHeaders h = new HttpHeaders();
+		h.setAccept(List.of(MediaType.APPLICATION_JSON));
+		return http.exchange(url, HttpMethod.GET, new HttpEntity<>(h), tipo);
+	}
+
+	private static String descricao(ResponseEntity<?> r, Long id) {
+		for (Object o : (Object[]) r.getBody()) {
+			if (o instanceof ProdutoModel p && id.equals(p.getId_produto())) {
+				return p.getDescricao_produto();
+			}
+			if (o instanceof ProdutoDetalhesDTO d && id.equals(d.getId_produto())) {
+				return d.getDescricao_produto();
+			}
+		}
+		throw new AssertionError("produto " + id + " fora da listagem");
+	}
+
+	// Página da lista detalhada: consulta sem cache, vai ao banco
+	private String primeiraDescricao(String cookie) {
+		HttpHeaders h = new HttpHeaders();
+		h.setAccept(List.of(MediaType.APPLICATION_JSON));
+		if (cookie != null) {
+			h.add(HttpHeaders.COOKIE, cookie);
+		}
+		var r = http.exchange("/api/produtos/detalhes?limit=1", HttpMethod.GET, new HttpEntity<>(h), ProdutoDetalhesDTO[].class);
+		return r.getBody()[0].getDescricao_produto();
+	}
+}
@@ -0,0 +1,209 @@
+package com.estoque.estoque.Movimentacao;
+
+import com.estoque.estoque.Infra.CargaNaSubida;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+// Gravação num H2 próprio; o intervalo longo deixa as rodadas por conta do teste
+class EstoqueSaldosTests {
+
+	private static final String URL = "jdbc:h2:mem:saldos;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+	private JdbcTemplate jdbc;
+	private TransactionTemplate transacao;
+	private SimpleMeterRegistry metricas;
+	private EstoqueSaldos saldos;
+
+	@BeforeEach
+	void setUp() {
+		var ds = new DriverManagerDataSource(URL, "sa", "");
+		jdbc = new JdbcTemplate(ds);
+		transacao = new TransactionTemplate(new DataSourceTransactionManager(ds));
+		criarTabelas();
+		jdbc.update("insert into SALDOESTOQUE values (1, 0, 10, current_timestamp)");
+		metricas = new SimpleMeterRegistry();
+		saldos = new EstoqueSaldos(jdbc, transacao, metricas, mock(CargaNaSubida.class), 4, Duration.ofHours(1), 5);
+		saldos.carregar();
+	}
+
+	@AfterEach
+	void tearDown() {
+		saldos.encerrar();
+		jdbc.execute("drop all objects");
+	}
+
+	@Test
+	void aplicaSobreOSaldoCarregado() {
+		var r = saldos.aplicar(1, 0, TipoMovimento.SAIDA, -4, "NF 1");
+
+		assertThat(r.anterior()).isEqualTo(10);
+		assertThat(r.atual()).isEqualTo(6);
+		assertThat(saldos.saldos(1)).containsExactly(new SaldoDTO(1L, 0L, 6));
+	}
+
+	@Test
+	void saldoInsuficienteEEstouroSaoRecusados() {
+		assertThatThrownBy(() -> saldos.aplicar(1, 0, TipoMovimento.SAIDA, -11, null))
+				.isInstanceOf(ResponseStatusException.class)
+				.hasMessageContaining("Saldo insuficiente");
+		saldos.aplicar(2, 0, TipoMovimento.ENTRADA, Integer.MAX_VALUE, null);
+		assertThatThrownBy(() -> saldos.aplicar(2, 0, TipoMovimento.ENTRADA, 1, null))
+				.isInstanceOf(ResponseStatusException.class)
+				.hasMessageContaining("máximo suportado");
+
+		// recusadas não mexem no saldo nem entram no diário
+		assertThat(saldos.saldos(1)).containsExactly(new SaldoDTO(1L, 0L, 10));
+		saldos.gravar();
+		assertThat(jdbc.queryForObject("select count(*) from MOVESTOQUE", Integer.class)).isEqualTo(1);
+	}
+
+	@Test
+	void gravaDiarioESaldosNumaRodada() {
+		saldos.aplicar(1, 0, TipoMovimento.SAIDA, -4, "NF 1");
+		saldos.aplicar(1, 0, TipoMovimento.ENTRADA, 1, "NF 2");
+		saldos.aplicar(1, 3, TipoMovimento.ENTRADA, 7, null);
+
+		saldos.gravar();
+
+		assertThat(jdbc.queryForList("select SALDO from MOVESTOQUE where ID_PRODUTO = 1 and ID_ALMOX = 0 order by IDMOV",
+				Integer.class)).containsExactly(6, 7);
+		assertThat(saldoGravado(1, 0)).isEqualTo(7);
+		assertThat(saldoGravado(1, 3)).isEqualTo(7);
+		assertThat(pendentes()).isZero();
+	}
+
+	// O lote que falhou fica guardado e sai junto com o que chegou depois
+	@Test
+	void falhaNaGravacaoFicaParaAProximaRodada() {
+		jdbc.execute("drop table MOVESTOQUE");
+		saldos.aplicar(1, 0, TipoMovimento.SAIDA, -1, null);
+		saldos.aplicar(1, 0, TipoMovimento.SAIDA, -1, null);
+
+		saldos.gravar();
+		assertThat(metricas.get("estoque.movimentos.falhas").counter().count()).isEqualTo(1);
+		assertThat(pendentes()).isEqualTo(2);
+		assertThat(saldoGravado(1, 0)).isEqualTo(10);
+
+		criarTabelas();
+		saldos.aplicar(1, 0, TipoMovimento.SAIDA, -1, null);
+		saldos.gravar();
+
+		assertThat(jdbc.queryForList("select SALDO from MOVESTOQUE order by IDMOV", Integer.class))
+				.containsExactly(9, 8, 7);
+		assertThat(saldoGravado(1, 0)).isEqualTo(7);
+		assertThat(pendentes()).isZero();
+	}
+
+	@Test
+	void muitasPendentesRecebem503AteAGravacaoAlcancar() {
+		for (int i = 0; i < 5; i++) {
+			saldos.aplicar(1, 0, TipoMovimento.SAIDA, -1, null);
+		}
+		assertThatThrownBy(() -> saldos.aplicar(1, 0, TipoMovimento.SAIDA, -1, null))
+				.isInstanceOf(ResponseStatusException.class)
+				.hasMessageContaining("503");
+
+		saldos.gravar();
+		assertThat(saldos.aplicar(1, 0, TipoMovimento.SAIDA, -1, null).atual()).isEqualTo(4);
+	}
+
+	@Test
+	void semCargaRecusaCom503() {
+		var naoCarregado = new EstoqueSaldos(jdbc, transacao, new SimpleMeterRegistry(), mock(CargaNaSubida.class), 4, Duration.ofHours(1), 5);
+
+		assertThatThrownBy(() -> naoCarregado.saldos(1))
+				.isInstanceOf(ResponseStatusException.class)
+				.hasMessageContaining("503");
+	}
+
+	// SALDOESTOQUE indisponível na subida: 503 só até a nova tentativa conseguir
+	@Test
+	void falhaNaSubidaTentaDeNovo() throws Exception {
+		jdbc.execute("alter table SALDOESTOQUE rename to SALDOESTOQUE_FORA");
+		var carga = new CargaNaSubida(Duration.ofMillis(10), Duration.ofMillis(20));
+		var outro = new EstoqueSaldos(jdbc, transacao, new SimpleMeterRegistry(), carga, 4, Duration.ofHours(1), 5);
+		try {
+			outro.aoSubir();
+			assertThat(outro.isPronto()).isFalse();
+
+			jdbc.execute("alter table SALDOESTOQUE_FORA rename to SALDOESTOQUE");
+			long limite = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+			while (!outro.isPronto() && System.nanoTime() < limite) {
+				Thread.sleep(10);
+			}
+			assertThat(outro.isPronto()).isTrue();
+			assertThat(outro.saldos(1)).containsExactly(new SaldoDTO(1L, 0L, 10));
+		} finally {
+			carga.encerrar();
+			outro.encerrar();
+		}
+	}
+
+	// Várias threads em produtos que caem na mesma faixa e em faixas diferentes
+	@Test
+	void movimentacoesConcorrentesNaoPerdemAtualizacao() throws Exception {
+		var muitas = new EstoqueSaldos(jdbc, transacao, new SimpleMeterRegistry(), mock(CargaNaSubida.class), 4, Duration.ofHours(1), 1_000_000);
+		muitas.carregar();
+		int threads = 8;
+		int porThread = 5000;
+		try (var exec = Executors.newFixedThreadPool(threads)) {
+			List<Future<?>> tarefas = new ArrayList<>();
+			for (int t = 0; t < threads; t++) {
+				tarefas.add(exec.submit(() -> {
+					for (int i = 0; i < porThread; i++) {
+						muitas.aplicar(100 + i % 16, i % 2, TipoMovimento.ENTRADA, 1, null);
+					}
+				}));
+			}
+			for (Future<?> f : tarefas) {
+				f.get();
+			}
+		}
+
+		int total = 0;
+		for (long p = 100; p < 116; p++) {
+			for (SaldoDTO s : muitas.saldos(p)) {
+				total += s.quantidade();
+			}
+		}
+		assertThat(total).isEqualTo(threads * porThread);
+		muitas.encerrar();
+		assertThat(jdbc.queryForObject("select count(*) from MOVESTOQUE", Integer.class)).isEqualTo(threads * porThread);
+	}
+
+	private void criarTabelas() {
+		jdbc.execute("""
+				create table if not exists MOVESTOQUE (IDMOV bigint auto_increment primary key,
+				ID_PRODUTO bigint not null, ID_ALMOX bigint not null, TIPO varchar(10) not null,
+				QUANTIDADE int not null, SALDO int not null, DATAHORA timestamp(6) not null, DOCUMENTO varchar(60))""");
+		jdbc.execute("""
+				create table if not exists SALDOESTOQUE (ID_PRODUTO bigint not null, ID_ALMOX bigint not null,
+				QUANTIDADE int not null, ATUALIZADO timestamp(6) not null, primary key (ID_PRODUTO, ID_ALMOX))""");
+	}
+
+	private int saldoGravado(long produto, long almox) {
+		return jdbc.queryForObject("select QUANTIDADE from SALDOESTOQUE where ID_PRODUTO = ? and ID_ALMOX = ?",
+				Integer.class, produto, almox);
+	}
+
+	private double pendentes() {
+		return metricas.get("estoque.movimentos.pendentes").gauge().value();
+	}
+}
@@ -0,0 +1,73 @@
+package com.estoque.estoque.Movimentacao;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Alerta só na passagem de acima do limite para no máximo o limite
+class MovimentacaoServiceTests {
+
+	private EstoqueSaldos saldos;
+	private MovimentacaoService service;
+
+	@BeforeEach
+	void setUp() {
+		saldos = mock(EstoqueSaldos.class);
+		MovimentacaoRepository repo = mock(MovimentacaoRepository.class);
+		// estoque mínimo 2, ponto de pedido 5
+		when(repo.limitesDe(1L)).thenReturn(Optional.of(new LimitesProduto(1L, 2, 5, false)));
+		service = new MovimentacaoService(saldos, repo, mock(ApplicationEventPublisher.class),
+				new SimpleMeterRegistry(), 10);
+	}
+
+	@Test
+	void chegarExatamenteAoLimiteConta() {
+		saida(6, 5);
+
+		assertThat(service.alertas()).extracting(AlertaReposicao::tipo)
+				.containsExactly(AlertaReposicao.Tipo.PONTO_ABASTECIMENTO);
+	}
+
+	@Test
+	void ficarAbaixoOuSubirNaoRepeteOAlerta() {
+		saida(5, 4);
+		saida(4, 3);
+		entrada(3, 8);
+
+		assertThat(service.alertas()).isEmpty();
+	}
+
+	@Test
+	void quedaQuePassaOsDoisLimitesGeraDoisAlertas() {
+		saida(9, 1);
+
+		assertThat(service.alertas()).extracting(AlertaReposicao::tipo).containsExactlyInAnyOrder(
+				AlertaReposicao.Tipo.PONTO_ABASTECIMENTO, AlertaReposicao.Tipo.ESTOQUE_MINIMO);
+		assertThat(service.alertas()).extracting(AlertaReposicao::saldo).containsOnly(1);
+	}
+
+	private void saida(int anterior, int atual) {
+		movimentar(TipoMovimento.SAIDA, anterior, atual);
+	}
+
+	private void entrada(int anterior, int atual) {
+		movimentar(TipoMovimento.ENTRADA, anterior, atual);
+	}
+
+	private void movimentar(TipoMovimento tipo, int anterior, int atual) {
+		when(saldos.aplicar(eq(1L), anyLong(), eq(tipo), anyInt(), any()))
+				.thenReturn(new EstoqueSaldos.Resultado(anterior, atual));
+		service.registrar(new MovimentoRequest(1L, null, tipo, Math.abs(atual - anterior), null));
+	}
+}
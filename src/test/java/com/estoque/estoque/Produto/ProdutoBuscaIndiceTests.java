@@ -0,0 +1,84 @@
+package com.estoque.estoque.Produto;
+
+import com.estoque.estoque.Infra.CargaNaSubida;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProdutoBuscaIndiceTests {
+
+	private ProdutoBuscaIndice indice;
+
+	@BeforeEach
+	void setUp() {
+		ProdutoRepository repo = mock(ProdutoRepository.class);
+		when(repo.listarComUnidade()).thenReturn(List.of(
+				dto(1L, "Café Torrado", "7891000100103"),
+				dto(2L, "Leite Integral", "7891000200209"),
+				dto(3L, "Açúcar Cristal", "7891000300305")
+		));
+		indice = new ProdutoBuscaIndice(repo, mock(CargaNaSubida.class));
+		indice.reconstruir();
+	}
+
+	@Test
+	void buscaPorPrefixoSemAcentoNemCaixa() {
+		assertThat(ids(indice.buscar("CAFE", 10))).containsExactly(1L);
+		assertThat(ids(indice.buscar("acu", 10))).containsExactly(3L);
+	}
+
+	@Test
+	void buscaPorTrechoDoNomeEPrefixoDoCodigo() {
+		assertThat(ids(indice.buscar("integ", 10))).containsExactly(2L);
+		assertThat(ids(indice.buscar("78910002", 10))).containsExactly(2L);
+	}
+
+	@Test
+	void eventosAtualizamOIndice() {
+		indice.aoAlterar(ProdutoEvento.atualizado(dto(2L, "Leite Desnatado", "7891000200209"), null));
+		indice.aoAlterar(ProdutoEvento.excluido(dto(1L, "Café Torrado", "7891000100103")));
+
+		assertThat(indice.buscar("integral", 10)).isEmpty();
+		assertThat(ids(indice.buscar("desnat", 10))).containsExactly(2L);
+		assertThat(indice.buscar("cafe", 10)).isEmpty();
+	}
+
+	// Banco fora do ar na subida: o índice não fica 503 até o próximo restart
+	@Test
+	void falhaNaSubidaTentaDeNovo() throws Exception {
+		ProdutoRepository repo = mock(ProdutoRepository.class);
+		when(repo.listarComUnidade())
+				.thenThrow(new IllegalStateException("banco fora do ar"))
+				.thenThrow(new IllegalStateException("banco fora do ar"))
+				.thenReturn(List.of(dto(1L, "Café Torrado", "7891000100103")));
+		var carga = new CargaNaSubida(Duration.ofMillis(10), Duration.ofMillis(20));
+		try {
+			var outro = new ProdutoBuscaIndice(repo, carga);
+			outro.aoSubir();
+			assertThat(outro.isPronto()).isFalse();
+
+			long limite = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+			while (!outro.isPronto() && System.nanoTime() < limite) {
+				Thread.sleep(10);
+			}
+			assertThat(outro.isPronto()).isTrue();
+			assertThat(ids(outro.buscar("cafe", 10))).containsExactly(1L);
+		} finally {
+			carga.encerrar();
+		}
+	}
+
+	private static ProdutoDetalhesDTO dto(Long id, String nome, String ean) {
+		return new ProdutoDetalhesDTO(id, nome, "desc", ean, null, 1, 10, 5, "UN");
+	}
+
+	private static List<Long> ids(List<ProdutoDetalhesDTO> lista) {
+		return lista.stream().map(ProdutoDetalhesDTO::getId_produto).toList();
+	}
+}
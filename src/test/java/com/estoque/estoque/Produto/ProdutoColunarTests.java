@@ -0,0 +1,90 @@
+package com.estoque.estoque.Produto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Mesmo contexto do EstoqueApplicationTests (H2 do perfil "carga")
+@SpringBootTest(properties = "estoque.carga.produtos=200")
+@ActiveProfiles("carga")
+class ProdutoColunarTests {
+
+	@Autowired
+	private ProdutoController controller;
+
+	@Autowired
+	private ObjectMapper mapper;
+
+	@Test
+	void camposUmaVezELinhasNaMesmaOrdem() throws Exception {
+		var out = new ByteArrayOutputStream();
+		try (var gen = mapper.getFactory().createGenerator(out)) {
+			ProdutoColunar.inicio(gen, 12);
+			ProdutoColunar.linha(gen, new ProdutoDetalhesDTO(7L, "Gaze", "Pacote", "7891000100103", null, 1, 10, 5, "UN"));
+			ProdutoColunar.linha(gen, new ProdutoDetalhesDTO(8L, "Vacina", "Frasco", "7891000200209", 4.5, 2, 20, 8, "FR"));
+			ProdutoColunar.fim(gen);
+		}
+
+		JsonNode json = mapper.readTree(out.toByteArray());
+		assertThat(json.get("versao").asLong()).isEqualTo(12);
+		assertThat(textos(json.get("campos"))).containsExactly(ProdutoColunar.CAMPOS);
+		assertThat(json.get("linhas")).hasSize(2);
+		assertThat(json.get("linhas").get(0).toString())
+				.isEqualTo("[7,\"Gaze\",\"Pacote\",\"7891000100103\",null,1,10,5,\"UN\"]");
+		assertThat(json.get("linhas").get(1).get(4).asDouble()).isEqualTo(4.5);
+	}
+
+	@Test
+	void paginaEmCborPeloController() throws Exception {
+		var resposta = controller.listarDetalhadoCbor(null, 3, "gzip;q=0, identity", requisicao());
+
+		assertThat(resposta.getHeaders().containsKey(HttpHeaders.CONTENT_ENCODING)).isFalse();
+		JsonNode cbor = new CBORMapper().readTree(corpo(resposta.getBody()));
+		assertThat(textos(cbor.get("campos"))).containsExactly(ProdutoColunar.CAMPOS);
+		JsonNode linhas = cbor.get("linhas");
+		assertThat(linhas).hasSize(3);
+		for (JsonNode l : linhas) {
+			assertThat(l).hasSize(ProdutoColunar.CAMPOS.length);
+		}
+		assertThat(resposta.getHeaders().getFirst("X-Next-After")).isEqualTo(linhas.get(2).get(0).asText());
+
+		// mesma página comprimida quando o cliente aceita gzip
+		var comprimida = controller.listarDetalhadoCbor(null, 3, "gzip", requisicao());
+		assertThat(comprimida.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+		byte[] descomprimido = new GZIPInputStream(new ByteArrayInputStream(corpo(comprimida.getBody()))).readAllBytes();
+		assertThat(new CBORMapper().readTree(descomprimido)).isEqualTo(cbor);
+	}
+
+	private static ServletWebRequest requisicao() {
+		return new ServletWebRequest(new MockHttpServletRequest(), new MockHttpServletResponse());
+	}
+
+	private static byte[] corpo(StreamingResponseBody body) throws Exception {
+		var out = new ByteArrayOutputStream();
+		body.writeTo(out);
+		return out.toByteArray();
+	}
+
+	private static List<String> textos(JsonNode array) {
+		List<String> lista = new ArrayList<>();
+		array.forEach(n -> lista.add(n.asText()));
+		return lista;
+	}
+}
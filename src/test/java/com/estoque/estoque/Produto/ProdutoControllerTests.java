@@ -0,0 +1,23 @@
+package com.estoque.estoque.Produto;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProdutoControllerTests {
+
+	@Test
+	void acceptEncodingRespeitaOsPesos() {
+		assertThat(ProdutoController.aceitaGzip("gzip, deflate, br")).isTrue();
+		assertThat(ProdutoController.aceitaGzip("br;q=1.0, GZIP;q=0.5")).isTrue();
+		assertThat(ProdutoController.aceitaGzip("*")).isTrue();
+
+		assertThat(ProdutoController.aceitaGzip(null)).isFalse();
+		assertThat(ProdutoController.aceitaGzip("identity")).isFalse();
+		assertThat(ProdutoController.aceitaGzip("gzip;q=0")).isFalse();
+		assertThat(ProdutoController.aceitaGzip("gzip; q=0.000, deflate")).isFalse();
+		// recusa explícita vale mais que o curinga
+		assertThat(ProdutoController.aceitaGzip("*, gzip;q=0")).isFalse();
+		assertThat(ProdutoController.aceitaGzip("x-gzip-ish")).isFalse();
+	}
+}
@@ -0,0 +1,37 @@
+package com.estoque.estoque.Produto;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProdutoCriacaoAgrupadaTests {
+
+	// Um Error num grupo fica com os pedidos dele; a thread segue atendendo os próximos
+	@Test
+	void erroNumGrupoNaoDerrubaAThread() throws Exception {
+		ProdutoLoteService lotes = mock(ProdutoLoteService.class);
+		var gravado = new ProdutoModel();
+		gravado.setId_produto(42L);
+		when(lotes.criarIndependentes(anyList()))
+				.thenThrow(new StackOverflowError("simulado"))
+				.thenReturn(List.of(new ProdutoLoteRelatorio.Resultado(0, 201, 42L, gravado, null)));
+
+		var criacao = new ProdutoCriacaoAgrupada(mock(ProdutoService.class), lotes, new SimpleMeterRegistry(),
+				true, Duration.ZERO, 10);
+		try {
+			assertThatThrownBy(() -> criacao.criar(new ProdutoModel()))
+					.hasCauseInstanceOf(StackOverflowError.class);
+			assertThat(criacao.criar(new ProdutoModel()).getId_produto()).isEqualTo(42L);
+		} finally {
+			criacao.encerrar();
+		}
+	}
+}
@@ -0,0 +1,100 @@
+package com.estoque.estoque.Produto;
+
+import com.estoque.estoque.Infra.CargaNaSubida;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProdutoEanIndiceTests {
+
+	private final ObjectMapper mapper = new ObjectMapper();
+	private ProdutoRepository repo;
+	private ProdutoEanIndice indice;
+
+	@BeforeEach
+	void setUp() {
+		repo = mock(ProdutoRepository.class);
+		when(repo.listarComUnidade()).thenReturn(List.of(
+				dto(1L, "Café Torrado", "7891000100103"),
+				dto(2L, "Leite Integral", "7891000200209"),
+				dto(3L, "Instalação", ProdutoService.EAN_SERVICO_FIXO),
+				dto(4L, "Item legado", "ABC-123")
+		));
+		indice = new ProdutoEanIndice(repo, mapper, mock(CargaNaSubida.class));
+		indice.carregar();
+	}
+
+	@Test
+	void encontraPeloEanEPeloCodigoLegado() throws Exception {
+		assertThat(id(indice.buscar("7891000200209"))).isEqualTo(2L);
+		assertThat(id(indice.buscar(" 7891000100103 "))).isEqualTo(1L);
+		assertThat(id(indice.buscar("ABC-123"))).isEqualTo(4L);
+		assertThat(indice.buscar("7891000300305").situacao()).isEqualTo(ProdutoEanIndice.Situacao.NAO_ENCONTRADO);
+	}
+
+	@Test
+	void recusaDigitoVerificadorErradoEEanDeServico() {
+		assertThat(indice.buscar("7891000200208").situacao()).isEqualTo(ProdutoEanIndice.Situacao.INVALIDO);
+		assertThat(indice.buscar(ProdutoService.EAN_SERVICO_FIXO).situacao()).isEqualTo(ProdutoEanIndice.Situacao.SERVICO);
+		assertThat(ProdutoEanIndice.ean13("7891000100103")).isEqualTo(7891000100103L);
+	}
+
+	@Test
+	void eventosTrocamCodigoSemApagarODeOutroItem() throws Exception {
+		// lote: o item 2 assume o EAN do 1 antes de o evento do 1 chegar
+		indice.aoAlterar(ProdutoEvento.atualizado(dto(2L, "Leite Integral", "7891000100103"), dto(2L, "Leite Integral", "7891000200209")));
+		indice.aoAlterar(ProdutoEvento.excluido(dto(1L, "Café Torrado", "7891000100103")));
+
+		assertThat(id(indice.buscar("7891000100103"))).isEqualTo(2L);
+		assertThat(indice.buscar("7891000200209").situacao()).isEqualTo(ProdutoEanIndice.Situacao.NAO_ENCONTRADO);
+	}
+
+	@Test
+	void cresceERemoveSemPerderVizinhos() throws Exception {
+		List<ProdutoDetalhesDTO> muitos = new ArrayList<>();
+		for (long i = 1; i <= 5000; i++) {
+			muitos.add(dto(i, "Item " + i, ean13(789_000_000_000L + i)));
+		}
+		when(repo.listarComUnidade()).thenReturn(List.of());
+		indice.carregar();
+		muitos.forEach(d -> indice.aoAlterar(ProdutoEvento.criado(d)));
+		for (int i = 0; i < muitos.size(); i += 2) {
+			indice.aoAlterar(ProdutoEvento.excluido(muitos.get(i)));
+		}
+
+		for (int i = 0; i < muitos.size(); i++) {
+			var r = indice.buscar(muitos.get(i).getCodg_barras_prod());
+			if (i % 2 == 0) {
+				assertThat(r.situacao()).isEqualTo(ProdutoEanIndice.Situacao.NAO_ENCONTRADO);
+			} else {
+				assertThat(id(r)).isEqualTo(muitos.get(i).getId_produto());
+			}
+		}
+	}
+
+	private long id(ProdutoEanIndice.Resultado r) throws Exception {
+		assertThat(r.situacao()).isEqualTo(ProdutoEanIndice.Situacao.ENCONTRADO);
+		return mapper.readTree(r.json()).get("id_produto").asLong();
+	}
+
+	private static String ean13(long base) {
+		String s = String.format("%012d", base);
+		int soma = 0;
+		for (int k = 0; k < 12; k++) {
+			int d = s.charAt(k) - '0';
+			soma += (k % 2 == 0) ? d : d * 3;
+		}
+		return s + (10 - soma % 10) % 10;
+	}
+
+	private static ProdutoDetalhesDTO dto(Long id, String nome, String ean) {
+		return new ProdutoDetalhesDTO(id, nome, "desc", ean, null, 1, 10, 5, "UN");
+	}
+}
@@ -0,0 +1,121 @@
+package com.estoque.estoque.Produto;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Mesmo contexto do EstoqueApplicationTests (H2 do perfil "carga"), com lotes de 2
+@SpringBootTest(properties = "estoque.carga.produtos=200")
+@ActiveProfiles("carga")
+class ProdutoExclusaoServiceTests {
+
+	private static final AtomicLong SEQUENCIA = new AtomicLong();
+
+	@Autowired
+	private ProdutoRepository repo;
+
+	@Autowired
+	private ProdutoService produtos;
+
+	@Autowired
+	private PlatformTransactionManager txManager;
+
+	@Autowired
+	private ApplicationEventPublisher contexto;
+
+	private final List<ProdutoEvento> eventos = new CopyOnWriteArrayList<>();
+	private ProdutoExclusaoService exclusao;
+
+	@BeforeEach
+	void setUp() {
+		// os eventos seguem para os ouvintes do contexto (registro de unicidade, índices)
+		exclusao = new ProdutoExclusaoService(repo, e -> {
+			if (e instanceof ProdutoEvento evento) {
+				eventos.add(evento);
+			}
+			contexto.publishEvent(e);
+		}, txManager, 2);
+	}
+
+	@Test
+	void porIdsEmLotesComAusentes() {
+		long a = criar("Exclusão em lote A").getId_produto();
+		long b = criar("Exclusão em lote B").getId_produto();
+		long c = criar("Exclusão em lote C").getId_produto();
+
+		// repetido conta uma vez; 3 ids e um ausente em lotes de 2
+		var r = exclusao.excluirPorIds(List.of(a, 999_999L, b, a, c));
+
+		assertThat(r.solicitados()).isEqualTo(4);
+		assertThat(r.excluidos()).isEqualTo(3);
+		assertThat(r.lotes()).isEqualTo(2);
+		assertThat(r.ausentes()).containsExactly(999_999L);
+		assertThat(repo.findAllById(List.of(a, b, c))).isEmpty();
+
+		assertThat(eventos).extracting(ProdutoEvento::tipo).containsOnly(ProdutoEvento.Tipo.EXCLUIDO);
+		assertThat(eventos).extracting(ProdutoEvento::id).containsExactlyInAnyOrder(a, b, c);
+		ProdutoDetalhesDTO anterior = eventos.get(0).anterior();
+		assertThat(anterior.getNomeProduto()).startsWith("Exclusão em lote");
+		assertThat(anterior.getUnidade_medida()).isNotNull();
+		assertThat(anterior.getId_unmedida()).isEqualTo(2L);
+		assertThat(eventos.get(0).atual()).isNull();
+	}
+
+	@Test
+	void porNomesNormalizadosDevolveAusentesComoVieram() {
+		ProdutoModel p = criar("Exclusão Por Nome");
+
+		var r = exclusao.excluirPorNomes(List.of("  exclusao por NOME " + sufixo(p), "Não existe " + System.nanoTime()));
+
+		assertThat(r.solicitados()).isEqualTo(2);
+		assertThat(r.excluidos()).isEqualTo(1);
+		assertThat(r.lotes()).isEqualTo(1);
+		assertThat(r.ausentes()).singleElement().asString().startsWith("Não existe");
+		assertThat(repo.existsById(p.getId_produto())).isFalse();
+		assertThat(eventos).singleElement().extracting(ProdutoEvento::id).isEqualTo(p.getId_produto());
+
+		// nada encontrado: nenhum DELETE, nenhum evento
+		eventos.clear();
+		var vazio = exclusao.excluirPorNomes(List.of("Exclusão Por Nome " + sufixo(p)));
+		assertThat(vazio.excluidos()).isZero();
+		assertThat(vazio.ausentes()).hasSize(1);
+		assertThat(eventos).isEmpty();
+	}
+
+	private ProdutoModel criar(String nome) {
+		long n = SEQUENCIA.incrementAndGet();
+		var p = new ProdutoModel();
+		p.setNomeProduto(nome + " " + System.nanoTime() % 1_000_000 + "-" + n);
+		p.setDescricao_produto("exclusão em massa");
+		p.setCodg_barras_prod(ean13("781590000" + String.format("%03d", 200 + n)));
+		p.setEstoque_minimo(1);
+		p.setEstoque_maximo(10);
+		p.setPonto_abastecimento(5);
+		p.setId_unmedida(2L);
+		return produtos.criar(p);
+	}
+
+	// o que vem depois do nome-base ("<nanos>-<n>")
+	private static String sufixo(ProdutoModel p) {
+		String nome = p.getNomeProduto();
+		return nome.substring(nome.lastIndexOf(' ') + 1);
+	}
+
+	private static String ean13(String doze) {
+		int soma = 0;
+		for (int i = 0; i < 12; i++) {
+			soma += (doze.charAt(i) - '0') * (i % 2 == 0 ? 1 : 3);
+		}
+		return doze + (10 - soma % 10) % 10;
+	}
+}
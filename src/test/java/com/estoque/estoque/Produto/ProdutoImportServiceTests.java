@@ -0,0 +1,47 @@
+package com.estoque.estoque.Produto;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Mesmo contexto do EstoqueApplicationTests (H2 do perfil "carga")
+@SpringBootTest(properties = "estoque.carga.produtos=200")
+@ActiveProfiles("carga")
+class ProdutoImportServiceTests {
+
+	@Autowired
+	private ProdutoImportService importacao;
+
+	@Autowired
+	private ProdutoRepository repo;
+
+	// Campo entre aspas com quebra de linha, como o export escreve pelo CsvMapper
+	@Test
+	void csvComQuebraDeLinhaEntreAspas() throws Exception {
+		String csv = """
+				nomeProduto,descricao_produto,codg_barras_prod,estoque_minimo,estoque_maximo,ponto_abastecimento,id_unmedida
+				Importado multilinha,"primeira linha
+				segunda \"\"linha\"\"\",7815900000006,1,10,5,2
+
+				Importado invalido,sem numero,7815900000013,x,10,5,2
+				Importado depois,simples,7815900000020,1,10,5,2
+				""";
+
+		var r = importacao.importar(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)),
+				ProdutoImportService.Formato.CSV);
+
+		assertThat(r.lidas()).isEqualTo(3);
+		assertThat(r.importadas()).isEqualTo(2);
+		// linha 1 = cabeçalho; o registro de duas linhas ocupa 2 e 3, a 4 está em branco
+		assertThat(r.erros()).extracting(ProdutoImportRelatorio.ErroLinha::linha).containsExactly(5L);
+		assertThat(repo.findByNomeNormalizado(TextoNormalizador.normalizar("Importado multilinha")))
+				.get().extracting(ProdutoModel::getDescricao_produto)
+				.isEqualTo("primeira linha\nsegunda \"linha\"");
+	}
+}
@@ -0,0 +1,61 @@
+package com.estoque.estoque.Produto;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Mesmo contexto do EstoqueApplicationTests (H2 do perfil "carga")
+@SpringBootTest(properties = "estoque.carga.produtos=200")
+@ActiveProfiles("carga")
+class ProdutoLoteServiceTests {
+
+	@Autowired
+	private ProdutoLoteService lotes;
+
+	@Autowired
+	private ProdutoService produtos;
+
+	// Com order_updates o flush sai por id: 3 pegaria o nome de 5 antes de 5 largá-lo
+	@Test
+	void nomeQuePassaDeUmItemParaOutroNoMesmoLote() {
+		ProdutoModel p3 = produtos.buscar(3L);
+		ProdutoModel p5 = produtos.buscar(5L);
+		String x = p5.getNomeProduto();
+		String y = "Cadeia no lote " + System.nanoTime();
+
+		var r = lotes.aplicar(List.of(renomear(p5, y), renomear(p3, x)));
+
+		assertThat(r.aplicado()).isTrue();
+		assertThat(produtos.buscar(5L).getNomeProduto()).isEqualTo(y);
+		assertThat(produtos.buscar(3L).getNomeProduto()).isEqualTo(x);
+	}
+
+	@Test
+	void doisItensTrocamDeNome() {
+		ProdutoModel p7 = produtos.buscar(7L);
+		ProdutoModel p8 = produtos.buscar(8L);
+		String n7 = p7.getNomeProduto();
+		String n8 = p8.getNomeProduto();
+
+		// validado em ordem: 7 passa por um nome de passagem; no fim é um ciclo 7 <-> 8
+		var r = lotes.aplicar(List.of(
+				renomear(p7, "Troca no lote " + System.nanoTime()),
+				renomear(p8, n7),
+				renomear(produtos.buscar(7L), n8)));
+
+		assertThat(r.aplicado()).isTrue();
+		assertThat(r.resultados()).extracting(ProdutoLoteRelatorio.Resultado::status).containsOnly(200);
+		assertThat(produtos.buscar(7L).getNomeProduto()).isEqualTo(n8);
+		assertThat(produtos.buscar(8L).getNomeProduto()).isEqualTo(n7);
+	}
+
+	private static ProdutoLoteOperacao renomear(ProdutoModel p, String nome) {
+		p.setNomeProduto(nome);
+		return new ProdutoLoteOperacao(ProdutoLoteOperacao.Tipo.ATUALIZAR, p.getId_produto(), p, null);
+	}
+}
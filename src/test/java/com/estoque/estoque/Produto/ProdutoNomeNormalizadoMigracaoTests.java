@@ -0,0 +1,41 @@
+package com.estoque.estoque.Produto;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Linhas antigas sem NOMENORM, como ficam no MySQL logo depois do nomenorm-mysql.sql
+class ProdutoNomeNormalizadoMigracaoTests {
+
+	private SingleConnectionDataSource ds;
+	private JdbcTemplate jdbc;
+
+	@BeforeEach
+	void setUp() {
+		ds = new SingleConnectionDataSource("jdbc:h2:mem:nomenorm;MODE=MySQL", "sa", "", true);
+		jdbc = new JdbcTemplate(ds);
+		jdbc.execute("create table PRODUTO (IDPRODUTO bigint primary key, NOME varchar(50), NOMENORM varchar(150))");
+		jdbc.update("insert into PRODUTO (IDPRODUTO, NOME) values (1, '  Café  TORRADO '), (2, 'Álcool 70%'), (3, 'Gaze')");
+		jdbc.update("insert into PRODUTO (IDPRODUTO, NOME, NOMENORM) values (4, 'Luva', 'luva')");
+	}
+
+	@AfterEach
+	void tearDown() {
+		ds.destroy();
+	}
+
+	@Test
+	void preencheSoAsLinhasPendentesEmLotes() throws Exception {
+		new ProdutoNomeNormalizadoMigracao(jdbc, new DataSourceTransactionManager(ds), 2).run(null);
+
+		List<String> nomes = jdbc.queryForList("select NOMENORM from PRODUTO order by IDPRODUTO", String.class);
+		assertThat(nomes).containsExactly("cafe torrado", "alcool 70%", "gaze", "luva");
+	}
+}
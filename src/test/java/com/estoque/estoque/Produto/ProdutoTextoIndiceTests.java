@@ -0,0 +1,68 @@
+package com.estoque.estoque.Produto;
+
+import com.estoque.estoque.Infra.CargaNaSubida;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProdutoTextoIndiceTests {
+
+	private ProdutoTextoIndice indice;
+
+	@BeforeEach
+	void setUp() {
+		ProdutoRepository repo = mock(ProdutoRepository.class);
+		when(repo.listarComUnidade()).thenReturn(List.of(
+				dto(1L, "Parafuso Sextavado", "Parafusos de aço inoxidável para fixação de chapas"),
+				dto(2L, "Luva Nitrílica", "Luvas descartáveis para manipulação de alimentos"),
+				dto(3L, "Fita Isolante", "Fita para fixação de cabos; não usar em chapas quentes"),
+				dto(4L, "Chave Allen", "Chave para parafuso sextavado interno")
+		));
+		indice = new ProdutoTextoIndice(repo, mock(CargaNaSubida.class));
+		indice.reconstruir();
+	}
+
+	@Test
+	void radicalJuntaPluralGeneroEDiminutivo() {
+		assertThat(ProdutoTextoIndice.radical("parafusos")).isEqualTo(ProdutoTextoIndice.radical("parafuso"));
+		assertThat(ProdutoTextoIndice.radical("parafusinho")).isEqualTo(ProdutoTextoIndice.radical("parafuso"));
+		assertThat(ProdutoTextoIndice.radical("descartaveis")).isEqualTo(ProdutoTextoIndice.radical("descartavel"));
+		assertThat(ProdutoTextoIndice.radical("botoes")).isEqualTo(ProdutoTextoIndice.radical("botao"));
+		assertThat(ProdutoTextoIndice.radical("reforcada")).isEqualTo(ProdutoTextoIndice.radical("reforcado"));
+		assertThat(ProdutoTextoIndice.termosDe("Luva PARA alimentos")).containsExactly("luv", "aliment");
+	}
+
+	@Test
+	void buscaNaDescricaoSemAcentoEOrdenadaPorRelevancia() {
+		assertThat(ids(indice.buscar("luva descartavel", 10))).containsExactly(2L);
+		// os dois têm "fixação" e "chapa"; o parafuso também tem "inox" no texto
+		assertThat(ids(indice.buscar("fixacao chapa inoxidavel", 10))).containsExactly(1L, 3L);
+		// parafuso no nome (peso maior) vem antes de parafuso só na descrição
+		assertThat(ids(indice.buscar("parafusos", 10))).containsExactly(1L, 4L);
+		assertThat(indice.buscar("de para", 10)).isEmpty();
+	}
+
+	@Test
+	void eventosAtualizamOIndice() {
+		indice.aoAlterar(ProdutoEvento.atualizado(dto(2L, "Luva Nitrílica", "Luvas de procedimento"), null));
+		indice.aoAlterar(ProdutoEvento.excluido(dto(3L, "Fita Isolante", "x")));
+		indice.aoAlterar(ProdutoEvento.criado(dto(5L, "Avental", "Avental descartável")));
+
+		assertThat(ids(indice.buscar("descartaveis", 10))).containsExactly(5L);
+		assertThat(ids(indice.buscar("procedimento", 10))).containsExactly(2L);
+		assertThat(ids(indice.buscar("chapas", 10))).containsExactly(1L);
+	}
+
+	private static ProdutoDetalhesDTO dto(Long id, String nome, String descricao) {
+		return new ProdutoDetalhesDTO(id, nome, descricao, "789100010010" + id, null, 1, 10, 5, "UN");
+	}
+
+	private static List<Long> ids(List<ProdutoDetalhesDTO> lista) {
+		return lista.stream().map(ProdutoDetalhesDTO::getId_produto).toList();
+	}
+}
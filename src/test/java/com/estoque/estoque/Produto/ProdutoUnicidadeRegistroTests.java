@@ -0,0 +1,79 @@
+package com.estoque.estoque.Produto;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Mesmo contexto do EstoqueApplicationTests (H2 do perfil "carga")
+@SpringBootTest(properties = "estoque.carga.produtos=200")
+@ActiveProfiles("carga")
+class ProdutoUnicidadeRegistroTests {
+
+	@Autowired
+	private ProdutoUnicidadeRegistro unicidade;
+
+	@Autowired
+	private ProdutoService produtos;
+
+	@Autowired
+	private TransactionTemplate transacao;
+
+	// B confere antes do commit de A e só reserva depois que A soltou a chave:
+	// a reserva de B tem de enxergar A no registro
+	@Test
+	void reservaDepoisDoCommitDeOutraGravacaoComAMesmaChave() throws Exception {
+		String ean = "7815900000105";
+		var aCriou = new CountDownLatch(1);
+		var bConferiu = new CountDownLatch(1);
+
+		CompletableFuture<ProdutoModel> a = CompletableFuture.supplyAsync(() -> transacao.execute(s -> {
+			ProdutoModel p = produtos.criar(produto("Corrida A " + System.nanoTime(), ean));
+			aCriou.countDown();
+			aguardar(bConferiu);
+			return p;
+		}));
+
+		aguardar(aCriou);
+		// B só precisa da sincronização de transação: a única conexão do pool está com A
+		var semConexao = new TransactionTemplate(transacao.getTransactionManager());
+		semConexao.setPropagationBehavior(TransactionDefinition.PROPAGATION_SUPPORTS);
+		Boolean reservou = semConexao.execute(s -> {
+			assertThat(unicidade.donoDoCodigo(ean)).isEmpty();
+			bConferiu.countDown();
+			a.join();
+			return unicidade.reservar(null, "Corrida B " + System.nanoTime(), ean);
+		});
+
+		assertThat(reservou).isFalse();
+		assertThat(unicidade.donoDoCodigo(ean)).contains(a.get().getId_produto());
+	}
+
+	private static ProdutoModel produto(String nome, String ean) {
+		var p = new ProdutoModel();
+		p.setNomeProduto(nome);
+		p.setDescricao_produto("corrida");
+		p.setCodg_barras_prod(ean);
+		p.setEstoque_minimo(1);
+		p.setEstoque_maximo(10);
+		p.setPonto_abastecimento(5);
+		p.setId_unmedida(2L);
+		return p;
+	}
+
+	private static void aguardar(CountDownLatch latch) {
+		try {
+			assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+		} catch (InterruptedException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,34 @@
+package com.estoque.estoque.UnidadeDeMedida;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UnidadeMedidaServiceTests {
+
+	// TTL zero: toda chamada recarregaria. Depois de uma falha, o retrato
+	// anterior vale pela espera, sem uma consulta ao banco por chamada.
+	@Test
+	void falhaNaRecargaEsperaAntesDeTentarDeNovo() {
+		UnidadeMedidaRepository repo = mock(UnidadeMedidaRepository.class);
+		when(repo.findAllByOrderByAbreviacaoAsc())
+				.thenReturn(List.of(new UnidadeMedidaModel(1L, "Unidade", "UN")))
+				.thenThrow(new IllegalStateException("banco fora do ar"));
+		var service = new UnidadeMedidaService(repo, new ObjectMapper(), Duration.ZERO, Duration.ofMinutes(1));
+
+		var primeiro = service.catalogo();
+		for (int i = 0; i < 10; i++) {
+			assertThat(service.catalogo()).isSameAs(primeiro);
+		}
+		assertThat(service.abreviacao(1L)).isEqualTo("UN");
+		verify(repo, times(2)).findAllByOrderByAbreviacaoAsc();
+	}
+}